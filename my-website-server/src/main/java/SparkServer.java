@@ -1,75 +1,348 @@
-import com.google.gson.Gson;
-import parser.Blog;
+import com.google.gson.JsonParseException;
 import parser.BlogParser;
+import parser.BlogRepository;
+import projects.campuspaths.Algorithm;
+import projects.campuspaths.BatchRouter;
 import projects.campuspaths.CampusMap;
+import projects.campuspaths.CampusMapRegistry;
+import projects.campuspaths.EncodedPath;
 import projects.campuspaths.datastructures.Path;
 import projects.campuspaths.datastructures.Point;
 import projects.campuspaths.parser.CampusBuilding;
+import spark.Filter;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 import spark.Spark;
 import utils.CORSFilter;
+import utils.ContentNegotiation;
+import utils.Json;
+import utils.ResponseCache;
 
-import java.text.DateFormat;
-import java.text.ParseException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.*;
 
 public class SparkServer {
 
-    public static void main(String[] args) {
+    // The most alternative paths /findPath may be asked for.
+    private static final int MAX_ALTERNATIVES = 10;
+
+    // The most pairs of buildings a batch sent to /findPaths/batch may have.
+    private static final int MAX_BATCH = 100_000;
+
+    // The media types /findPath sends paths in compact form as, if they are accepted.
+    private static final String POLYLINE_JSON = "application/vnd.campuspaths.polyline+json";
+    private static final String POLYLINE_BINARY = "application/octet-stream";
+
+    // The forms paths can be sent in, in order of preference when the Accept header ranks
+    // several of them the same.
+    private static final List<String> PATH_TYPES = List.of("application/json", POLYLINE_JSON, POLYLINE_BINARY);
+
+    // The system property holding the token that the "/admin" endpoints require.
+    private static final String ADMIN_TOKEN_PROPERTY = "campuspaths.adminToken";
+
+    public static void main(String[] args) throws IOException {
         CORSFilter corsFilter = new CORSFilter();
         corsFilter.apply();
 
+        // Serialized and gzipped bodies of the responses that only change with the data behind
+        // them, sent with ETags so that clients can revalidate their copies.
+        ResponseCache responses = new ResponseCache();
+
+        // The blogs, kept in memory and reloaded as their files change.
+        BlogRepository blogs = BlogRepository.open(Paths.get(BlogParser.BLOGS_DIRECTORY));
+
         // Respond to a "GET" request being made to the server's "/readBlogs" endpoint.
-        // Sends a list of blogs (in markdown) in the Json format
+        // Sends a list of blogs (in markdown), newest first, in the Json format
         Spark.get("/readBlogs", new Route() {
             @Override
             public Object handle(Request request, Response response) throws Exception {
-                List<Blog> blogList = BlogParser.parseBlogs("/blogs/");
-
-                blogList.sort(new Comparator<Blog>() {
-                    @Override
-                    public int compare(Blog o1, Blog o2) {
-                        try {
-                            DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.MEDIUM);
-                            Date date1 = dateFormat.parse(o1.getDate());
-                            Date date2 = dateFormat.parse(o2.getDate());
-                            if (date1.compareTo(date2) == 0) {
-                                return o1.getTitle().compareTo(o2.getTitle());
-                            }
-                            // Sort blogs in the reverse order of create date.
-                            return -1 * date1.compareTo(date2);
-                        } catch (ParseException e) {
-                            e.printStackTrace();
-                            Spark.halt(400, "Cannot parse blog's creation date");
-                            return -1;
-                        }
-                    }
-                });
-
-                Gson gson = new Gson();
-
-                return gson.toJson(blogList);
+                BlogRepository.Snapshot snapshot = blogs.snapshot();
+                return responses.send(request, response, "/readBlogs", snapshot.getVersion(), snapshot::getBlogs);
             }
         });
 
-        CampusMap map = new CampusMap();
+        // Every campus paths endpoint routes on the map named by its optional "map" parameter,
+        // or on the default map if it isn't given, and responds 404 if there is no such map.
+        CampusMapRegistry maps = CampusMapRegistry.withConfiguredBudget();
+        // Load the default map now, so that the server fails to start if it is broken.
+        maps.get(CampusMapRegistry.DEFAULT_MAP);
+        BatchRouter router = BatchRouter.withConfiguredThreads();
         // Respond to a "GET" request being made to the server's "/findPath" endpoint.
         // Sends the shortest path between the given buildings in the Json format.
+        // The optional "algo" parameter runs a search with the given algorithm, e.g. "astar",
+        // instead of using the precomputed routes; the number of nodes the search settled is
+        // then sent in the X-Settled-Nodes header.
+        // The optional "alternatives" parameter, from 1 to MAX_ALTERNATIVES, instead sends a
+        // list of up to that many paths, shortest first, that don't visit any point twice.
+        // If the Accept header prefers POLYLINE_JSON, each path is sent as an EncodedPath in
+        // the Json format instead, and if it prefers POLYLINE_BINARY, all of them are sent in
+        // the binary form of EncodedPath.
         Spark.get("/findPath", new Route() {
             @Override
             public Object handle(Request request, Response response) throws Exception {
+                CampusMap map = mapParam(maps, request);
                 String start = request.queryParams("start");
                 String end = request.queryParams("end");
 
                 if (!map.shortNameExists(start) || !map.shortNameExists(end)) {
                     Spark.halt(400, "Short names don't exist");
                 }
-                Path<Point> shortestPath = map.findShortestPath(start, end);
+                String alternatives = request.queryParams("alternatives");
+                if (alternatives != null) {
+                    int k = 0;
+                    try {
+                        k = Integer.parseInt(alternatives);
+                    } catch (NumberFormatException e) {
+                        Spark.halt(400, "alternatives must be an integer");
+                    }
+                    if (k < 1 || k > MAX_ALTERNATIVES) {
+                        Spark.halt(400, "alternatives must be between 1 and " + MAX_ALTERNATIVES);
+                    }
+                    return sendPaths(request, response, map.findAlternativePaths(start, end, k), true);
+                }
+                Path<Point> shortestPath;
+                String algo = request.queryParams("algo");
+                if (algo == null) {
+                    shortestPath = map.findShortestPath(start, end);
+                } else {
+                    Algorithm algorithm = null;
+                    try {
+                        algorithm = Algorithm.fromName(algo);
+                    } catch (IllegalArgumentException e) {
+                        Spark.halt(400, e.getMessage());
+                    }
+                    shortestPath = map.findShortestPath(start, end, algorithm);
+                    response.header("X-Settled-Nodes", String.valueOf(map.lastSettledCount()));
+                }
+
+                return sendPaths(request, response, Collections.singletonList(shortestPath), false);
+            }
+        });
+
+        // Respond to a "GET" request being made to the server's "/findPaths" endpoint.
+        // Sends the shortest paths from the start building to each of the comma-separated end
+        // buildings, as a Json object from each end building's short name to its path. End
+        // buildings that cannot be reached from the start are left out.
+        Spark.get("/findPaths", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                CampusMap map = mapParam(maps, request);
+                String start = request.queryParams("start");
+                String ends = request.queryParams("ends");
+
+                if (!map.shortNameExists(start) || ends == null) {
+                    Spark.halt(400, "Short names don't exist");
+                }
+                List<String> endList = new ArrayList<>();
+                for (String end : ends.split(",")) {
+                    end = end.trim();
+                    if (!map.shortNameExists(end)) {
+                        Spark.halt(400, "Short names don't exist");
+                    }
+                    endList.add(end);
+                }
+
+                return Json.send(response, map.findShortestPaths(start, endList));
+            }
+        });
+
+        // Respond to a "POST" request being made to the server's "/findPaths/batch" endpoint.
+        // The body is a Json list of {"start": ..., "end": ...} objects. Sends the shortest
+        // path for each of them as newline-delimited Json, one
+        // {"index", "start", "end", "path"} object per line, streamed in the order they are
+        // solved; "index" is the position of the pair in the list, and "path" is left out if
+        // there is no path.
+        Spark.post("/findPaths/batch", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                CampusMap map = mapParam(maps, request);
+                BatchRouter.Query[] queries = null;
+                try {
+                    queries = Json.GSON.fromJson(request.body(), BatchRouter.Query[].class);
+                } catch (JsonParseException e) {
+                    Spark.halt(400, "The body must be a Json list of start and end buildings");
+                }
+                if (queries == null) {
+                    Spark.halt(400, "The body must be a Json list of start and end buildings");
+                }
+                if (queries.length > MAX_BATCH) {
+                    Spark.halt(400, "A batch can have at most " + MAX_BATCH + " pairs");
+                }
+                for (BatchRouter.Query query : queries) {
+                    if (query == null || !map.shortNameExists(query.getStart())
+                            || !map.shortNameExists(query.getEnd())) {
+                        Spark.halt(400, "Short names don't exist");
+                    }
+                }
+
+                response.type("application/x-ndjson");
+                try (Writer writer = Json.writer(response.raw().getOutputStream())) {
+                    router.solve(map, Arrays.asList(queries), answers -> {
+                        synchronized (writer) {
+                            for (BatchRouter.Answer answer : answers) {
+                                Json.GSON.toJson(answer, writer);
+                                writer.write('\n');
+                            }
+                            writer.flush();
+                        }
+                    });
+                }
+                return "";
+            }
+        });
+
+        // Respond to a "GET" request being made to the server's "/findPathFromCoords" endpoint.
+        // Sends the shortest path between the points of the map closest to (x1, y1) and
+        // (x2, y2) in the Json format.
+        Spark.get("/findPathFromCoords", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                CampusMap map = mapParam(maps, request);
+                double x1 = doubleParam(request, "x1");
+                double y1 = doubleParam(request, "y1");
+                double x2 = doubleParam(request, "x2");
+                double y2 = doubleParam(request, "y2");
+
+                return Json.send(response, map.findShortestPath(x1, y1, x2, y2));
+            }
+        });
+
+        // Respond to a "GET" request being made to the server's "/nearbyBuildings" endpoint.
+        // Sends the k buildings closest to (x, y), closest first, with their short and long
+        // names and their locations in the Json format. k is 5 if it isn't given.
+        Spark.get("/nearbyBuildings", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                CampusMap map = mapParam(maps, request);
+                double x = doubleParam(request, "x");
+                double y = doubleParam(request, "y");
+                int k = 5;
+                if (request.queryParams("k") != null) {
+                    try {
+                        k = Integer.parseInt(request.queryParams("k"));
+                    } catch (NumberFormatException e) {
+                        Spark.halt(400, "k must be an integer");
+                    }
+                    if (k < 0) {
+                        Spark.halt(400, "k cannot be negative");
+                    }
+                }
 
-                Gson gson = new Gson();
-                return gson.toJson(shortestPath);
+                return Json.send(response, map.nearestBuildings(x, y, k));
+            }
+        });
+
+        // Respond to a "GET" request being made to the server's "/reachable" endpoint.
+        // Sends everything within maxCost of the start building in the Json format: the
+        // buildings, as an object from short name to distance, and the points of the map, for
+        // drawing the region, both closest first.
+        Spark.get("/reachable", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                CampusMap map = mapParam(maps, request);
+                String start = request.queryParams("start");
+
+                if (!map.shortNameExists(start)) {
+                    Spark.halt(400, "Short names don't exist");
+                }
+                double maxCost = doubleParam(request, "maxCost");
+                if (maxCost < 0) {
+                    Spark.halt(400, "maxCost cannot be negative");
+                }
+
+                return Json.send(response, map.reachableFrom(start, maxCost));
+            }
+        });
+
+        // Requests to the "/admin" endpoints must carry the token set in the ADMIN_TOKEN_PROPERTY
+        // system property in an X-Admin-Token header. They are all refused if it isn't set.
+        Spark.before("/admin/*", new Filter() {
+            @Override
+            public void handle(Request request, Response response) {
+                String expected = System.getProperty(ADMIN_TOKEN_PROPERTY);
+                String given = request.headers("X-Admin-Token");
+                if (expected == null || given == null || !MessageDigest.isEqual(
+                        expected.getBytes(StandardCharsets.UTF_8), given.getBytes(StandardCharsets.UTF_8))) {
+                    Spark.halt(403, "Not allowed");
+                }
+            }
+        });
+
+        // Respond to a "GET" request being made to the server's "/admin/closures" endpoint.
+        // Sends the closed path segments, each as a path of one segment, in the Json format.
+        Spark.get("/admin/closures", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                CampusMap map = mapParam(maps, request);
+                return Json.send(response, map.closedSegments());
+            }
+        });
+
+        // Respond to a "POST" request being made to the server's "/admin/closures" endpoint.
+        // Closes the path segment between (x1, y1) and (x2, y2), in both directions, and sends
+        // the closed path segments in the Json format.
+        Spark.post("/admin/closures", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                String id = mapIdParam(maps, request);
+                double x1 = doubleParam(request, "x1");
+                double y1 = doubleParam(request, "y1");
+                double x2 = doubleParam(request, "x2");
+                double y2 = doubleParam(request, "y2");
+                try {
+                    // Through the registry, so that the map cannot be evicted mid-change.
+                    maps.closeSegment(id, x1, y1, x2, y2);
+                } catch (IllegalArgumentException e) {
+                    Spark.halt(404, e.getMessage());
+                }
+
+                return Json.send(response, maps.get(id).closedSegments());
+            }
+        });
+
+        // Respond to a "DELETE" request being made to the server's "/admin/closures" endpoint.
+        // Reopens the path segment between (x1, y1) and (x2, y2), in both directions, and sends
+        // the path segments that are still closed in the Json format.
+        Spark.delete("/admin/closures", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                String id = mapIdParam(maps, request);
+                double x1 = doubleParam(request, "x1");
+                double y1 = doubleParam(request, "y1");
+                double x2 = doubleParam(request, "x2");
+                double y2 = doubleParam(request, "y2");
+                try {
+                    // Through the registry, so that the map cannot be evicted mid-change.
+                    maps.reopenSegment(id, x1, y1, x2, y2);
+                } catch (IllegalArgumentException e) {
+                    Spark.halt(404, e.getMessage());
+                }
+
+                return Json.send(response, maps.get(id).closedSegments());
+            }
+        });
+
+        // Respond to a "GET" request being made to the server's "/admin/maps" endpoint.
+        // Sends the counters of the loaded maps, such as how much memory they take, in the
+        // Json format.
+        Spark.get("/admin/maps", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                return Json.send(response, maps.stats());
+            }
+        });
+
+        // Respond to a "GET" request being made to the server's "/admin/responses" endpoint.
+        // Sends the counters of the cache of response bodies in the Json format.
+        Spark.get("/admin/responses", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                return Json.send(response, responses.stats());
             }
         });
 
@@ -78,24 +351,105 @@ public class SparkServer {
         Spark.get("/getNames", new Route() {
             @Override
             public Object handle(Request request, Response response) throws Exception {
-                Map<String, String> shortToLongNames = map.buildingNames();
-
-                List<CampusBuilding> bldgs = new ArrayList<>();
-                for (Map.Entry<String, String> bldg: shortToLongNames.entrySet()) {
-                    String shortName = bldg.getKey();
-                    String longName = bldg.getValue();
-                    bldgs.add(new CampusBuilding(shortName, longName, 0, 0));
-                }
-                bldgs.sort(new Comparator<CampusBuilding>() {
-                    @Override
-                    public int compare(CampusBuilding o1, CampusBuilding o2) {
-                        return o1.getLongName().compareTo(o2.getLongName());
+                CampusMap map = mapParam(maps, request);
+                // The names only change with the files the map is loaded from.
+                return responses.send(request, response, "/getNames?map=" + mapId(request), map.inputDigest(), () -> {
+                    Map<String, String> shortToLongNames = map.buildingNames();
+
+                    List<CampusBuilding> bldgs = new ArrayList<>();
+                    for (Map.Entry<String, String> bldg: shortToLongNames.entrySet()) {
+                        String shortName = bldg.getKey();
+                        String longName = bldg.getValue();
+                        bldgs.add(new CampusBuilding(shortName, longName, 0, 0));
                     }
+                    bldgs.sort(new Comparator<CampusBuilding>() {
+                        @Override
+                        public int compare(CampusBuilding o1, CampusBuilding o2) {
+                            return o1.getLongName().compareTo(o2.getLongName());
+                        }
+                    });
+                    return bldgs;
                 });
-                Gson gson = new Gson();
-                return gson.toJson(bldgs);
             }
         });
 
     }
+
+    /**
+     * Returns the response body for the given paths, in the form the request's Accept header
+     * gives the highest q-value: in the binary form of EncodedPath, as EncodedPaths in the Json
+     * format, or as Paths in the Json format, which is also sent if it accepts none of them. If
+     * asList is false, there is a single path, which is sent on its own rather than in a list,
+     * except in the binary form.
+     */
+    private static Object sendPaths(Request request, Response response, List<Path<Point>> paths, boolean asList)
+            throws IOException {
+        // The body depends on the Accept header, so caches must keep one per value of it.
+        response.header("Vary", "Accept");
+        // Plain Json is sent when the header prefers none of the forms, as it always was.
+        String type = ContentNegotiation.mediaType(request.headers("Accept"), PATH_TYPES);
+        if (POLYLINE_BINARY.equals(type)) {
+            response.type(POLYLINE_BINARY);
+            return EncodedPath.toBytes(paths);
+        }
+        if (POLYLINE_JSON.equals(type)) {
+            response.type(POLYLINE_JSON);
+            List<EncodedPath> encoded = new ArrayList<>(paths.size());
+            for (Path<Point> path : paths) {
+                encoded.add(EncodedPath.of(path));
+            }
+            return Json.send(response, asList ? encoded : encoded.get(0));
+        }
+        return Json.send(response, asList ? paths : paths.get(0));
+    }
+
+    /**
+     * Returns the id of the campus map named by the "map" query parameter, or of the default
+     * map if it is missing.
+     */
+    private static String mapId(Request request) {
+        String id = request.queryParams("map");
+        return id == null ? CampusMapRegistry.DEFAULT_MAP : id;
+    }
+
+    /**
+     * Returns the campus map named by the "map" query parameter, or the default map if it is
+     * missing, halting the request with a 404 response if there is no such map.
+     */
+    private static CampusMap mapParam(CampusMapRegistry maps, Request request) {
+        return maps.get(mapIdParam(maps, request));
+    }
+
+    /**
+     * Returns the id of the map a request is for, halting the request with a 404 response if
+     * there is no such map.
+     */
+    private static String mapIdParam(CampusMapRegistry maps, Request request) {
+        String id = mapId(request);
+        if (!maps.exists(id)) {
+            Spark.halt(404, "No such map");
+        }
+        return id;
+    }
+
+    /**
+     * Returns the value of a query parameter that must be a finite number, halting the
+     * request with a 400 response if it is missing or isn't one.
+     */
+    private static double doubleParam(Request request, String name) {
+        String value = request.queryParams(name);
+        if (value == null) {
+            Spark.halt(400, "Missing parameter " + name);
+        }
+        double number = 0;
+        try {
+            number = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            Spark.halt(400, name + " must be a number");
+        }
+        if (!Double.isFinite(number)) {
+            Spark.halt(400, name + " must be a finite number");
+        }
+        return number;
+    }
 }
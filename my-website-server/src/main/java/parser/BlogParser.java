@@ -12,29 +12,55 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class BlogParser {
 
+    /**
+     * The directory the blogs are read from.
+     */
+    public static final String BLOGS_DIRECTORY = "./my-website-server/src/main/resources/blogs";
+
     // Parse a blog file into title, content, author and creation date components.
     public static List<Blog> parseBlogs(String dirPath) throws IOException {
-        List<File> blogs = Files.list(Paths.get("./my-website-server/src/main/resources/blogs"))
-                .map(Path::toFile)
-                .filter(File::isFile)
-                .collect(Collectors.toList());
+        List<File> blogs = listBlogs();
 
         List<Blog> blogList = new ArrayList<>();
 
         for (File blog : blogs) {
-            String overallContent = Files.readString(blog.toPath());
-            String title = overallContent.substring(0, overallContent.indexOf("\n"));
-            String content = overallContent.substring(overallContent.indexOf("\n") + 1);
-            String date = formatDate(blog);
-            blogList.add(new Blog(title, content, "Zhihao Li", date));
+            blogList.add(parseBlog(blog));
         }
 
         return blogList;
     }
 
+    /**
+     * Parse a single blog file: its first line is the title, and the rest is the content.
+     * @param blog The blog file to parse.
+     * @return The blog.
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file has no title line
+     */
+    static Blog parseBlog(File blog) throws IOException {
+        String overallContent = Files.readString(blog.toPath());
+        int newline = overallContent.indexOf("\n");
+        if (newline < 0) {
+            throw new IllegalArgumentException("Blog " + blog.getName() + " has no title line");
+        }
+        String title = overallContent.substring(0, newline);
+        String content = overallContent.substring(newline + 1);
+        String date = formatDate(blog);
+        return new Blog(title, content, "Zhihao Li", date);
+    }
+
+    private static List<File> listBlogs() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(BLOGS_DIRECTORY))) {
+            return files.map(Path::toFile)
+                    .filter(File::isFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
     /**
      * Return the formatted creation time of the given blog file.
      * @param blog The blog file whose creation date is being formatted.
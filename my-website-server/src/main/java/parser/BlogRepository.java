@@ -0,0 +1,227 @@
+package parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * A BlogRepository keeps the blogs of a directory in memory, so that they can be read without
+ * touching the disk. It loads every blog once, then watches the directory and reparses only
+ * the files that are added, modified or deleted, replacing its snapshot of the blogs with a new
+ * one as a whole, so that readers always see a consistent set of blogs.
+ */
+public final class BlogRepository implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlogRepository.class);
+
+    // How long to wait for more changes after one, so that a file written in several steps,
+    // or several files changed together, are reparsed once.
+    private static final long SETTLE_MILLIS = 50;
+
+    private final Path directory;
+    private final WatchService watcher;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    // The blogs by file name, with the date each is sorted by. Only the watching thread
+    // changes it once the repository is open.
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private BlogRepository(Path directory, WatchService watcher) {
+        this.directory = directory;
+        this.watcher = watcher;
+    }
+
+    /**
+     * Loads the blogs of the given directory and starts watching it for changes.
+     *
+     * @param directory the directory of the blogs
+     * @return the repository of the blogs
+     * @throws IOException if the directory cannot be read or watched
+     */
+    public static BlogRepository open(Path directory) throws IOException {
+        WatchService watcher = FileSystems.getDefault().newWatchService();
+        BlogRepository repository = new BlogRepository(directory, watcher);
+        try {
+            // Watch before loading, so that no change made while loading is missed.
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            repository.reloadAll();
+        } catch (IOException | RuntimeException e) {
+            watcher.close();
+            throw e;
+        }
+        Thread thread = new Thread(repository::watch, "blog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return repository;
+    }
+
+    /**
+     * @return the current snapshot of the blogs.
+     */
+    public Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Stops watching the directory. The last snapshot stays readable.
+     *
+     * @throws IOException if the watcher cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+
+    /**
+     * Applies changes to the directory as they are reported, until the repository is closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Set<String> changed = new HashSet<>();
+                boolean overflow = false;
+                // Gather the changes until none come for a while, then apply them together.
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else {
+                            changed.add(event.context().toString());
+                        }
+                    }
+                    if (!key.reset()) {
+                        LOGGER.warn("Stopped watching {}, which is no longer accessible", directory);
+                        return;
+                    }
+                    key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (overflow) {
+                    // Some changes were lost, so every file must be looked at.
+                    reloadAll();
+                } else {
+                    reload(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // The repository was closed.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Stopped watching " + directory, e);
+        }
+    }
+
+    /**
+     * Reparses every file of the directory and drops the blogs of files that are gone.
+     */
+    private void reloadAll() throws IOException {
+        Set<String> names = new HashSet<>(entries.keySet());
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> names.add(file.getFileName().toString()));
+        }
+        reload(names);
+    }
+
+    /**
+     * Reparses the files with the given names, drops the blogs of those that are gone, and
+     * publishes a new snapshot.
+     */
+    private void reload(Set<String> names) {
+        for (String name : names) {
+            File file = directory.resolve(name).toFile();
+            if (!file.isFile()) {
+                entries.remove(name);
+                continue;
+            }
+            try {
+                entries.put(name, new Entry(BlogParser.parseBlog(file)));
+            } catch (IOException | RuntimeException e) {
+                // Keep what the file held before; it is reparsed on its next change.
+                LOGGER.warn("Cannot parse blog " + file + ", keeping its previous version", e);
+            }
+        }
+        Snapshot previous = snapshot.get();
+        Snapshot next = new Snapshot(previous == null ? 0 : previous.version + 1, entries.values());
+        snapshot.set(next);
+        LOGGER.info("Loaded {} changed blog files, {} blogs in all", names.size(), next.blogs.size());
+    }
+
+    /**
+     * A blog and the day it was written on, which blogs are sorted by.
+     */
+    private static final class Entry {
+        private final Blog blog;
+        private final Date date;
+
+        private Entry(Blog blog) {
+            this.blog = blog;
+            Date parsed;
+            try {
+                parsed = DateFormat.getDateInstance(DateFormat.MEDIUM).parse(blog.getDate());
+            } catch (ParseException e) {
+                LOGGER.warn("Cannot parse the date of blog " + blog.getTitle(), e);
+                parsed = new Date(0);
+            }
+            this.date = parsed;
+        }
+    }
+
+    /**
+     * The blogs of the directory at one time, which never changes.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final List<Blog> blogs;
+
+        private Snapshot(long version, Collection<Entry> entries) {
+            this.version = version;
+            List<Entry> sorted = new ArrayList<>(entries);
+            // Newest first, and by title on the same day.
+            sorted.sort(new Comparator<Entry>() {
+                @Override
+                public int compare(Entry o1, Entry o2) {
+                    int byDate = o2.date.compareTo(o1.date);
+                    return byDate != 0 ? byDate : o1.blog.getTitle().compareTo(o2.blog.getTitle());
+                }
+            });
+            List<Blog> blogs = new ArrayList<>(sorted.size());
+            for (Entry entry : sorted) {
+                blogs.add(entry.blog);
+            }
+            this.blogs = Collections.unmodifiableList(blogs);
+        }
+
+        /**
+         * @return the number of snapshots taken before this one, which grows with every
+         *         change to the blogs.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return an unmodifiable list of the blogs, newest first, and by title on the same day.
+         */
+        public List<Blog> getBlogs() {
+            return blogs;
+        }
+    }
+}
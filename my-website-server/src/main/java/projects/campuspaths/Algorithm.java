@@ -0,0 +1,44 @@
+package projects.campuspaths;
+
+/**
+ * The search algorithms CampusMap can answer a shortest-path query with. Every algorithm
+ * returns a path of the lowest cost; they differ only in how much of the map they explore.
+ */
+public enum Algorithm {
+    /**
+     * Dijkstra's algorithm, which settles every node closer to the start than the destination.
+     */
+    DIJKSTRA,
+    /**
+     * A* search, guided toward the destination by the straight-line distance to it.
+     */
+    ASTAR,
+    /**
+     * Dijkstra's algorithm run forward from the start and backward from the destination at
+     * once, until the two searches meet.
+     */
+    BIDIRECTIONAL,
+    /**
+     * A bidirectional search over the map's contraction hierarchy, which only ever moves
+     * toward more important nodes.
+     */
+    CH;
+
+    /**
+     * Looks up an algorithm by its case-insensitive name, such as "astar".
+     * @param name the name of the algorithm, or null for the default
+     * @return the algorithm named {@code name}, or DIJKSTRA if {@code name} is null
+     * @throws IllegalArgumentException if no algorithm has the given name
+     */
+    public static Algorithm fromName(String name) {
+        if (name == null) {
+            return DIJKSTRA;
+        }
+        for (Algorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown algorithm: " + name);
+    }
+}
@@ -0,0 +1,248 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A BatchRouter answers many shortest-path queries on a campus map at once. Queries are
+ * grouped by their start building, so that each group is answered by a single search from its
+ * start, and the groups are solved in parallel on a pool of threads of the router's own. Each
+ * thread searches with its own {@link DijkstraEngine}, so the groups share no mutable state.
+ * One router serves batches on any number of maps.
+ * <p>
+ * The answers to a group are handed over as soon as the group is solved, so that they can be
+ * streamed back before the whole batch is done.
+ */
+public final class BatchRouter {
+
+    /**
+     * The system property holding the number of threads to solve batches on.
+     */
+    public static final String THREADS_PROPERTY = "campuspaths.batchThreads";
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threads the number of threads to solve batches on, for batches on any map
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public BatchRouter(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("a batch router needs at least one thread");
+        }
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("batch-router-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * @return a router with as many threads as the {@value #THREADS_PROPERTY} system property
+     *         says, or one per available processor if it is not set.
+     */
+    public static BatchRouter withConfiguredThreads() {
+        return new BatchRouter(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Finds the shortest path of every query, handing the answers to sink one group of queries
+     * with the same start at a time, in the order the groups are solved. Returns once every
+     * answer has been handed over.
+     *
+     * @param map     the map to route on
+     * @param queries the queries to answer
+     * @param sink    receives the answers; it is called from several threads at once
+     * @throws IllegalArgumentException if queries or any query or name in it is {@literal null},
+     *                                  or any name is not a valid short name of a building
+     * @throws IOException              if sink throws one, after which the groups not yet
+     *                                  started are not solved
+     */
+    public void solve(CampusMap map, List<Query> queries, Sink sink) throws IOException {
+        if (queries == null) {
+            throw new IllegalArgumentException("the queries cannot be null");
+        }
+        Map<String, List<Integer>> bySource = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            Query query = queries.get(i);
+            if (query == null || query.start == null || query.end == null) {
+                throw new IllegalArgumentException("building names cannot be null");
+            }
+            if (!map.shortNameExists(query.start) || !map.shortNameExists(query.end)) {
+                throw new IllegalArgumentException("the short name provided does not exist.");
+            }
+            bySource.computeIfAbsent(query.start, s -> new ArrayList<>()).add(i);
+        }
+        // Start the biggest groups first, so that no thread is left with a big one at the end.
+        List<List<Integer>> groups = new ArrayList<>(bySource.values());
+        groups.sort(Comparator.comparingInt(List::size));
+        Collections.reverse(groups);
+
+        // Set once a group fails, so that the groups a thread picks up after that are skipped
+        // even if they start before the failure reaches this thread.
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<?>> solving = new ArrayList<>(groups.size());
+        for (List<Integer> group : groups) {
+            solving.add(pool.submit(() -> {
+                if (failed.get()) {
+                    return;
+                }
+                try {
+                    sink.accept(solveGroup(map, queries, group));
+                } catch (IOException e) {
+                    failed.set(true);
+                    throw new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : solving) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            // The pool may wrap what the task threw in a copy of it, so look through the causes.
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while solving a batch");
+        } finally {
+            for (Future<?> future : solving) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Answers the queries at the given indices, which all have the same start.
+     */
+    private static List<Answer> solveGroup(CampusMap map, List<Query> queries, List<Integer> group) {
+        String start = queries.get(group.get(0)).start;
+        List<String> ends = new ArrayList<>(group.size());
+        for (int i : group) {
+            ends.add(queries.get(i).end);
+        }
+        Map<String, Path<Point>> paths = map.findShortestPaths(start, ends);
+        List<Answer> answers = new ArrayList<>(group.size());
+        for (int i : group) {
+            Query query = queries.get(i);
+            answers.add(new Answer(i, query.start, query.end, paths.get(query.end)));
+        }
+        return answers;
+    }
+
+    /**
+     * Stops the threads of this router once the batches being solved are done.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Receives the answers to a batch as they are found.
+     */
+    public interface Sink {
+        /**
+         * @param answers the answers to some of the queries of the batch
+         * @throws IOException if the answers could not be passed on
+         */
+        void accept(List<Answer> answers) throws IOException;
+    }
+
+    /**
+     * A query for the shortest path between two buildings.
+     */
+    public static final class Query {
+        private final String start;
+        private final String end;
+
+        /**
+         * @param start the short name of the building at the beginning of the path
+         * @param end   the short name of the building at the end of the path
+         */
+        public Query(String start, String end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return the short name of the building at the beginning of the path.
+         */
+        public String getStart() {
+            return start;
+        }
+
+        /**
+         * @return the short name of the building at the end of the path.
+         */
+        public String getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * The answer to a query of a batch: the query, its index in the batch, and the shortest
+     * path, which is {@literal null} if there is none.
+     */
+    public static final class Answer {
+        private final int index;
+        private final String start;
+        private final String end;
+        private final Path<Point> path;
+
+        private Answer(int index, String start, String end, Path<Point> path) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.path = path;
+        }
+
+        /**
+         * @return the index of the query in the batch.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the short name of the building at the beginning of the path.
+         */
+        public String getStart() {
+            return start;
+        }
+
+        /**
+         * @return the short name of the building at the end of the path.
+         */
+        public String getEnd() {
+            return end;
+        }
+
+        /**
+         * @return the shortest path between the buildings, or {@literal null} if there is none.
+         */
+        public Path<Point> getPath() {
+            return path;
+        }
+    }
+}
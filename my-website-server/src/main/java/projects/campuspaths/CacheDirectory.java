@@ -0,0 +1,132 @@
+package projects.campuspaths;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The directory where data derived from the campus map files, such as precomputed routes, is
+ * kept between runs of the server. It is the value of the "campuspaths.cacheDir" system
+ * property, or a "campuspaths" folder in the system's temporary directory.
+ */
+final class CacheDirectory {
+
+    private CacheDirectory() {
+    }
+
+    /**
+     * Writes the contents of one cache file.
+     */
+    interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Returns the cache file with the given kind and format version that was derived from
+     * inputs with the given digest.
+     * @param kind    what the file holds, such as "routes"
+     * @param version the format version of the file
+     * @param digest  the digest of the inputs the file was derived from
+     * @return the cache file, which may not exist yet
+     */
+    static File file(String kind, int version, byte[] digest) {
+        StringBuilder name = new StringBuilder(kind).append("-v").append(version).append('-');
+        for (int i = 0; i < 8 && i < digest.length; i++) {
+            name.append(String.format("%02x", digest[i]));
+        }
+        return new File(directory(), name.append(".bin").toString());
+    }
+
+    /**
+     * Opens a cache file written by {@link #write(File, byte[], Writer)}.
+     * @param file   the file to open
+     * @param digest the digest of the inputs the contents must have been derived from
+     * @return a stream positioned at the contents written by the Writer, or null if the file
+     *         does not exist or was derived from other inputs
+     * @throws IOException if the file exists but cannot be read
+     */
+    static DataInputStream open(File file, byte[] digest) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            byte[] saved = new byte[digest.length];
+            if (in.readInt() == digest.length) {
+                in.readFully(saved);
+                if (Arrays.equals(saved, digest)) {
+                    return in;
+                }
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        in.close();
+        return null;
+    }
+
+    /**
+     * Maps a cache file written by {@link #write(File, byte[], Writer)} into memory, for
+     * contents that are read in bulk rather than through a stream.
+     * @param file   the file to map
+     * @param digest the digest of the inputs the contents must have been derived from
+     * @return a read-only, big-endian buffer positioned at the contents written by the Writer,
+     *         or null if the file does not exist or was derived from other inputs
+     * @throws IOException if the file exists but cannot be mapped
+     */
+    static ByteBuffer map(File file, byte[] digest) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < Integer.BYTES || buffer.getInt() != digest.length
+                    || buffer.remaining() < digest.length) {
+                return null;
+            }
+            byte[] saved = new byte[digest.length];
+            buffer.get(saved);
+            return Arrays.equals(saved, digest) ? buffer : null;
+        }
+    }
+
+    /**
+     * Writes a cache file, tagged with the digest of the inputs its contents were derived from,
+     * so that readers see either the old file or the complete new one.
+     * @param target the file to write
+     * @param digest the digest of the inputs
+     * @param writer writes the contents of the file
+     * @throws IOException if the file cannot be written
+     */
+    static void write(File target, byte[] digest, Writer writer) throws IOException {
+        File directory = target.getParentFile();
+        Files.createDirectories(directory.toPath());
+        File temp = File.createTempFile(target.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(digest.length);
+                out.write(digest);
+                writer.write(out);
+            }
+            Files.move(temp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private static File directory() {
+        String configured = System.getProperty("campuspaths.cacheDir");
+        if (configured != null) {
+            return new File(configured);
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "campuspaths");
+    }
+}
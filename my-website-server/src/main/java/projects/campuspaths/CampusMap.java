@@ -10,42 +10,200 @@
  */
 package projects.campuspaths;
 
-import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.KdTree;
+import projects.campuspaths.datastructures.NodeTable;
 import projects.campuspaths.datastructures.Path;
 import projects.campuspaths.datastructures.Point;
 import projects.campuspaths.parser.CampusBuilding;
-import projects.campuspaths.parser.CampusPath;
 import projects.campuspaths.parser.CampusPathsParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class CampusMap implements ModelAPI {
-    private Graph<Point, Double> campusMap;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CampusMap.class);
+    private static final String BUILDINGS_FILE = "campus_buildings.csv";
+    private static final String PATHS_FILE = "campus_paths.csv";
+    // The most work a search for alternative paths may do, so that a large k cannot tie up a
+    // request thread.
+    private static final int ALTERNATIVES_MAX_SETTLED = 200_000;
+    private static final long ALTERNATIVES_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private CompactGraph<Point> campusMap;
+    private NodeTable locations;
     private Map<String, CampusBuilding> shortNameToBuilding;
+    private Map<String, Integer> shortNameToNode;
+    private Map<Integer, List<String>> nodeToShortNames;
+    private EuclideanHeuristic heuristic;
+    private RouteTable routeTable;
+    private ContractionHierarchy<Point> hierarchy;
+    private KdTree nodeIndex;
+    private List<CampusBuilding> buildingList;
+    private KdTree buildingIndex;
+    private ShortestPathTreeCache treeCache;
+    private volatile Snapshot snapshot;
+    private String inputDigest;
 
+    /**
+     * Loads the campus map whose files are at the top of the data folder.
+     */
     public CampusMap() {
-        List<CampusBuilding> buildings = CampusPathsParser.parseCampusBuildings("campus_buildings.csv");
-        List<CampusPath> paths = CampusPathsParser.parseCampusPaths("campus_paths.csv");
-        this.campusMap = new Graph<>();
+        this("");
+    }
+
+    /**
+     * Loads the campus map whose files are in the given folder of the data folder.
+     *
+     * @param directory The folder holding the map's files, relative to the data folder, or the
+     *                  empty string for the data folder itself.
+     * @throws CampusPathsParser.ParserException if the map's files cannot be found or parsed
+     */
+    public CampusMap(String directory) {
+        String buildingsFile = directory.isEmpty() ? BUILDINGS_FILE : directory + "/" + BUILDINGS_FILE;
+        String pathsFile = directory.isEmpty() ? PATHS_FILE : directory + "/" + PATHS_FILE;
+        // The digest covers the names of the files as well, so maps in different folders keep
+        // their derived data in different cache files.
+        byte[] digest = CampusPathsParser.digest(buildingsFile, pathsFile);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        this.inputDigest = hex.toString();
+        // Route against a frozen, array-backed graph, in which every distinct location has an
+        // int id.
+        MapFile mapFile = loadMapFile(digest, buildingsFile, pathsFile);
+        this.locations = mapFile.locations();
+        this.campusMap = mapFile.graph();
         this.shortNameToBuilding = new HashMap<>();
-        // Construct the graph of the campus.
-        for (CampusBuilding building : buildings) {
-            Point newNode = new Point(building.getX(), building.getY());
-            campusMap.addNode(newNode);
+        this.shortNameToNode = new HashMap<>();
+        this.nodeToShortNames = new HashMap<>();
+        for (CampusBuilding building : mapFile.buildings()) {
             // store short names to corresponding CampusBuilding information.
             String shortName = building.getShortName();
             shortNameToBuilding.put(shortName, building);
+            int node = locations.find(building.getX(), building.getY());
+            shortNameToNode.put(shortName, node);
+            nodeToShortNames.computeIfAbsent(node, n -> new ArrayList<>(1)).add(shortName);
+        }
+        this.heuristic = EuclideanHeuristic.forGraph(campusMap);
+        // Index every node, and separately every building, by location.
+        this.nodeIndex = new KdTree(locations.points());
+        this.buildingList = new ArrayList<>(shortNameToBuilding.values());
+        List<Point> buildingPoints = new ArrayList<>(buildingList.size());
+        for (CampusBuilding building : buildingList) {
+            buildingPoints.add(new Point(building.getX(), building.getY()));
+        }
+        this.buildingIndex = new KdTree(buildingPoints);
+        this.treeCache = ShortestPathTreeCache.withConfiguredBudget();
+        this.hierarchy = loadHierarchy(digest);
+        this.routeTable = loadRouteTable(digest);
+        this.snapshot = new Snapshot(0, campusMap, Collections.emptySortedSet(), new BitSet());
+    }
+
+    /**
+     * @param directory The folder to look in, relative to the data folder, or the empty string
+     *                  for the data folder itself.
+     * @return Whether the folder holds the files of a campus map.
+     */
+    public static boolean exists(String directory) {
+        String prefix = directory.isEmpty() ? "" : directory + "/";
+        return CampusPathsParser.exists(prefix + BUILDINGS_FILE) && CampusPathsParser.exists(prefix + PATHS_FILE);
+    }
+
+    /**
+     * Maps in the map saved by an earlier run on the same input files, or parses the input
+     * files and saves the map if there is none.
+     */
+    private static MapFile loadMapFile(byte[] digest, String buildingsFile, String pathsFile) {
+        File file = CacheDirectory.file("map", MapFile.FORMAT_VERSION, digest);
+        try {
+            ByteBuffer buffer = CacheDirectory.map(file, digest);
+            if (buffer != null) {
+                MapFile saved = MapFile.read(buffer);
+                if (saved != null) {
+                    return saved;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read saved map from " + file + ", parsing the input files", e);
+        }
+        MapFile parsed = MapFile.parse(CampusPathsParser.parseCampusBuildings(buildingsFile), pathsFile);
+        try {
+            CacheDirectory.write(file, digest, parsed::write);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot save map to " + file, e);
+        }
+        return parsed;
+    }
+
+    /**
+     * Reads the contraction hierarchy saved by an earlier run on the same input files, or
+     * builds and saves it if there is none.
+     */
+    private ContractionHierarchy<Point> loadHierarchy(byte[] digest) {
+        File file = CacheDirectory.file("ch", ContractionHierarchy.FORMAT_VERSION, digest);
+        try (DataInputStream in = CacheDirectory.open(file, digest)) {
+            if (in != null) {
+                ContractionHierarchy<Point> saved = ContractionHierarchy.read(in, campusMap);
+                if (saved != null) {
+                    return saved;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read saved contraction hierarchy from " + file + ", rebuilding it", e);
+        }
+        ContractionHierarchy<Point> built = ContractionHierarchy.build(campusMap);
+        try {
+            CacheDirectory.write(file, digest, built::write);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot save contraction hierarchy to " + file, e);
         }
-        for (CampusPath path : paths) {
-            Point node1 = new Point(path.getX1(), path.getY1());
-            Point node2 = new Point(path.getX2(), path.getY2());
-            campusMap.addNode(node1);
-            campusMap.addNode(node2);
-            campusMap.addEdge(new Graph.Edge<>(node1, node2, path.getDistance()));
+        return built;
+    }
+
+    /**
+     * Reads the routes between every pair of buildings saved by an earlier run on the same
+     * input files, or computes and saves them if there are none.
+     */
+    private RouteTable loadRouteTable(byte[] digest) {
+        List<String> names = new ArrayList<>(shortNameToBuilding.keySet());
+        Collections.sort(names);
+        int[] nodes = new int[names.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = shortNameToNode.get(names.get(i));
         }
 
+        File file = CacheDirectory.file("routes", RouteTable.FORMAT_VERSION, digest);
+        try {
+            RouteTable saved = RouteTable.read(file, digest, campusMap, names, nodes);
+            if (saved != null) {
+                return saved;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read saved routes from " + file + ", recomputing them", e);
+        }
+        RouteTable table = RouteTable.compute(campusMap, names, nodes);
+        try {
+            table.write(file, digest);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot save routes to " + file, e);
+        }
+        return table;
+    }
+
+    /**
+     * @return A digest of the contents of the files this map was loaded from, which changes
+     * whenever they do, in hexadecimal.
+     */
+    public String inputDigest() {
+        return inputDigest;
     }
 
     @Override
@@ -73,18 +231,452 @@ public class CampusMap implements ModelAPI {
 
     @Override
     public Path<Point> findShortestPath(String startShortName, String endShortName) {
+        Snapshot current = snapshot;
+        if (startShortName != null && endShortName != null
+                && current.hasRoute(routeTable, startShortName, endShortName)) {
+            return routeTable.get(startShortName, endShortName);
+        }
+        if (startShortName == null || endShortName == null) {
+            throw new IllegalArgumentException("building names cannot be null");
+        }
+        if (!shortNameExists(startShortName) || !shortNameExists(endShortName)) {
+            throw new IllegalArgumentException("the short name provided does not exist.");
+        }
+        return treeFrom(current, shortNameToNode.get(startShortName))
+                .pathTo(current.graph, shortNameToNode.get(endShortName));
+    }
+
+    /**
+     * Returns the tree of shortest paths from the given node, from the cache of recently used
+     * trees if it is there, and otherwise by searching the whole map and caching the result.
+     */
+    private ShortestPathTree treeFrom(Snapshot current, int source) {
+        return treeCache.get(source, current.version,
+                s -> DijkstraEngine.forCurrentThread().tree(current.graph, s));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The paths come from the routes precomputed when the map was built if they are all there
+     * and none of them takes a closed segment, and otherwise from a single search that stops
+     * once every building has been reached.
+     */
+    @Override
+    public Map<String, Path<Point>> findShortestPaths(String startShortName, List<String> endShortNames) {
+        if (startShortName == null || endShortNames == null) {
+            throw new IllegalArgumentException("building names cannot be null");
+        }
+        Snapshot current = snapshot;
+        boolean allPrecomputed = true;
+        for (String endShortName : endShortNames) {
+            if (endShortName == null || !shortNameExists(endShortName)) {
+                throw new IllegalArgumentException("the short name provided does not exist.");
+            }
+            allPrecomputed &= current.hasRoute(routeTable, startShortName, endShortName);
+        }
+        if (!shortNameExists(startShortName)) {
+            throw new IllegalArgumentException("the short name provided does not exist.");
+        }
+
+        Map<String, Path<Point>> paths = new LinkedHashMap<>();
+        if (allPrecomputed) {
+            for (String endShortName : endShortNames) {
+                paths.put(endShortName, routeTable.get(startShortName, endShortName));
+            }
+            return paths;
+        }
+        int[] targets = new int[endShortNames.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = shortNameToNode.get(endShortNames.get(i));
+        }
+        List<Path<Point>> found = DijkstraEngine.forCurrentThread()
+                .shortestPaths(current.graph, shortNameToNode.get(startShortName), targets);
+        for (int i = 0; i < targets.length; i++) {
+            paths.put(endShortNames.get(i), found.get(i));
+        }
+        return paths;
+    }
+
+    /**
+     * Finds the shortest path between the two provided buildings, followed by the next
+     * shortest paths that don't visit any point twice, as alternative routes. The search stops
+     * early, returning the paths found so far, if it takes too long.
+     *
+     * @param startShortName The short name of the building at the beginning of the paths.
+     * @param endShortName   The short name of the building at the end of the paths.
+     * @param k              The number of paths wanted.
+     * @return Up to k paths between {@code startBuilding} and {@code endBuilding}, shortest
+     * first, or an empty list if there is no path between them.
+     * @throws IllegalArgumentException if {@code startBuilding} or {@code endBuilding} are
+     *                                  {@literal null} or not valid short names of buildings in
+     *                                  this campus map, or {@code k} is less than 1.
+     */
+    public List<Path<Point>> findAlternativePaths(String startShortName, String endShortName, int k) {
+        if (startShortName == null || endShortName == null) {
+            throw new IllegalArgumentException("building names cannot be null");
+        }
+        if (!shortNameExists(startShortName) || !shortNameExists(endShortName)) {
+            throw new IllegalArgumentException("the short name provided does not exist.");
+        }
+        if (k < 1) {
+            throw new IllegalArgumentException("at least one path must be asked for");
+        }
+        return KShortestPaths.find(snapshot.graph, shortNameToNode.get(startShortName), shortNameToNode.get(endShortName),
+                k, ALTERNATIVES_MAX_SETTLED, ALTERNATIVES_TIMEOUT_NANOS);
+    }
+
+    /**
+     * Finds the shortest path, by distance, between the two provided buildings, by running a
+     * search with the given algorithm. All algorithms return a path of the same, lowest, cost.
+     * Unlike {@link #findShortestPath(String, String)}, this never answers from the routes
+     * precomputed when the map was built. While any segment is closed, the contraction
+     * hierarchy, which was built for the map without closures, is not used, and {@code CH}
+     * runs a bidirectional search instead.
+     *
+     * @param startShortName The short name of the building at the beginning of this path.
+     * @param endShortName   The short name of the building at the end of this path.
+     * @param algorithm      The algorithm to search with.
+     * @return A path between {@code startBuilding} and {@code endBuilding}, or {@literal null}
+     * if none exists.
+     * @throws IllegalArgumentException if {@code startBuilding}, {@code endBuilding} or
+     *                                  {@code algorithm} are {@literal null}, or the names are
+     *                                  not valid short names of buildings in this campus map.
+     */
+    public Path<Point> findShortestPath(String startShortName, String endShortName, Algorithm algorithm) {
         if (startShortName == null || endShortName == null) {
             throw new IllegalArgumentException("building names cannot be null");
         }
+        if (algorithm == null) {
+            throw new IllegalArgumentException("the algorithm cannot be null");
+        }
         if (!shortNameExists(startShortName) || !shortNameExists(endShortName)) {
             throw new IllegalArgumentException("the short name provided does not exist.");
         }
-        // convert short names to Points
-        Point start = new Point(shortNameToBuilding.get(startShortName).getX(),
-                                shortNameToBuilding.get(startShortName).getY());
-        Point end = new Point(shortNameToBuilding.get(endShortName).getX(),
-                                shortNameToBuilding.get(endShortName).getY());
-        return ShortestPath.dijkstra(campusMap, start, end);
+        // convert short names to node ids
+        int start = shortNameToNode.get(startShortName);
+        int end = shortNameToNode.get(endShortName);
+        Snapshot current = snapshot;
+        DijkstraEngine engine = DijkstraEngine.forCurrentThread();
+        switch (algorithm) {
+            case ASTAR:
+                // The heuristic stays admissible with closures, since they only raise costs.
+                return engine.aStar(current.graph, start, end, heuristic);
+            case CH:
+                if (current.closed.isEmpty()) {
+                    return hierarchy.shortestPath(start, end);
+                }
+                return engine.bidirectional(current.graph, start, end);
+            case BIDIRECTIONAL:
+                return engine.bidirectional(current.graph, start, end);
+            case DIJKSTRA:
+            default:
+                return engine.shortestPath(current.graph, start, end);
+        }
+    }
+
+    /**
+     * Finds everything within the given distance of the provided building: the buildings, with
+     * their distances, and the points of the map. The search only visits the points it finds,
+     * so it takes time proportional to the size of the region, not of the map.
+     *
+     * @param startShortName The short name of the building to measure from.
+     * @param maxCost        The greatest distance from {@code startBuilding} of anything found.
+     * @return The region within {@code maxCost} of {@code startBuilding}, which includes
+     * {@code startBuilding} itself at distance 0.
+     * @throws IllegalArgumentException if {@code startBuilding} is {@literal null} or not a
+     *                                  valid short name of a building in this campus map, or
+     *                                  {@code maxCost} is negative or not a number.
+     */
+    public ReachableRegion reachableFrom(String startShortName, double maxCost) {
+        if (startShortName == null) {
+            throw new IllegalArgumentException("building names cannot be null");
+        }
+        if (!shortNameExists(startShortName)) {
+            throw new IllegalArgumentException("the short name provided does not exist.");
+        }
+        if (!(maxCost >= 0)) {
+            throw new IllegalArgumentException("the distance cannot be negative");
+        }
+        DijkstraEngine engine = DijkstraEngine.forCurrentThread();
+        int[] reached = engine.reachable(snapshot.graph, shortNameToNode.get(startShortName), maxCost);
+        Map<String, Double> buildings = new LinkedHashMap<>();
+        List<Point> points = new ArrayList<>(reached.length);
+        for (int node : reached) {
+            points.add(campusMap.node(node));
+            for (String shortName : nodeToShortNames.getOrDefault(node, Collections.emptyList())) {
+                buildings.put(shortName, engine.lastCost(node));
+            }
+        }
+        return new ReachableRegion(buildings, points);
+    }
+
+    /**
+     * Finds the point of the map, a building or a point along a path, closest to the given
+     * coordinates.
+     *
+     * @param x The x coordinate to search around.
+     * @param y The y coordinate to search around.
+     * @return The point of the map closest to (x, y).
+     */
+    public Point nearestNode(double x, double y) {
+        return campusMap.node(nodeIndex.nearest(x, y));
+    }
+
+    /**
+     * Finds the buildings closest to the given coordinates.
+     *
+     * @param x The x coordinate to search around.
+     * @param y The y coordinate to search around.
+     * @param k The number of buildings to find.
+     * @return The k buildings closest to (x, y), closest first, or all of them if there are
+     * fewer than k.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    public List<CampusBuilding> nearestBuildings(double x, double y, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("the number of buildings cannot be negative");
+        }
+        List<CampusBuilding> nearest = new ArrayList<>();
+        for (int i : buildingIndex.nearest(x, y, k)) {
+            nearest.add(buildingList.get(i));
+        }
+        return nearest;
+    }
+
+    /**
+     * Finds the shortest path, by distance, between the points of the map closest to the two
+     * given locations, as found by {@link #nearestNode(double, double)}.
+     *
+     * @param x1 The x coordinate of the beginning of this path.
+     * @param y1 The y coordinate of the beginning of this path.
+     * @param x2 The x coordinate of the end of this path.
+     * @param y2 The y coordinate of the end of this path.
+     * @return A path between the points of the map closest to (x1, y1) and (x2, y2), or
+     * {@literal null} if none exists.
+     */
+    public Path<Point> findShortestPath(double x1, double y1, double x2, double y2) {
+        Snapshot current = snapshot;
+        return treeFrom(current, nodeIndex.nearest(x1, y1)).pathTo(current.graph, nodeIndex.nearest(x2, y2));
+    }
+
+    /**
+     * Closes the path segment between the points of the map at the two given locations, in
+     * both directions, so that no path found afterwards takes it. Routing goes on while the
+     * segment is closed: queries that began before see the map without the closure, and
+     * queries that begin after see it with it. Only the precomputed routes and cached
+     * shortest-path trees that take the segment stop being used.
+     *
+     * @param x1 The x coordinate of one end of the segment.
+     * @param y1 The y coordinate of one end of the segment.
+     * @param x2 The x coordinate of the other end of the segment.
+     * @param y2 The y coordinate of the other end of the segment.
+     * @return {@literal true} iff the segment was open in some direction.
+     * @throws IllegalArgumentException if there is no path segment between points of the map
+     *                                  at the given locations.
+     */
+    public synchronized boolean closeSegment(double x1, double y1, double x2, double y2) {
+        Snapshot current = snapshot;
+        SortedSet<Integer> closed = new TreeSet<>(current.closed);
+        List<Integer> closing = new ArrayList<>();
+        for (int e : segmentEdges(x1, y1, x2, y2)) {
+            if (closed.add(e)) {
+                closing.add(e);
+            }
+        }
+        if (closing.isEmpty()) {
+            return false;
+        }
+        double[] weights = weightsOf(current.graph);
+        BitSet staleRoutes = (BitSet) current.staleRoutes.clone();
+        for (int e : closing) {
+            weights[e] = Double.POSITIVE_INFINITY;
+            for (int route : routeTable.routesUsing(e)) {
+                staleRoutes.set(route);
+            }
+        }
+        // Taking edges away only makes other paths longer, so a tree stays shortest unless it
+        // takes one of them.
+        long version = current.version + 1;
+        treeCache.advance(version, tree -> {
+            for (int e : closing) {
+                if (tree.parentEdge(campusMap.target(e)) == e) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        snapshot = new Snapshot(version, current.graph.withWeights(weights), closed, staleRoutes);
+        LOGGER.info("Closed {} edges, {} closed in all", closing.size(), closed.size());
+        return true;
+    }
+
+    /**
+     * Reopens the path segment between the points of the map at the two given locations, in
+     * both directions, undoing {@link #closeSegment(double, double, double, double)}. Only the
+     * cached shortest-path trees that the segment gives a shortcut to stop being used.
+     *
+     * @param x1 The x coordinate of one end of the segment.
+     * @param y1 The y coordinate of one end of the segment.
+     * @param x2 The x coordinate of the other end of the segment.
+     * @param y2 The y coordinate of the other end of the segment.
+     * @return {@literal true} iff the segment was closed in some direction.
+     * @throws IllegalArgumentException if there is no path segment between points of the map
+     *                                  at the given locations.
+     */
+    public synchronized boolean reopenSegment(double x1, double y1, double x2, double y2) {
+        Snapshot current = snapshot;
+        SortedSet<Integer> closed = new TreeSet<>(current.closed);
+        List<Integer> reopening = new ArrayList<>();
+        for (int e : segmentEdges(x1, y1, x2, y2)) {
+            if (closed.remove(e)) {
+                reopening.add(e);
+            }
+        }
+        if (reopening.isEmpty()) {
+            return false;
+        }
+        double[] weights = weightsOf(current.graph);
+        for (int e : reopening) {
+            weights[e] = campusMap.weight(e);
+        }
+        // Every precomputed route is shortest in the map without closures, so it is still
+        // shortest iff it takes none of the edges that remain closed.
+        BitSet staleRoutes = new BitSet(routeTable.routeCount());
+        for (int e : closed) {
+            for (int route : routeTable.routesUsing(e)) {
+                staleRoutes.set(route);
+            }
+        }
+        // A tree stays shortest unless one of the edges leads to a node more cheaply than it.
+        long version = current.version + 1;
+        treeCache.advance(version, tree -> {
+            for (int e : reopening) {
+                if (tree.dist(campusMap.source(e)) + campusMap.weight(e) < tree.dist(campusMap.target(e))) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        snapshot = new Snapshot(version, current.graph.withWeights(weights), closed, staleRoutes);
+        LOGGER.info("Reopened {} edges, {} closed in all", reopening.size(), closed.size());
+        return true;
+    }
+
+    /**
+     * @return The closed path segments, each as a path of a single segment at its usual cost,
+     * with a segment closed in both directions listed once per direction.
+     */
+    public List<Path<Point>> closedSegments() {
+        List<Path<Point>> segments = new ArrayList<>();
+        for (int e : snapshot.closed) {
+            segments.add(new Path<>(campusMap.node(campusMap.source(e)))
+                    .extend(campusMap.node(campusMap.target(e)), campusMap.weight(e)));
+        }
+        return segments;
+    }
+
+    /**
+     * @return the edges between the points of the map at the given locations, either way.
+     * @throws IllegalArgumentException if there are none.
+     */
+    private List<Integer> segmentEdges(double x1, double y1, double x2, double y2) {
+        int u = locations.find(x1, y1);
+        int v = locations.find(x2, y2);
+        List<Integer> edges = new ArrayList<>();
+        if (u >= 0 && v >= 0) {
+            for (int e = campusMap.firstEdge(u); e < campusMap.endEdge(u); e++) {
+                if (campusMap.target(e) == v) {
+                    edges.add(e);
+                }
+            }
+            for (int e = campusMap.firstEdge(v); e < campusMap.endEdge(v); e++) {
+                if (campusMap.target(e) == u && u != v) {
+                    edges.add(e);
+                }
+            }
+        }
+        if (edges.isEmpty()) {
+            throw new IllegalArgumentException("there is no path segment between the given points.");
+        }
+        return edges;
+    }
+
+    private static double[] weightsOf(CompactGraph<?> graph) {
+        double[] weights = new double[graph.edgeCount()];
+        for (int e = 0; e < weights.length; e++) {
+            weights[e] = graph.weight(e);
+        }
+        return weights;
+    }
+
+    /**
+     * @return The counters of the cache of shortest-path trees from recently used starting
+     * points: "hits", "misses", "evictions", "invalidations" by closures, the number of "trees"
+     * cached and roughly how many "bytes" they take.
+     */
+    public Map<String, Long> treeCacheStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", treeCache.hits());
+        stats.put("misses", treeCache.misses());
+        stats.put("evictions", treeCache.evictions());
+        stats.put("invalidations", treeCache.invalidations());
+        stats.put("trees", (long) treeCache.size());
+        stats.put("bytes", treeCache.bytes());
+        return stats;
+    }
+
+    /**
+     * @return Roughly how many bytes of memory this map takes: its graph and the indexes built
+     * over it, the precomputed routes, the contraction hierarchy and the cached shortest-path
+     * trees.
+     */
+    public long estimatedBytes() {
+        // Per node: its point, its entries in the graph's and the location table's lookups,
+        // and its offset and coordinates in the graph and the index. Per edge: its target and
+        // weight, and its entry in the graph's incoming edges.
+        long graphBytes = 140L * campusMap.nodeCount() + 24L * campusMap.edgeCount();
+        return graphBytes + routeTable.bytes() + hierarchy.bytes() + treeCache.bytes();
+    }
+
+    /**
+     * @return The number of nodes settled by the last search the calling thread ran on a map,
+     * a measure of how much work that search did.
+     */
+    public int lastSettledCount() {
+        return DijkstraEngine.forCurrentThread().settledCount();
     }
 
+    /**
+     * The state of the map that changes with closures, replaced as a whole on every change so
+     * that a query that reads it once sees a consistent map throughout.
+     */
+    private static final class Snapshot {
+        // RI:  graph, closed and staleRoutes are not null, and never change
+        //      graph is the map with the edges in closed at infinite weight
+        //      staleRoutes holds exactly the precomputed routes that take an edge in closed
+
+        /**
+         * The number of changes made before this snapshot.
+         */
+        private final long version;
+        private final CompactGraph<Point> graph;
+        private final SortedSet<Integer> closed;
+        private final BitSet staleRoutes;
+
+        private Snapshot(long version, CompactGraph<Point> graph, SortedSet<Integer> closed, BitSet staleRoutes) {
+            this.version = version;
+            this.graph = graph;
+            this.closed = Collections.unmodifiableSortedSet(closed);
+            this.staleRoutes = staleRoutes;
+        }
+
+        /**
+         * @return {@literal true} iff routes holds a route between the buildings that is still
+         *         shortest in this snapshot.
+         */
+        private boolean hasRoute(RouteTable routes, String startShortName, String endShortName) {
+            return routes.contains(startShortName, endShortName)
+                    && !staleRoutes.get(routes.route(startShortName, endShortName));
+        }
+    }
 }
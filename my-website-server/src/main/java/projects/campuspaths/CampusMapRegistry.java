@@ -0,0 +1,260 @@
+package projects.campuspaths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A CampusMapRegistry holds the campus maps a server routes on, by id. A map is loaded the
+ * first time it is asked for; if several threads ask for it at once, one of them loads it and
+ * the others wait for that load. Maps are kept up to a budget of memory, beyond which the maps
+ * used least recently are evicted, to be loaded again when next asked for.
+ * <p>
+ * The map with id {@value #DEFAULT_MAP} is the one whose files are at the top of the data
+ * folder. Every other map's files are in the folder of the data folder named by its id.
+ */
+public final class CampusMapRegistry {
+    // RI:  maps != null, and every id in maps is a valid id
+    // AF(this) = the maps loaded or being loaded, maps.get(id).map being the map with id id.
+
+    /**
+     * The id of the map whose files are at the top of the data folder.
+     */
+    public static final String DEFAULT_MAP = "campus";
+
+    /**
+     * The system property holding the memory budget in bytes.
+     */
+    public static final String BUDGET_PROPERTY = "campuspaths.mapBudgetBytes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CampusMapRegistry.class);
+
+    // Ids are folder names, so they must not be able to leave the data folder.
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final long budget;
+    private final ConcurrentHashMap<String, Entry> maps = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param budget the most bytes of maps to keep
+     */
+    public CampusMapRegistry(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @return a registry with the budget given by the {@value #BUDGET_PROPERTY} system property,
+     *         or half of the most memory the heap may grow to if it is not set.
+     */
+    public static CampusMapRegistry withConfiguredBudget() {
+        return new CampusMapRegistry(Long.getLong(BUDGET_PROPERTY, Runtime.getRuntime().maxMemory() / 2));
+    }
+
+    /**
+     * @param id the id of a map
+     * @return whether there is a map with the given id, loaded or not.
+     */
+    public boolean exists(String id) {
+        if (id == null || !ID.matcher(id).matches()) {
+            return false;
+        }
+        return maps.containsKey(id) || CampusMap.exists(directoryOf(id));
+    }
+
+    /**
+     * Returns the map with the given id, loading it if it is not loaded, or waiting for it if
+     * another thread is loading it.
+     *
+     * @param id the id of the map
+     * @return the map with the given id
+     * @throws IllegalArgumentException if there is no map with the given id
+     * @throws projects.campuspaths.parser.CampusPathsParser.ParserException if the map's files
+     *                                  cannot be parsed
+     */
+    public CampusMap get(String id) {
+        if (!exists(id)) {
+            throw new IllegalArgumentException("there is no map with the given id.");
+        }
+        Entry entry = maps.get(id);
+        if (entry == null) {
+            Entry created = new Entry();
+            entry = maps.putIfAbsent(id, created);
+            if (entry == null) {
+                entry = created;
+                load(id, created);
+            }
+        }
+        entry.lastUsed = System.nanoTime();
+        try {
+            return entry.map.join();
+        } catch (CompletionException e) {
+            // Rethrow what the loading thread saw, so all waiters fail alike.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Closes a path segment of the map with the given id, as
+     * {@link CampusMap#closeSegment(double, double, double, double)} does. Maps with closed
+     * segments are never evicted, so the closure lasts until it is reopened.
+     *
+     * @param id the id of the map
+     * @return {@literal true} iff the segment was open in some direction.
+     * @throws IllegalArgumentException if there is no map with the given id, or no path segment
+     *                                  between points of the map at the given locations
+     * @throws projects.campuspaths.parser.CampusPathsParser.ParserException if the map's files
+     *                                  cannot be parsed
+     */
+    public boolean closeSegment(String id, double x1, double y1, double x2, double y2) {
+        return withLoaded(id, map -> map.closeSegment(x1, y1, x2, y2));
+    }
+
+    /**
+     * Reopens a path segment of the map with the given id, as
+     * {@link CampusMap#reopenSegment(double, double, double, double)} does.
+     *
+     * @param id the id of the map
+     * @return {@literal true} iff the segment was closed in some direction.
+     * @throws IllegalArgumentException if there is no map with the given id, or no path segment
+     *                                  between points of the map at the given locations
+     * @throws projects.campuspaths.parser.CampusPathsParser.ParserException if the map's files
+     *                                  cannot be parsed
+     */
+    public boolean reopenSegment(String id, double x1, double y1, double x2, double y2) {
+        return withLoaded(id, map -> map.reopenSegment(x1, y1, x2, y2));
+    }
+
+    /**
+     * Applies a change to the map with the given id while it is held in this registry. The
+     * change runs under the lock eviction takes, and only once the map is known to be still
+     * held, so that no change is made to a map that has just been evicted and would be lost.
+     */
+    private <T> T withLoaded(String id, Function<CampusMap, T> change) {
+        while (true) {
+            CampusMap map = get(id);
+            synchronized (this) {
+                Entry entry = maps.get(id);
+                if (entry != null && entry.loaded() == map) {
+                    return change.apply(map);
+                }
+            }
+            // The map was evicted after it was looked up; look it up again.
+        }
+    }
+
+    /**
+     * Loads a map into the given entry, then evicts other maps if the budget is exceeded. If
+     * the load fails, the entry is dropped, so that the next request tries again.
+     */
+    private void load(String id, Entry entry) {
+        loads.incrementAndGet();
+        long start = System.nanoTime();
+        CampusMap map;
+        try {
+            map = new CampusMap(directoryOf(id));
+        } catch (RuntimeException | Error e) {
+            maps.remove(id, entry);
+            entry.map.completeExceptionally(e);
+            throw e;
+        }
+        entry.map.complete(map);
+        LOGGER.info("Loaded map {} in {} ms, about {} bytes", id, (System.nanoTime() - start) / 1_000_000,
+                map.estimatedBytes());
+        evictBeyondBudget(id);
+    }
+
+    /**
+     * Evicts the maps used least recently until the loaded maps fit in the budget. The given
+     * map, which was just loaded, is kept, as are maps with closed path segments, which would
+     * lose them. Segments are only closed under the same lock, so none is closed on a map while
+     * it is being evicted.
+     */
+    private synchronized void evictBeyondBudget(String keep) {
+        List<Map.Entry<String, Entry>> loaded = new ArrayList<>();
+        // Sort by when each map was last used as of now, since requests keep updating it.
+        Map<String, Long> lastUsed = new HashMap<>();
+        long bytes = 0;
+        for (Map.Entry<String, Entry> mapEntry : maps.entrySet()) {
+            CampusMap map = mapEntry.getValue().loaded();
+            if (map != null) {
+                loaded.add(mapEntry);
+                lastUsed.put(mapEntry.getKey(), mapEntry.getValue().lastUsed);
+                bytes += map.estimatedBytes();
+            }
+        }
+        // Compare by difference, since System.nanoTime() may wrap.
+        loaded.sort((a, b) -> Long.signum(lastUsed.get(a.getKey()) - lastUsed.get(b.getKey())));
+        for (Map.Entry<String, Entry> mapEntry : loaded) {
+            if (bytes <= budget) {
+                break;
+            }
+            CampusMap map = mapEntry.getValue().loaded();
+            if (mapEntry.getKey().equals(keep) || !map.closedSegments().isEmpty()) {
+                continue;
+            }
+            if (maps.remove(mapEntry.getKey(), mapEntry.getValue())) {
+                evictions.incrementAndGet();
+                bytes -= map.estimatedBytes();
+                LOGGER.info("Evicted map {}, {} bytes of maps left", mapEntry.getKey(), bytes);
+            }
+        }
+    }
+
+    /**
+     * @return The counters of this registry: the number of "maps" loaded, roughly how many
+     * "bytes" they take, the "budget", and the numbers of "loads" and "evictions" so far.
+     */
+    public Map<String, Long> stats() {
+        long count = 0;
+        long bytes = 0;
+        for (Entry entry : maps.values()) {
+            CampusMap map = entry.loaded();
+            if (map != null) {
+                count++;
+                bytes += map.estimatedBytes();
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("maps", count);
+        stats.put("bytes", bytes);
+        stats.put("budget", budget);
+        stats.put("loads", loads.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private static String directoryOf(String id) {
+        return DEFAULT_MAP.equals(id) ? "" : id;
+    }
+
+    /**
+     * A map that is loaded or being loaded, and when it was last asked for.
+     */
+    private static final class Entry {
+        private final CompletableFuture<CampusMap> map = new CompletableFuture<>();
+        private volatile long lastUsed = System.nanoTime();
+
+        /**
+         * @return the map, or null if it is still being loaded.
+         */
+        private CampusMap loaded() {
+            return map.isDone() && !map.isCompletedExceptionally() ? map.join() : null;
+        }
+    }
+}
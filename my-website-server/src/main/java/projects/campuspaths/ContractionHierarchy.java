@@ -0,0 +1,612 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.IndexedMinHeap;
+import projects.campuspaths.datastructures.Path;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A ContractionHierarchy is an immutable, preprocessed form of a CompactGraph that answers
+ * shortest-path queries by exploring only a tiny part of the graph.
+ * <p>
+ * Preprocessing ranks the nodes by importance and contracts them from least to most important.
+ * Contracting a node removes it, adding a shortcut arc u -&gt; w for every pair of neighbors
+ * whose only shortest connection ran through it. A query then runs Dijkstra's algorithm forward
+ * from the start and backward from the destination, each following only arcs toward more
+ * important nodes; the two searches meet at the most important node of a shortest path. A
+ * shortcut remembers the two arcs it replaced, so the path found is unpacked back into edges of
+ * the original graph.
+ *
+ * @param <V> the type of nodes.
+ */
+public final class ContractionHierarchy<V> {
+    // RI:  graph != null && rank.length == graph.nodeCount() && rank is a permutation of ids
+    //      the arc arrays all have length arcCount
+    //      edgeArcCount <= arcCount is the number of edges of graph that are not self-loops;
+    //      preprocessing leaves self-loops out, since no shortest path takes them
+    //      for every arc a: arcEdge[a] >= 0 iff a is an original edge of graph, in which case
+    //      arcFirst[a] == arcSecond[a] == -1; otherwise a is a shortcut made of arcs arcFirst[a]
+    //      and arcSecond[a], and arcWeight[a] is the sum of their weights
+    //      the up lists are CSR arrays over the arcs going to a node of higher rank
+    // AF(this) = the hierarchy of graph in which node v has rank rank[v], with the arcs
+    //            (arcFrom[a], arcTo[a], arcWeight[a]) for 0 <= a < arcCount.
+
+    /**
+     * The format version of saved hierarchies. Change it whenever the format, or the way node
+     * ids are derived from the input files, changes.
+     */
+    static final int FORMAT_VERSION = 2;
+
+    private static final int MAGIC = 0x43504348; // "CPCH"
+
+    /**
+     * The most nodes a witness search may settle before concluding that no witness exists.
+     * Missing a witness only adds a redundant shortcut, so a low limit is safe.
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final CompactGraph<V> graph;
+    private final int[] rank;
+    private final int arcCount;
+    private final int edgeArcCount;
+    private final int[] arcFrom;
+    private final int[] arcTo;
+    private final double[] arcWeight;
+    private final int[] arcEdge;
+    private final int[] arcFirst;
+    private final int[] arcSecond;
+
+    // Arcs a with rank[arcFrom[a]] < rank[arcTo[a]], grouped by arcFrom[a], for forward searches.
+    private final int[] upOutOffsets;
+    private final int[] upOutArcs;
+    private final int[] upOutTargets;
+    private final double[] upOutWeights;
+
+    // Arcs a with rank[arcFrom[a]] > rank[arcTo[a]], grouped by arcTo[a], for backward searches.
+    private final int[] upInOffsets;
+    private final int[] upInArcs;
+    private final int[] upInSources;
+    private final double[] upInWeights;
+
+    private ContractionHierarchy(CompactGraph<V> graph, int[] rank, int arcCount, int[] arcFrom, int[] arcTo,
+                                 double[] arcWeight, int[] arcEdge, int[] arcFirst, int[] arcSecond) {
+        this.graph = graph;
+        this.rank = rank;
+        this.arcCount = arcCount;
+        this.edgeArcCount = edgeArcCount(graph);
+        this.arcFrom = arcFrom;
+        this.arcTo = arcTo;
+        this.arcWeight = arcWeight;
+        this.arcEdge = arcEdge;
+        this.arcFirst = arcFirst;
+        this.arcSecond = arcSecond;
+
+        int n = graph.nodeCount();
+        upOutOffsets = new int[n + 1];
+        upInOffsets = new int[n + 1];
+        for (int a = 0; a < arcCount; a++) {
+            if (rank[arcFrom[a]] < rank[arcTo[a]]) {
+                upOutOffsets[arcFrom[a] + 1]++;
+            } else if (rank[arcFrom[a]] > rank[arcTo[a]]) {
+                upInOffsets[arcTo[a] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            upOutOffsets[v + 1] += upOutOffsets[v];
+            upInOffsets[v + 1] += upInOffsets[v];
+        }
+        upOutArcs = new int[upOutOffsets[n]];
+        upOutTargets = new int[upOutOffsets[n]];
+        upOutWeights = new double[upOutOffsets[n]];
+        upInArcs = new int[upInOffsets[n]];
+        upInSources = new int[upInOffsets[n]];
+        upInWeights = new double[upInOffsets[n]];
+        int[] outNext = Arrays.copyOf(upOutOffsets, n);
+        int[] inNext = Arrays.copyOf(upInOffsets, n);
+        for (int a = 0; a < arcCount; a++) {
+            if (rank[arcFrom[a]] < rank[arcTo[a]]) {
+                int slot = outNext[arcFrom[a]]++;
+                upOutArcs[slot] = a;
+                upOutTargets[slot] = arcTo[a];
+                upOutWeights[slot] = arcWeight[a];
+            } else if (rank[arcFrom[a]] > rank[arcTo[a]]) {
+                int slot = inNext[arcTo[a]]++;
+                upInArcs[slot] = a;
+                upInSources[slot] = arcFrom[a];
+                upInWeights[slot] = arcWeight[a];
+            }
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert graph != null && rank.length == graph.nodeCount() : "every node needs a rank";
+        assert arcCount >= edgeArcCount : "every edge that is not a self-loop needs an arc";
+        assert arcFrom.length >= arcCount && arcTo.length >= arcCount && arcWeight.length >= arcCount
+                && arcEdge.length >= arcCount && arcFirst.length >= arcCount && arcSecond.length >= arcCount
+                : "every arc needs an entry in every arc array";
+        if (Graph.DEBUG) {
+            for (int a = 0; a < arcCount; a++) {
+                assert (arcEdge[a] >= 0) == (arcFirst[a] < 0) : "an arc is either an edge or a shortcut";
+            }
+        }
+    }
+
+    /**
+     * Preprocesses a graph into a contraction hierarchy.
+     * @param graph the graph to preprocess
+     * @param <V>   the type of nodes
+     * @spec.requires graph != null &amp;&amp; every edge weight in graph is non-negative
+     * @return the contraction hierarchy of {@code graph}
+     */
+    public static <V> ContractionHierarchy<V> of(Graph<V, Double> graph) {
+        return build(CompactGraph.of(graph));
+    }
+
+    /**
+     * Preprocesses a compact graph into a contraction hierarchy.
+     * @param graph the graph to preprocess
+     * @param <V>   the type of nodes
+     * @spec.requires graph != null &amp;&amp; every edge weight in graph is non-negative
+     * @return the contraction hierarchy of {@code graph}
+     */
+    public static <V> ContractionHierarchy<V> build(CompactGraph<V> graph) {
+        Contractor contractor = new Contractor(graph);
+        contractor.contractAll();
+        return new ContractionHierarchy<>(graph, contractor.rank, contractor.arcCount, contractor.arcFrom,
+                contractor.arcTo, contractor.arcWeight, contractor.arcEdge, contractor.arcFirst, contractor.arcSecond);
+    }
+
+    /**
+     * @return the graph this hierarchy was built from.
+     */
+    public CompactGraph<V> getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the number of shortcut arcs preprocessing added to the graph.
+     */
+    public int shortcutCount() {
+        return arcCount - edgeArcCount;
+    }
+
+    /**
+     * @return the number of edges of graph that are not self-loops, each of which preprocessing
+     *         turns into an arc.
+     */
+    private static int edgeArcCount(CompactGraph<?> graph) {
+        int count = 0;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+                if (graph.target(e) != v) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return roughly how many bytes of memory this hierarchy takes, not counting its graph.
+     */
+    long bytes() {
+        // Six arrays of 4 + 4 + 8 + 4 + 4 + 4 bytes per arc, each arc listed once more in the
+        // upward graphs at 4 + 4 + 8 bytes, and the rank and two offsets per node.
+        return 44L * arcCount + 16L * upOutArcs.length + 16L * upInArcs.length + 12L * rank.length;
+    }
+
+    /**
+     * Return the shortest Path between two nodes.
+     * @param start the start node of the path
+     * @param end   the destination of the path
+     * @spec.requires start != null &amp;&amp; end != null &amp;&amp; start and end nodes are in the graph.
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from start to end.
+     */
+    public Path<V> shortestPath(V start, V end) {
+        return shortestPath(graph.id(start), graph.id(end));
+    }
+
+    /**
+     * Return the shortest Path between two nodes, using the calling thread's search scratch.
+     * The nodes settled by the query are reported by the thread's
+     * {@link DijkstraEngine#settledCount()}.
+     * @param source the id of the start node of the path
+     * @param target the id of the destination of the path
+     * @spec.requires source and target are node ids of the graph
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from source to target.
+     */
+    public Path<V> shortestPath(int source, int target) {
+        DijkstraEngine engine = DijkstraEngine.forCurrentThread();
+        SearchSpace forward = engine.forwardSpace();
+        SearchSpace backward = engine.backwardSpace();
+        forward.reset(graph.nodeCount());
+        backward.reset(graph.nodeCount());
+        forward.relax(source, 0, -1, -1);
+        backward.relax(target, 0, -1, -1);
+
+        double best = source == target ? 0 : Double.POSITIVE_INFINITY;
+        int meeting = source == target ? source : -1;
+        while (true) {
+            boolean forwardOpen = !forward.isEmpty() && forward.peekPriority() < best;
+            boolean backwardOpen = !backward.isEmpty() && backward.peekPriority() < best;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            boolean isForward = forwardOpen && (!backwardOpen || forward.peekPriority() <= backward.peekPriority());
+            SearchSpace space = isForward ? forward : backward;
+            SearchSpace other = isForward ? backward : forward;
+            int[] offsets = isForward ? upOutOffsets : upInOffsets;
+            int[] arcs = isForward ? upOutArcs : upInArcs;
+            int[] ends = isForward ? upOutTargets : upInSources;
+            double[] weights = isForward ? upOutWeights : upInWeights;
+
+            int node = space.settleMin();
+            double cost = space.dist(node);
+            if (other.isReached(node) && cost + other.dist(node) < best) {
+                best = cost + other.dist(node);
+                meeting = node;
+            }
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int next = ends[i];
+                double nextCost = cost + weights[i];
+                if (!space.isSettled(next) && space.relax(next, nextCost, node, arcs[i])
+                        && other.isReached(next) && nextCost + other.dist(next) < best) {
+                    best = nextCost + other.dist(next);
+                    meeting = next;
+                }
+            }
+        }
+        if (meeting < 0) {
+            return null;
+        }
+
+        // Collect the arcs from source up to the meeting node, then down to target.
+        int forwardLength = 0;
+        for (int node = meeting; node != source; node = forward.parent(node)) {
+            forwardLength++;
+        }
+        int backwardLength = 0;
+        for (int node = meeting; node != target; node = backward.parent(node)) {
+            backwardLength++;
+        }
+        int[] route = new int[forwardLength + backwardLength];
+        for (int node = meeting, i = forwardLength - 1; node != source; node = forward.parent(node), i--) {
+            route[i] = forward.parentEdge(node);
+        }
+        for (int node = meeting, i = forwardLength; node != target; node = backward.parent(node), i++) {
+            route[i] = backward.parentEdge(node);
+        }
+        return DijkstraEngine.pathAlong(graph, source, unpack(route));
+    }
+
+    /**
+     * Replaces every shortcut in a sequence of arcs by the original edges it stands for.
+     */
+    private int[] unpack(int[] route) {
+        int[] edges = new int[route.length];
+        int length = 0;
+        int[] stack = new int[16];
+        for (int arc : route) {
+            int top = 0;
+            stack[top++] = arc;
+            while (top > 0) {
+                int a = stack[--top];
+                if (arcEdge[a] >= 0) {
+                    if (length == edges.length) {
+                        edges = Arrays.copyOf(edges, 2 * edges.length);
+                    }
+                    edges[length++] = arcEdge[a];
+                } else {
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+                    stack[top++] = arcSecond[a];
+                    stack[top++] = arcFirst[a];
+                }
+            }
+        }
+        return Arrays.copyOf(edges, length);
+    }
+
+    /**
+     * Saves this hierarchy. The graph itself is not saved; it must be supplied again to
+     * {@link #read(DataInputStream, CompactGraph)}.
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(graph.nodeCount());
+        out.writeInt(graph.edgeCount());
+        for (int r : rank) {
+            out.writeInt(r);
+        }
+        out.writeInt(arcCount);
+        for (int a = 0; a < arcCount; a++) {
+            out.writeInt(arcFrom[a]);
+            out.writeInt(arcTo[a]);
+            out.writeDouble(arcWeight[a]);
+            out.writeInt(arcEdge[a]);
+            out.writeInt(arcFirst[a]);
+            out.writeInt(arcSecond[a]);
+        }
+    }
+
+    /**
+     * Reads a hierarchy saved by {@link #write(DataOutputStream)}.
+     * @param in    the stream to read from
+     * @param graph the graph the hierarchy was built from
+     * @param <V>   the type of nodes
+     * @return the saved hierarchy, or null if it was saved by another format version or for a
+     *         graph of another shape
+     * @throws IOException if the stream cannot be read or does not hold a valid hierarchy
+     */
+    public static <V> ContractionHierarchy<V> read(DataInputStream in, CompactGraph<V> graph) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                || in.readInt() != graph.nodeCount() || in.readInt() != graph.edgeCount()) {
+            return null;
+        }
+        int n = graph.nodeCount();
+        int[] rank = new int[n];
+        boolean[] used = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            rank[v] = in.readInt();
+            if (rank[v] < 0 || rank[v] >= n || used[rank[v]]) {
+                throw new IOException("Corrupt contraction hierarchy: ranks are not a permutation");
+            }
+            used[rank[v]] = true;
+        }
+        int arcCount = in.readInt();
+        if (arcCount < edgeArcCount(graph)) {
+            throw new IOException("Corrupt contraction hierarchy: too few arcs");
+        }
+        // The count is not trusted with an allocation: the arrays grow with the arcs actually
+        // read, so a count beyond the end of the data runs into EOFException rather than
+        // running out of memory.
+        int capacity = Math.min(arcCount, Math.max(edgeArcCount(graph), 16));
+        int[] arcFrom = new int[capacity];
+        int[] arcTo = new int[capacity];
+        double[] arcWeight = new double[capacity];
+        int[] arcEdge = new int[capacity];
+        int[] arcFirst = new int[capacity];
+        int[] arcSecond = new int[capacity];
+        for (int a = 0; a < arcCount; a++) {
+            if (a == capacity) {
+                capacity = (int) Math.min(arcCount, 2L * capacity);
+                arcFrom = Arrays.copyOf(arcFrom, capacity);
+                arcTo = Arrays.copyOf(arcTo, capacity);
+                arcWeight = Arrays.copyOf(arcWeight, capacity);
+                arcEdge = Arrays.copyOf(arcEdge, capacity);
+                arcFirst = Arrays.copyOf(arcFirst, capacity);
+                arcSecond = Arrays.copyOf(arcSecond, capacity);
+            }
+            arcFrom[a] = in.readInt();
+            arcTo[a] = in.readInt();
+            arcWeight[a] = in.readDouble();
+            arcEdge[a] = in.readInt();
+            arcFirst[a] = in.readInt();
+            arcSecond[a] = in.readInt();
+            boolean validEdge = arcEdge[a] >= 0 && arcEdge[a] < graph.edgeCount() && arcFirst[a] == -1;
+            // Shortcuts only refer to arcs made before them, so unpacking always terminates.
+            boolean validShortcut = arcEdge[a] == -1 && arcFirst[a] >= 0 && arcFirst[a] < a
+                    && arcSecond[a] >= 0 && arcSecond[a] < a;
+            if (arcFrom[a] < 0 || arcFrom[a] >= n || arcTo[a] < 0 || arcTo[a] >= n
+                    || !(validEdge || validShortcut)) {
+                throw new IOException("Corrupt contraction hierarchy: invalid arc " + a);
+            }
+        }
+        return new ContractionHierarchy<>(graph, rank, arcCount, arcFrom, arcTo, arcWeight, arcEdge, arcFirst, arcSecond);
+    }
+
+    /**
+     * The mutable state of preprocessing: the graph of uncontracted nodes, with every arc
+     * added so far, and the order in which nodes were contracted.
+     */
+    private static final class Contractor {
+        private final CompactGraph<?> graph;
+        private final int[] rank;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+
+        private int arcCount;
+        private int[] arcFrom;
+        private int[] arcTo;
+        private double[] arcWeight;
+        private int[] arcEdge;
+        private int[] arcFirst;
+        private int[] arcSecond;
+
+        // The arcs leaving and entering each node, including those to contracted nodes.
+        private final int[][] outArcs;
+        private final int[] outSize;
+        private final int[][] inArcs;
+        private final int[] inSize;
+
+        private final SearchSpace witness = new SearchSpace();
+
+        private Contractor(CompactGraph<?> graph) {
+            this.graph = graph;
+            int n = graph.nodeCount();
+            rank = new int[n];
+            contracted = new boolean[n];
+            contractedNeighbors = new int[n];
+            int capacity = Math.max(16, 2 * graph.edgeCount());
+            arcFrom = new int[capacity];
+            arcTo = new int[capacity];
+            arcWeight = new double[capacity];
+            arcEdge = new int[capacity];
+            arcFirst = new int[capacity];
+            arcSecond = new int[capacity];
+            outArcs = new int[n][];
+            outSize = new int[n];
+            inArcs = new int[n][];
+            inSize = new int[n];
+            for (int v = 0; v < n; v++) {
+                outArcs[v] = new int[Math.max(2, graph.endEdge(v) - graph.firstEdge(v))];
+                inArcs[v] = new int[2];
+            }
+            for (int v = 0; v < n; v++) {
+                for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+                    if (graph.target(e) != v) {
+                        addArc(v, graph.target(e), graph.weight(e), e, -1, -1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Contracts every node, least important first, recording the order in rank.
+         */
+        private void contractAll() {
+            int n = graph.nodeCount();
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.insertOrDecrease(v, priority(v));
+            }
+            int order = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.removeMin();
+                // Priorities go stale as neighbors are contracted; recompute lazily and put the
+                // node back if it is no longer the least important one.
+                double current = priority(v);
+                if (!queue.isEmpty() && current > queue.minPriority()) {
+                    queue.insertOrDecrease(v, current);
+                    continue;
+                }
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = order++;
+                for (int i = 0; i < outSize[v]; i++) {
+                    contractedNeighbors[arcTo[outArcs[v][i]]]++;
+                }
+                for (int i = 0; i < inSize[v]; i++) {
+                    contractedNeighbors[arcFrom[inArcs[v][i]]]++;
+                }
+            }
+        }
+
+        /**
+         * Estimates how much contracting v would grow the graph: the shortcuts it needs, less
+         * the arcs it removes, plus a term that spreads contraction evenly over the graph.
+         */
+        private double priority(int v) {
+            int removed = 0;
+            for (int i = 0; i < outSize[v]; i++) {
+                removed += contracted[arcTo[outArcs[v][i]]] ? 0 : 1;
+            }
+            for (int i = 0; i < inSize[v]; i++) {
+                removed += contracted[arcFrom[inArcs[v][i]]] ? 0 : 1;
+            }
+            return contract(v, true) - removed + contractedNeighbors[v];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract v, and adds them unless simulating.
+         * @return the number of shortcuts needed
+         */
+        private int contract(int v, boolean simulate) {
+            int shortcuts = 0;
+            double maxOut = 0;
+            for (int j = 0; j < outSize[v]; j++) {
+                int out = outArcs[v][j];
+                if (!contracted[arcTo[out]]) {
+                    maxOut = Math.max(maxOut, arcWeight[out]);
+                }
+            }
+            for (int i = 0; i < inSize[v]; i++) {
+                int in = inArcs[v][i];
+                int u = arcFrom[in];
+                if (contracted[u]) {
+                    continue;
+                }
+                witnessSearch(u, v, arcWeight[in] + maxOut);
+                for (int j = 0; j < outSize[v]; j++) {
+                    int out = outArcs[v][j];
+                    int w = arcTo[out];
+                    if (contracted[w] || w == u) {
+                        continue;
+                    }
+                    double viaV = arcWeight[in] + arcWeight[out];
+                    if (witness.dist(w) <= viaV) {
+                        continue;
+                    }
+                    shortcuts++;
+                    if (!simulate) {
+                        addShortcut(u, w, viaV, in, out);
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from u over the uncontracted nodes other than v, until it
+         * passes maxCost or settles WITNESS_SETTLE_LIMIT nodes.
+         */
+        private void witnessSearch(int u, int v, double maxCost) {
+            witness.reset(graph.nodeCount());
+            witness.relax(u, 0, -1, -1);
+            while (!witness.isEmpty() && witness.peekPriority() <= maxCost
+                    && witness.settledCount() < WITNESS_SETTLE_LIMIT) {
+                int x = witness.settleMin();
+                double cost = witness.dist(x);
+                for (int i = 0; i < outSize[x]; i++) {
+                    int arc = outArcs[x][i];
+                    int y = arcTo[arc];
+                    if (y != v && !contracted[y] && !witness.isSettled(y)) {
+                        witness.relax(y, cost + arcWeight[arc], x, arc);
+                    }
+                }
+            }
+        }
+
+        private void addShortcut(int u, int w, double weight, int first, int second) {
+            // Keep only the cheapest arc between two uncontracted nodes.
+            for (int i = 0; i < outSize[u]; i++) {
+                int arc = outArcs[u][i];
+                if (arcTo[arc] == w && arcWeight[arc] <= weight) {
+                    return;
+                }
+            }
+            addArc(u, w, weight, -1, first, second);
+        }
+
+        private void addArc(int from, int to, double weight, int edge, int first, int second) {
+            if (arcCount == arcFrom.length) {
+                int capacity = 2 * arcCount;
+                arcFrom = Arrays.copyOf(arcFrom, capacity);
+                arcTo = Arrays.copyOf(arcTo, capacity);
+                arcWeight = Arrays.copyOf(arcWeight, capacity);
+                arcEdge = Arrays.copyOf(arcEdge, capacity);
+                arcFirst = Arrays.copyOf(arcFirst, capacity);
+                arcSecond = Arrays.copyOf(arcSecond, capacity);
+            }
+            int arc = arcCount++;
+            arcFrom[arc] = from;
+            arcTo[arc] = to;
+            arcWeight[arc] = weight;
+            arcEdge[arc] = edge;
+            arcFirst[arc] = first;
+            arcSecond[arc] = second;
+            if (outSize[from] == outArcs[from].length) {
+                outArcs[from] = Arrays.copyOf(outArcs[from], 2 * outSize[from]);
+            }
+            outArcs[from][outSize[from]++] = arc;
+            if (inSize[to] == inArcs[to].length) {
+                inArcs[to] = Arrays.copyOf(inArcs[to], 2 * inSize[to]);
+            }
+            inArcs[to][inSize[to]++] = arc;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A DijkstraEngine runs shortest-path searches over a {@link CompactGraph} without allocating
+ * per relaxation: distances and parent pointers live in primitive arrays indexed by node id,
+ * and active nodes wait in an indexed heap with decrease-key. The only objects a search
+ * allocates are those of the Path it returns, which is built once the search is over.
+ * <p>
+ * An engine is not thread-safe. Each thread should use its own, through
+ * {@link #forCurrentThread()}, so that scratch arrays are reused from one query to the next.
+ */
+public final class DijkstraEngine {
+
+    private static final ThreadLocal<DijkstraEngine> ENGINES = ThreadLocal.withInitial(DijkstraEngine::new);
+
+    /**
+     * The scratch state of the search in progress, or of the last search.
+     */
+    private final SearchSpace forward = new SearchSpace();
+
+    /**
+     * The scratch state of the backward half of a bidirectional search.
+     */
+    private final SearchSpace backward = new SearchSpace();
+
+    private DijkstraEngine() {
+    }
+
+    /**
+     * @return the engine owned by the calling thread.
+     */
+    public static DijkstraEngine forCurrentThread() {
+        return ENGINES.get();
+    }
+
+    /**
+     * Return the shortest Path between two nodes of a compact graph.
+     * @param graph  the graph where the path is looking for
+     * @param source the id of the start node of the path
+     * @param target the id of the destination of the path
+     * @param <V>    the type of nodes
+     * @spec.requires graph != null &amp;&amp; source and target are node ids of graph
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from source to target.
+     */
+    public <V> Path<V> shortestPath(CompactGraph<V> graph, int source, int target) {
+        return search(graph, source, target, null);
+    }
+
+    /**
+     * Return the shortest Path between two nodes of a compact graph, using A* search. Nodes are
+     * settled in order of their cost from the source plus the heuristic's estimate of their
+     * cost to the target, so the search explores toward the target instead of in every
+     * direction.
+     * @param graph     the graph where the path is looking for
+     * @param source    the id of the start node of the path
+     * @param target    the id of the destination of the path
+     * @param heuristic the estimate of the remaining cost from a node to the target
+     * @param <V>       the type of nodes
+     * @spec.requires graph != null &amp;&amp; heuristic != null &amp;&amp;
+     *                source and target are node ids of graph &amp;&amp;
+     *                heuristic is consistent for graph
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from source to target.
+     */
+    public <V> Path<V> aStar(CompactGraph<V> graph, int source, int target, Heuristic<? super V> heuristic) {
+        return search(graph, source, target, heuristic);
+    }
+
+    /**
+     * Return the shortest Path between two nodes of a compact graph, using a bidirectional
+     * search: one Dijkstra search forward from the source and one backward from the target,
+     * each advancing the side with the cheaper frontier, until the cheapest connection found
+     * cannot be beaten by any path through the unsettled nodes.
+     * @param graph  the graph where the path is looking for
+     * @param source the id of the start node of the path
+     * @param target the id of the destination of the path
+     * @param <V>    the type of nodes
+     * @spec.requires graph != null &amp;&amp; source and target are node ids of graph
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from source to target.
+     */
+    public <V> Path<V> bidirectional(CompactGraph<V> graph, int source, int target) {
+        forward.reset(graph.nodeCount());
+        backward.reset(graph.nodeCount());
+        forward.relax(source, 0, -1, -1);
+        backward.relax(target, 0, -1, -1);
+
+        double best = source == target ? 0 : Double.POSITIVE_INFINITY;
+        int meeting = source == target ? source : -1;
+        // Any path not yet found costs at least the sum of the two frontiers' lowest costs.
+        while (!forward.isEmpty() && !backward.isEmpty()
+                && forward.peekPriority() + backward.peekPriority() < best) {
+            if (forward.peekPriority() <= backward.peekPriority()) {
+                int node = forward.settleMin();
+                double cost = forward.dist(node);
+                for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                    int child = graph.target(e);
+                    double childCost = cost + graph.weight(e);
+                    if (!forward.isSettled(child)) {
+                        forward.relax(child, childCost, node, e);
+                    }
+                    if (backward.isReached(child) && childCost + backward.dist(child) < best) {
+                        best = childCost + backward.dist(child);
+                        meeting = child;
+                    }
+                }
+            } else {
+                int node = backward.settleMin();
+                double cost = backward.dist(node);
+                for (int slot = graph.firstIncoming(node); slot < graph.endIncoming(node); slot++) {
+                    int parent = graph.incomingSource(slot);
+                    int e = graph.incomingEdge(slot);
+                    double parentCost = cost + graph.weight(e);
+                    if (!backward.isSettled(parent)) {
+                        backward.relax(parent, parentCost, node, e);
+                    }
+                    if (forward.isReached(parent) && parentCost + forward.dist(parent) < best) {
+                        best = parentCost + forward.dist(parent);
+                        meeting = parent;
+                    }
+                }
+            }
+        }
+        if (meeting < 0) {
+            return null;
+        }
+
+        int[] toMeeting = edgesTo(forward, source, meeting);
+        int backwardLength = 0;
+        for (int node = meeting; node != target; node = backward.parent(node)) {
+            backwardLength++;
+        }
+        int[] route = Arrays.copyOf(toMeeting, toMeeting.length + backwardLength);
+        for (int node = meeting, i = toMeeting.length; node != target; node = backward.parent(node), i++) {
+            route[i] = backward.parentEdge(node);
+        }
+        return pathAlong(graph, source, route);
+    }
+
+    /**
+     * Runs A* from source to target, or Dijkstra's algorithm if heuristic is null.
+     */
+    private <V> Path<V> search(CompactGraph<V> graph, int source, int target, Heuristic<? super V> heuristic) {
+        V goal = graph.node(target);
+        forward.reset(graph.nodeCount());
+        backward.reset(0); // unused, but cleared so settledCount() only counts this search
+        forward.relax(source, 0, -1, -1);
+
+        while (!forward.isEmpty()) {
+            int minDest = forward.settleMin();
+            if (minDest == target) {
+                return buildPath(graph, forward, source, target);
+            }
+            double minCost = forward.dist(minDest);
+            for (int e = graph.firstEdge(minDest); e < graph.endEdge(minDest); e++) {
+                int child = graph.target(e);
+                if (!forward.isSettled(child)) {
+                    double cost = minCost + graph.weight(e);
+                    if (heuristic == null) {
+                        forward.relax(child, cost, minDest, e);
+                    } else if (cost < forward.dist(child)) {
+                        double priority = cost + heuristic.estimate(graph.node(child), goal);
+                        forward.relax(child, cost, priority, minDest, e);
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the shortest Paths from one node of a compact graph to each of several others,
+     * found by a single search that stops once every target is settled.
+     * @param graph   the graph where the paths are looking for
+     * @param source  the id of the start node of the paths
+     * @param targets the ids of the destinations of the paths
+     * @param <V>     the type of nodes
+     * @spec.requires graph != null &amp;&amp; targets != null &amp;&amp;
+     *                source and every target are node ids of graph
+     * @return a list whose i-th element is the Path with the lowest cost from source to
+     *         targets[i], or null if there's no path from source to targets[i].
+     */
+    public <V> List<Path<V>> shortestPaths(CompactGraph<V> graph, int source, int[] targets) {
+        searchMany(graph, source, targets);
+        List<Path<V>> paths = new ArrayList<>(targets.length);
+        for (int target : targets) {
+            paths.add(forward.isSettled(target) ? pathAlong(graph, source, edgesTo(source, target)) : null);
+        }
+        return paths;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from source until every target is settled, or until every
+     * node reachable from source is settled.
+     */
+    void searchMany(CompactGraph<?> graph, int source, int[] targets) {
+        int[] sortedTargets = targets.clone();
+        Arrays.sort(sortedTargets);
+        int remaining = 0;
+        for (int i = 0; i < sortedTargets.length; i++) {
+            if (i == 0 || sortedTargets[i] != sortedTargets[i - 1]) {
+                remaining++;
+            }
+        }
+
+        forward.reset(graph.nodeCount());
+        backward.reset(0); // unused, but cleared so settledCount() only counts this search
+        forward.relax(source, 0, -1, -1);
+        while (!forward.isEmpty() && remaining > 0) {
+            int minDest = settleNext(graph);
+            if (Arrays.binarySearch(sortedTargets, minDest) >= 0) {
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Finds every node of a compact graph whose shortest path from source costs at most
+     * maxCost. The search stops as soon as the next node it would settle is farther, so its
+     * work is proportional to the part of the graph within maxCost of source.
+     * @param graph   the graph where the nodes are looking for
+     * @param source  the id of the start node
+     * @param maxCost the greatest cost of a path to a node that is returned
+     * @spec.requires graph != null &amp;&amp; source is a node id of graph
+     * @return the ids of the nodes within maxCost of source, closest first. The cost of each
+     *         is then given by {@link #lastCost(int)}.
+     */
+    public int[] reachable(CompactGraph<?> graph, int source, double maxCost) {
+        forward.reset(graph.nodeCount());
+        backward.reset(0); // unused, but cleared so settledCount() only counts this search
+        forward.relax(source, 0, -1, -1);
+        int[] nodes = new int[16];
+        int count = 0;
+        while (!forward.isEmpty() && forward.peekPriority() <= maxCost) {
+            if (count == nodes.length) {
+                nodes = Arrays.copyOf(nodes, count * 2);
+            }
+            nodes[count++] = settleNext(graph);
+        }
+        return Arrays.copyOf(nodes, count);
+    }
+
+    /**
+     * @param node the id of a node
+     * @return the cost at which the last search run by this engine reached node, or infinity
+     *         if it didn't reach it.
+     */
+    public double lastCost(int node) {
+        return forward.dist(node);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from source until every node reachable from it is settled.
+     * @return the tree of shortest paths from source to every node
+     */
+    ShortestPathTree tree(CompactGraph<?> graph, int source) {
+        forward.reset(graph.nodeCount());
+        backward.reset(0); // unused, but cleared so settledCount() only counts this search
+        forward.relax(source, 0, -1, -1);
+        while (!forward.isEmpty()) {
+            settleNext(graph);
+        }
+        return ShortestPathTree.of(forward, source, graph.nodeCount());
+    }
+
+    /**
+     * Settles the closest active node of the forward search and relaxes the edges leaving it.
+     * @spec.requires the forward search has an active node
+     * @return the node settled
+     */
+    private int settleNext(CompactGraph<?> graph) {
+        int minDest = forward.settleMin();
+        double minCost = forward.dist(minDest);
+        for (int e = graph.firstEdge(minDest); e < graph.endEdge(minDest); e++) {
+            int child = graph.target(e);
+            if (!forward.isSettled(child)) {
+                forward.relax(child, minCost + graph.weight(e), minDest, e);
+            }
+        }
+        return minDest;
+    }
+
+    /**
+     * @return the number of nodes settled by the last search run by this engine.
+     */
+    public int settledCount() {
+        return forward.settledCount() + backward.settledCount();
+    }
+
+    /**
+     * @return the scratch state for a search, or for the forward half of a bidirectional search.
+     */
+    SearchSpace forwardSpace() {
+        return forward;
+    }
+
+    /**
+     * @return the scratch state for the backward half of a bidirectional search.
+     */
+    SearchSpace backwardSpace() {
+        return backward;
+    }
+
+    /**
+     * @return {@literal true} iff the last search run by this engine settled the given node.
+     */
+    boolean hasSettled(int node) {
+        return forward.isSettled(node);
+    }
+
+    /**
+     * Returns the edges, in order, of the path to target found by the last search.
+     * @spec.requires target has been reached from source by the last search
+     */
+    int[] edgesTo(int source, int target) {
+        return edgesTo(forward, source, target);
+    }
+
+    /**
+     * Returns the edges, in order, along the parent pointers of a search from source to target.
+     * @spec.requires target has been reached from source in space
+     */
+    static int[] edgesTo(SearchSpace space, int source, int target) {
+        int length = 0;
+        for (int node = target; node != source; node = space.parent(node)) {
+            length++;
+        }
+        int[] edges = new int[length];
+        for (int node = target, i = length - 1; node != source; node = space.parent(node), i--) {
+            edges[i] = space.parentEdge(node);
+        }
+        return edges;
+    }
+
+    /**
+     * Builds the Path from source to target along the parent pointers of a finished search.
+     * @spec.requires target has been reached from source in space
+     */
+    static <V> Path<V> buildPath(CompactGraph<V> graph, SearchSpace space, int source, int target) {
+        return pathAlong(graph, source, edgesTo(space, source, target));
+    }
+
+    /**
+     * Builds the Path that starts at source and follows the given edges.
+     * @spec.requires edges is a sequence of edges of graph that starts at source
+     */
+    static <V> Path<V> pathAlong(CompactGraph<V> graph, int source, int[] edges) {
+        Path<V> path = new Path<>(graph.node(source));
+        for (int edge : edges) {
+            path = path.extend(graph.node(graph.target(edge)), graph.weight(edge));
+        }
+        return path;
+    }
+}
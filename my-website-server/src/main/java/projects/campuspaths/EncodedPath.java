@@ -0,0 +1,242 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An EncodedPath is a path in a compact form for sending to clients: its total cost, and its
+ * points as a polyline. Each point is rounded to {@value #PRECISION} decimal places and given as
+ * its difference from the point before, so that the small steps between nearby points take few
+ * characters, rather than each segment's start and end in full.
+ * <p>
+ * The polyline is in the widely used encoded polyline format: each difference, x then y, is
+ * scaled to an integer, zigzag-encoded so that small negative numbers are small too, and written
+ * five bits at a time, lowest first, as the characters from '?' up, with 0x20 added to every
+ * chunk but the last.
+ * <p>
+ * {@link #toBytes(List)} writes paths in a binary form of the same numbers, in which each is
+ * written seven bits at a time, lowest first, with the high bit set on every byte but the last.
+ * The binary form is a byte holding the precision, then for each path the number of its points
+ * (0 for no path) and, if there are any, its cost as a big-endian double and then its
+ * differences.
+ */
+public final class EncodedPath {
+    // RI:  polyline != null, and holds an even number of encoded numbers, at least two
+    // AF(this) = the path of cost cost through the points polyline decodes to, in order.
+
+    /**
+     * The number of decimal places points are rounded to.
+     */
+    public static final int PRECISION = 5;
+
+    private static final double SCALE = 1e5;
+
+    private final double cost;
+    private final int precision = PRECISION;
+    private final String polyline;
+
+    private EncodedPath(double cost, String polyline) {
+        this.cost = cost;
+        this.polyline = polyline;
+    }
+
+    /**
+     * @param path the path to encode
+     * @return the path in encoded form, or {@literal null} if path is {@literal null}.
+     */
+    public static EncodedPath of(Path<Point> path) {
+        if (path == null) {
+            return null;
+        }
+        long[] deltas = deltas(path);
+        StringBuilder polyline = new StringBuilder(3 * deltas.length);
+        for (long delta : deltas) {
+            appendText(polyline, zigzag(delta));
+        }
+        return new EncodedPath(path.getCost(), polyline.toString());
+    }
+
+    /**
+     * @param paths the paths to encode, where a {@literal null} path is one that wasn't found
+     * @return the paths in binary form.
+     */
+    public static byte[] toBytes(List<Path<Point>> paths) {
+        List<long[]> allDeltas = new ArrayList<>(paths.size());
+        int size = 1;
+        for (Path<Point> path : paths) {
+            long[] deltas = path == null ? new long[0] : deltas(path);
+            allDeltas.add(deltas);
+            // At most five bytes for the count, eight for the cost, and ten per number.
+            size += 5 + Double.BYTES + 10 * deltas.length;
+        }
+        byte[] bytes = new byte[size];
+        bytes[0] = PRECISION;
+        int position = 1;
+        for (int i = 0; i < paths.size(); i++) {
+            long[] deltas = allDeltas.get(i);
+            position = putVarint(bytes, position, deltas.length / 2);
+            if (deltas.length > 0) {
+                long cost = Double.doubleToLongBits(paths.get(i).getCost());
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    bytes[position++] = (byte) (cost >>> shift);
+                }
+                for (long delta : deltas) {
+                    position = putVarint(bytes, position, zigzag(delta));
+                }
+            }
+        }
+        return Arrays.copyOf(bytes, position);
+    }
+
+    /**
+     * Reads paths written by {@link #toBytes(List)}.
+     *
+     * @param bytes the paths in binary form
+     * @return the paths, in order, with {@literal null} for each path that wasn't found.
+     * @throws IllegalArgumentException if bytes is not a valid binary form of paths
+     */
+    public static List<EncodedPath> fromBytes(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != PRECISION) {
+            throw new IllegalArgumentException("not paths encoded at precision " + PRECISION);
+        }
+        List<EncodedPath> paths = new ArrayList<>();
+        int[] position = {1};
+        while (position[0] < bytes.length) {
+            long count = getVarint(bytes, position);
+            if (count == 0) {
+                paths.add(null);
+                continue;
+            }
+            if (bytes.length - position[0] < Double.BYTES) {
+                throw new IllegalArgumentException("truncated path");
+            }
+            long cost = 0;
+            for (int i = 0; i < Double.BYTES; i++) {
+                cost = (cost << 8) | (bytes[position[0]++] & 0xff);
+            }
+            StringBuilder polyline = new StringBuilder();
+            for (long i = 0; i < 2 * count; i++) {
+                appendText(polyline, getVarint(bytes, position));
+            }
+            paths.add(new EncodedPath(Double.longBitsToDouble(cost), polyline.toString()));
+        }
+        return paths;
+    }
+
+    /**
+     * @return the cost of this path.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * @return the points of this path, in the encoded polyline format.
+     */
+    public String getPolyline() {
+        return polyline;
+    }
+
+    /**
+     * @return the points of this path, in order, rounded to {@value #PRECISION} decimal places.
+     */
+    public List<Point> getPoints() {
+        List<Point> points = new ArrayList<>();
+        long x = 0;
+        long y = 0;
+        int[] position = {0};
+        while (position[0] < polyline.length()) {
+            x += unzigzag(getText(polyline, position));
+            y += unzigzag(getText(polyline, position));
+            points.add(new Point(x / SCALE, y / SCALE));
+        }
+        return points;
+    }
+
+    /**
+     * @return the differences between the points of path, after rounding: x and y of the
+     *         first point, then of the second minus the first, and so on.
+     */
+    private static long[] deltas(Path<Point> path) {
+        int count = 1;
+        for (Path<Point>.Segment ignored : path) {
+            count++;
+        }
+        long[] deltas = new long[2 * count];
+        long lastX = 0;
+        long lastY = 0;
+        int i = 0;
+        Point point = path.getStart();
+        for (Path<Point>.Segment segment : path) {
+            long x = Math.round(point.getX() * SCALE);
+            long y = Math.round(point.getY() * SCALE);
+            deltas[i++] = x - lastX;
+            deltas[i++] = y - lastY;
+            lastX = x;
+            lastY = y;
+            point = segment.getEnd();
+        }
+        deltas[i++] = Math.round(point.getX() * SCALE) - lastX;
+        deltas[i] = Math.round(point.getY() * SCALE) - lastY;
+        return deltas;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void appendText(StringBuilder out, long value) {
+        while (value >= 0x20 || value < 0) {
+            out.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>>= 5;
+        }
+        out.append((char) (value + 63));
+    }
+
+    private static long getText(String text, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 65; shift += 5) {
+            if (position[0] >= text.length()) {
+                throw new IllegalStateException("truncated polyline");
+            }
+            int chunk = text.charAt(position[0]++) - 63;
+            value |= (long) (chunk & 0x1f) << shift;
+            if (chunk < 0x20) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("number too long");
+    }
+
+    private static int putVarint(byte[] bytes, int position, long value) {
+        while (value >= 0x80 || value < 0) {
+            bytes[position++] = (byte) (0x80 | (value & 0x7f));
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static long getVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("truncated number");
+            }
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("number too long");
+    }
+}
@@ -0,0 +1,71 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Point;
+
+/**
+ * Estimates the cost between two Points as their straight-line distance, times a constant
+ * scale. The scale converts coordinate units into edge-cost units: in the campus data, edge
+ * costs are in feet while Points are in map pixels.
+ */
+public class EuclideanHeuristic implements Heuristic<Point> {
+    // RI: 0 <= scale && Double.isFinite(scale)
+
+    /**
+     * The cost of one unit of straight-line distance.
+     */
+    private final double scale;
+
+    /**
+     * Creates a heuristic that is the straight-line distance between two points, times scale.
+     * @param scale the cost of one unit of straight-line distance
+     * @throws IllegalArgumentException if scale is negative, infinite or NaN
+     */
+    public EuclideanHeuristic(double scale) {
+        if (!(scale >= 0) || !Double.isFinite(scale)) {
+            throw new IllegalArgumentException("The scale must be finite and non-negative");
+        }
+        this.scale = scale;
+    }
+
+    /**
+     * Creates the tightest Euclidean heuristic that is admissible and consistent for the given
+     * graph. Its scale is the lowest ratio of an edge's cost to the straight-line distance it
+     * covers, so no edge, and hence no path, is ever cheaper than the estimate.
+     *
+     * @param graph the graph the heuristic will guide searches over
+     * @spec.requires graph != null &amp;&amp; every edge cost in graph is non-negative
+     * @return a Euclidean heuristic that never overestimates a path cost in {@code graph}
+     */
+    public static EuclideanHeuristic forGraph(CompactGraph<Point> graph) {
+        double scale = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            Point from = graph.node(node);
+            for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                double length = distance(from, graph.node(graph.target(e)));
+                if (length > 0) {
+                    scale = Math.min(scale, graph.weight(e) / length);
+                }
+            }
+        }
+        return new EuclideanHeuristic(Double.isInfinite(scale) ? 0 : scale);
+    }
+
+    /**
+     * @return the cost of one unit of straight-line distance.
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    @Override
+    public double estimate(Point from, Point target) {
+        return scale * distance(from, target);
+    }
+
+    private static double distance(Point a, Point b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
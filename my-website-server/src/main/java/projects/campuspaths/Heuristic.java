@@ -0,0 +1,21 @@
+package projects.campuspaths;
+
+/**
+ * A Heuristic estimates the cost of the cheapest path between two nodes, to guide an A* search
+ * toward its destination.
+ * <p>
+ * For A* to return shortest paths, the estimate must be admissible (never more than the true
+ * cost) and should be consistent: for every edge (u, v) with cost c,
+ * {@code estimate(u, t) <= c + estimate(v, t)}.
+ *
+ * @param <V> the type of nodes.
+ */
+public interface Heuristic<V> {
+
+    /**
+     * @param from   the node a path would start at
+     * @param target the destination of the path
+     * @return a lower bound on the cost of any path from {@code from} to {@code target}
+     */
+    double estimate(V from, V target);
+}
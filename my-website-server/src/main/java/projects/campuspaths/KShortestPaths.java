@@ -0,0 +1,259 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Path;
+
+import java.util.*;
+
+/**
+ * KShortestPaths finds the k shortest loopless paths between two nodes of a compact graph,
+ * using Yen's algorithm: each path after the first leaves an earlier path at some spur node,
+ * and is found by a search from the spur node that may not reuse the earlier path's nodes
+ * before the spur or the edges that other known paths with the same root take next.
+ * <p>
+ * The spur searches share their work through a single backward Dijkstra search from the
+ * target, whose distances are the exact remaining costs in the whole graph. Since a spur
+ * search only ever has edges and nodes taken away, those costs are a consistent A* heuristic
+ * for it, and it settles little more than the nodes of the path it finds. Spur nodes before
+ * the point where a path left its own parent path are skipped (Lawler's improvement), since
+ * the searches from them have already been run.
+ * <p>
+ * Every query has a budget of settled nodes and of time; once either runs out, the paths found
+ * so far are returned.
+ */
+public final class KShortestPaths {
+
+    /**
+     * Marks a search that ran out of budget.
+     */
+    private static final int[] BUDGET_SPENT = new int[0];
+
+    private final CompactGraph<?> graph;
+    private final int source;
+    private final int target;
+    private final SearchSpace spur;
+    private final SearchSpace toTarget;
+    private final int maxSettled;
+    private final long deadline;
+    private int settled;
+
+    /**
+     * The stamp of the current spur search in bannedNode and bannedEdge; a node or edge may
+     * not be used by the search iff its entry equals the stamp. The arrays start out all 0, so
+     * stamps start at 1.
+     */
+    private int stamp = 1;
+    private final int[] bannedNode;
+    private final int[] bannedEdge;
+
+    private KShortestPaths(CompactGraph<?> graph, int source, int target, int maxSettled, long timeoutNanos) {
+        DijkstraEngine engine = DijkstraEngine.forCurrentThread();
+        this.graph = graph;
+        this.source = source;
+        this.target = target;
+        this.spur = engine.forwardSpace();
+        this.toTarget = engine.backwardSpace();
+        this.maxSettled = maxSettled;
+        this.deadline = System.nanoTime() + timeoutNanos;
+        this.bannedNode = new int[graph.nodeCount()];
+        this.bannedEdge = new int[graph.edgeCount()];
+    }
+
+    /**
+     * Return up to k shortest loopless Paths between two nodes of a compact graph, cheapest
+     * first.
+     * @param graph        the graph where the paths are looking for
+     * @param source       the id of the start node of the paths
+     * @param target       the id of the destination of the paths
+     * @param k            the number of paths wanted
+     * @param maxSettled   the most nodes the searches for the paths may settle in all
+     * @param timeoutNanos the most time the searches for the paths may take, in nanoseconds
+     * @param <V>          the type of nodes
+     * @spec.requires graph != null &amp;&amp; source and target are node ids of graph &amp;&amp;
+     *                k &gt;= 1
+     * @return the shortest Path from source to target followed by the next shortest loopless
+     *         ones, up to k in all and fewer if there are no more or the budget ran out, or an
+     *         empty list if there's no path from source to target.
+     */
+    public static <V> List<Path<V>> find(CompactGraph<V> graph, int source, int target, int k,
+                                         int maxSettled, long timeoutNanos) {
+        List<Path<V>> paths = new ArrayList<>();
+        for (Candidate candidate : new KShortestPaths(graph, source, target, maxSettled, timeoutNanos).run(k)) {
+            paths.add(DijkstraEngine.pathAlong(graph, source, candidate.edges));
+        }
+        return paths;
+    }
+
+    private List<Candidate> run(int k) {
+        List<Candidate> accepted = new ArrayList<>();
+        if (!searchToTarget() || !toTarget.isReached(source)) {
+            return accepted;
+        }
+        int[] first = search(source);
+        if (first == null || first == BUDGET_SPENT) {
+            return accepted;
+        }
+        accepted.add(new Candidate(first, cost(first), 0));
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        Set<Candidate> seen = new HashSet<>(accepted);
+        while (accepted.size() < k) {
+            Candidate last = accepted.get(accepted.size() - 1);
+            int[] nodes = nodesOf(last.edges);
+            double rootCost = 0;
+            for (int i = 0; i < last.deviation; i++) {
+                rootCost += graph.weight(last.edges[i]);
+            }
+            for (int i = last.deviation; i < last.edges.length; i++) {
+                stamp++;
+                for (int j = 0; j < i; j++) {
+                    bannedNode[nodes[j]] = stamp;
+                }
+                for (Candidate path : accepted) {
+                    if (path.edges.length > i && Arrays.equals(path.edges, 0, i, last.edges, 0, i)) {
+                        bannedEdge[path.edges[i]] = stamp;
+                    }
+                }
+                int[] spurEdges = search(nodes[i]);
+                if (spurEdges == BUDGET_SPENT) {
+                    return accepted;
+                }
+                if (spurEdges != null) {
+                    int[] edges = Arrays.copyOf(last.edges, i + spurEdges.length);
+                    System.arraycopy(spurEdges, 0, edges, i, spurEdges.length);
+                    Candidate candidate = new Candidate(edges, rootCost + cost(spurEdges), i);
+                    if (seen.add(candidate)) {
+                        candidates.add(candidate);
+                    }
+                }
+                rootCost += graph.weight(last.edges[i]);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.remove());
+        }
+        return accepted;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm backward from the target over the whole graph.
+     * @return false iff the budget ran out
+     */
+    private boolean searchToTarget() {
+        toTarget.reset(graph.nodeCount());
+        toTarget.relax(target, 0, -1, -1);
+        while (!toTarget.isEmpty()) {
+            if (!spend()) {
+                return false;
+            }
+            int node = toTarget.settleMin();
+            double cost = toTarget.dist(node);
+            for (int slot = graph.firstIncoming(node); slot < graph.endIncoming(node); slot++) {
+                int parent = graph.incomingSource(slot);
+                if (!toTarget.isSettled(parent)) {
+                    toTarget.relax(parent, cost + graph.weight(graph.incomingEdge(slot)), node, graph.incomingEdge(slot));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs A* from the given node to the target, avoiding the nodes and edges banned under the
+     * current stamp.
+     * @return the edges of the shortest such path, null if there is none, or BUDGET_SPENT
+     */
+    private int[] search(int from) {
+        spur.reset(graph.nodeCount());
+        spur.relax(from, 0, toTarget.dist(from), -1, -1);
+        while (!spur.isEmpty()) {
+            if (!spend()) {
+                return BUDGET_SPENT;
+            }
+            int node = spur.settleMin();
+            if (node == target) {
+                return DijkstraEngine.edgesTo(spur, from, target);
+            }
+            double cost = spur.dist(node);
+            for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                int child = graph.target(e);
+                double remaining = toTarget.dist(child);
+                // Nodes that cannot reach the target even in the whole graph are never useful.
+                if (bannedEdge[e] == stamp || bannedNode[child] == stamp || spur.isSettled(child)
+                        || Double.isInfinite(remaining)) {
+                    continue;
+                }
+                double childCost = cost + graph.weight(e);
+                if (childCost < spur.dist(child)) {
+                    spur.relax(child, childCost, childCost + remaining, node, e);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts one more settled node against the budget.
+     * @return false iff the budget has run out
+     */
+    private boolean spend() {
+        settled++;
+        // Reading the clock costs more than settling a node, so only do it now and then.
+        return settled <= maxSettled && ((settled & 0xff) != 0 || System.nanoTime() - deadline < 0);
+    }
+
+    private double cost(int[] edges) {
+        double cost = 0;
+        for (int edge : edges) {
+            cost += graph.weight(edge);
+        }
+        return cost;
+    }
+
+    /**
+     * @return the nodes a path from the source along the given edges goes through, without
+     *         the last one.
+     */
+    private int[] nodesOf(int[] edges) {
+        int[] nodes = new int[edges.length];
+        int node = source;
+        for (int i = 0; i < edges.length; i++) {
+            nodes[i] = node;
+            node = graph.target(edges[i]);
+        }
+        return nodes;
+    }
+
+    /**
+     * A path from the source to the target, with its cost and the index of its edge at which
+     * it left the path it was derived from.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int[] edges;
+        private final double cost;
+        private final int deviation;
+
+        private Candidate(int[] edges, double cost, int deviation) {
+            this.edges = edges;
+            this.cost = cost;
+            this.deviation = deviation;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byCost = Double.compare(cost, other.cost);
+            return byCost != 0 ? byCost : Integer.compare(edges.length, other.edges.length);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Candidate && Arrays.equals(edges, ((Candidate) obj).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+}
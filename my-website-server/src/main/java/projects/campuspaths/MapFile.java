@@ -0,0 +1,246 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.NodeTable;
+import projects.campuspaths.datastructures.Point;
+import projects.campuspaths.parser.CampusBuilding;
+import projects.campuspaths.parser.CampusPathsParser;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A MapFile is a campus map in the form routing needs it: its buildings, the table of its
+ * locations and its graph. It is built by parsing the campus CSV files once, and then saved
+ * in a binary form that later runs map into memory and read in bulk instead of parsing the
+ * files again.
+ * <p>
+ * The binary form is a header (magic number, format version, and the numbers of nodes, edges
+ * and buildings), the coordinates of every node in order of id, the graph's CSR arrays, the
+ * buildings, and a CRC32 of all of that, all big-endian.
+ */
+final class MapFile {
+
+    /**
+     * The format version of saved maps. Change it whenever the format, or the way node ids are
+     * derived from the input files, changes.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x43504d46; // "CPMF"
+
+    private final List<CampusBuilding> buildings;
+    private final NodeTable locations;
+    private final CompactGraph<Point> graph;
+
+    private MapFile(List<CampusBuilding> buildings, NodeTable locations, CompactGraph<Point> graph) {
+        this.buildings = buildings;
+        this.locations = locations;
+        this.graph = graph;
+    }
+
+    /**
+     * Builds the map from the contents of the campus files. The buildings' locations get the
+     * first ids, in the order of the buildings, and then the other ends of the paths, in the
+     * order they first appear. The paths file is streamed straight into the graph's arrays.
+     *
+     * @param buildings the buildings of the map
+     * @param pathsFile the simple filename of the campus paths file
+     * @throws CampusPathsParser.ParserException if the paths file cannot be found or parsed
+     * @return the map
+     */
+    static MapFile parse(List<CampusBuilding> buildings, String pathsFile) {
+        NodeTable locations = new NodeTable();
+        for (CampusBuilding building : buildings) {
+            locations.intern(building.getX(), building.getY());
+        }
+        Edges edges = new Edges();
+        CampusPathsParser.parseCampusPaths(pathsFile, (x1, y1, x2, y2, distance) ->
+                edges.add(locations.intern(x1, y1), locations.intern(x2, y2), distance));
+        return new MapFile(List.copyOf(buildings), locations, CompactGraph.of(locations.points(),
+                Arrays.copyOf(edges.sources, edges.size), Arrays.copyOf(edges.targets, edges.size),
+                Arrays.copyOf(edges.weights, edges.size)));
+    }
+
+    /**
+     * A growable list of edges, as parallel arrays.
+     */
+    private static final class Edges {
+        private int[] sources = new int[1024];
+        private int[] targets = new int[1024];
+        private double[] weights = new double[1024];
+        private int size;
+
+        private void add(int source, int target, double weight) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    /**
+     * Reads a map saved by {@link #write(DataOutputStream)}.
+     *
+     * @param buffer the saved map, from its current position to its limit
+     * @return the saved map, or null if it was saved by another format version
+     * @throws IOException if the saved map is corrupt
+     */
+    static MapFile read(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        int end = buffer.limit() - Long.BYTES;
+        if (end - start < 5 * Integer.BYTES) {
+            throw new IOException("Corrupt map file: too short");
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.limit(end);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if (crc.getValue() != buffer.getLong(end)) {
+            throw new IOException("Corrupt map file: checksum mismatch");
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        int nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        int buildingCount = buffer.getInt();
+        long arrays = 16L * nodeCount + 4L * (nodeCount + 1) + 12L * edgeCount;
+        if (nodeCount < 0 || edgeCount < 0 || buildingCount < 0 || arrays > end - buffer.position()) {
+            throw new IOException("Corrupt map file: bad counts");
+        }
+
+        double[] coordinates = new double[2 * nodeCount];
+        buffer.asDoubleBuffer().get(coordinates);
+        buffer.position(buffer.position() + Double.BYTES * coordinates.length);
+        int[] offsets = new int[nodeCount + 1];
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + Integer.BYTES * offsets.length);
+        int[] targets = new int[edgeCount];
+        buffer.asIntBuffer().get(targets);
+        buffer.position(buffer.position() + Integer.BYTES * targets.length);
+        double[] weights = new double[edgeCount];
+        buffer.asDoubleBuffer().get(weights);
+        buffer.position(buffer.position() + Double.BYTES * weights.length);
+
+        NodeTable locations = new NodeTable();
+        CompactGraph<Point> graph;
+        try {
+            for (int i = 0; i < nodeCount; i++) {
+                if (locations.intern(coordinates[2 * i], coordinates[2 * i + 1]) != i) {
+                    throw new IOException("Corrupt map file: node " + i + " is a duplicate");
+                }
+            }
+            graph = CompactGraph.fromCsr(locations.points(), offsets, targets, weights);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt map file: " + e.getMessage(), e);
+        }
+
+        List<CampusBuilding> buildings = new ArrayList<>(buildingCount);
+        for (int i = 0; i < buildingCount; i++) {
+            String shortName = readString(buffer, end);
+            String longName = readString(buffer, end);
+            if (end - buffer.position() < 2 * Double.BYTES) {
+                throw new IOException("Corrupt map file: truncated building " + i);
+            }
+            double x = buffer.getDouble();
+            double y = buffer.getDouble();
+            if (locations.find(x, y) < 0) {
+                throw new IOException("Corrupt map file: building " + shortName + " is not at a node");
+            }
+            buildings.add(new CampusBuilding(shortName, longName, x, y));
+        }
+        return new MapFile(Collections.unmodifiableList(buildings), locations, graph);
+    }
+
+    private static String readString(ByteBuffer buffer, int end) throws IOException {
+        if (end - buffer.position() < Integer.BYTES) {
+            throw new IOException("Corrupt map file: truncated string");
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > end - buffer.position()) {
+            throw new IOException("Corrupt map file: bad string length");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes this map, in the form read by {@link #read(ByteBuffer)}.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the map cannot be written
+     */
+    void write(DataOutputStream out) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(out, new CRC32());
+        DataOutputStream body = new DataOutputStream(checked);
+        body.writeInt(MAGIC);
+        body.writeInt(FORMAT_VERSION);
+        body.writeInt(graph.nodeCount());
+        body.writeInt(graph.edgeCount());
+        body.writeInt(buildings.size());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            body.writeDouble(graph.node(i).getX());
+            body.writeDouble(graph.node(i).getY());
+        }
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            body.writeInt(graph.firstEdge(i));
+        }
+        body.writeInt(graph.edgeCount());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            body.writeInt(graph.target(e));
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            body.writeDouble(graph.weight(e));
+        }
+        for (CampusBuilding building : buildings) {
+            writeString(body, building.getShortName());
+            writeString(body, building.getLongName());
+            body.writeDouble(building.getX());
+            body.writeDouble(building.getY());
+        }
+        body.flush();
+        out.writeLong(checked.getChecksum().getValue());
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return the buildings of the map, in the order of the buildings file.
+     */
+    List<CampusBuilding> buildings() {
+        return buildings;
+    }
+
+    /**
+     * @return the locations of the map, whose ids are the node ids of {@link #graph()}.
+     */
+    NodeTable locations() {
+        return locations;
+    }
+
+    /**
+     * @return the graph of the map's path segments.
+     */
+    CompactGraph<Point> graph() {
+        return graph;
+    }
+}
@@ -14,6 +14,7 @@ package projects.campuspaths;
 import projects.campuspaths.datastructures.Point;
 import projects.campuspaths.datastructures.Path;
 
+import java.util.List;
 import java.util.Map;
 
 /*
@@ -71,4 +72,17 @@ public interface ModelAPI {
     // You'll need to change this return type to use the generic Path once you've
     // updated the Path ADT to be generic.
 
+    /**
+     * Finds the shortest paths, by distance, from one building to each of several others.
+     *
+     * @param startShortName The short name of the building at the beginning of the paths.
+     * @param endShortNames  The short names of the buildings at the ends of the paths.
+     * @return A map from each short name in {@code endShortNames}, in the order given, to a path
+     * from {@code startBuilding} to that building, or to {@literal null} if none exists.
+     * @throws IllegalArgumentException if {@code startShortName} or {@code endShortNames} are
+     *                                  {@literal null}, or any name is not a valid short name
+     *                                  of a building in this campus map.
+     */
+    public Map<String, Path<Point>> findShortestPaths(String startShortName, List<String> endShortNames);
+
 }
@@ -0,0 +1,46 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.Point;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ReachableRegion is the part of a campus map within some distance of a building: the
+ * buildings in it, with the distance to each, and every point of the map in it, for drawing.
+ */
+public final class ReachableRegion {
+    // RI:  buildings != null && points != null
+    // AF(this) = the buildings buildings.keySet(), at distances buildings.values(), and the
+    //            points points, all in order of distance.
+
+    private final Map<String, Double> buildings;
+    private final List<Point> points;
+
+    /**
+     * @param buildings the short names of the buildings in the region, in order of distance,
+     *                  mapped to their distances
+     * @param points    the points of the map in the region, in order of distance
+     * @spec.requires buildings != null &amp;&amp; points != null
+     */
+    public ReachableRegion(Map<String, Double> buildings, List<Point> points) {
+        this.buildings = buildings;
+        this.points = points;
+    }
+
+    /**
+     * @return an unmodifiable map from the short name of each building in this region to its
+     *         distance, closest first.
+     */
+    public Map<String, Double> getBuildings() {
+        return Collections.unmodifiableMap(buildings);
+    }
+
+    /**
+     * @return an unmodifiable list of the points of the map in this region, closest first.
+     */
+    public List<Point> getPoints() {
+        return Collections.unmodifiableList(points);
+    }
+}
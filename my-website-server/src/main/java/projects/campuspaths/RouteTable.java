@@ -0,0 +1,286 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A RouteTable holds the shortest route between every ordered pair of buildings on a campus
+ * map, so that a query between two buildings is a lookup instead of a search. Routes are
+ * stored as sequences of edge indices into the map's CompactGraph, which is also the form in
+ * which the table is saved to and read back from disk. The table also indexes which routes
+ * take each edge, so that the routes a change to an edge affects can be found directly.
+ */
+final class RouteTable {
+    // RI:  names, index, routes and paths are not null && nodeCount, edgeCount >= 0
+    //      routes.length == paths.size() == names.size() * names.size()
+    //      index.get(names.get(i)) == i
+    //      paths.get(k) is null iff routes[k] is null
+    //      usersOffsets.length == edgeCount + 1, and users[usersOffsets[e], usersOffsets[e + 1])
+    //          holds, in increasing order, each k such that routes[k] contains e
+    // AF(this) = the route from building names.get(i) to building names.get(j) is
+    //            paths.get(i * names.size() + j), or no route if that is null.
+
+    /**
+     * The format version of saved tables. Change it whenever the format, or the way routes or
+     * node ids are derived from the input files, changes.
+     */
+    static final int FORMAT_VERSION = 3;
+
+    private static final int MAGIC = 0x43505254; // "CPRT"
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final List<String> names;
+    private final Map<String, Integer> index;
+    private final int[][] routes;
+    private final List<Path<Point>> paths;
+    private final int[] usersOffsets;
+    private final int[] users;
+
+    private RouteTable(CompactGraph<Point> graph, List<String> names, int[] nodes, int[][] routes) {
+        this.nodeCount = graph.nodeCount();
+        this.edgeCount = graph.edgeCount();
+        this.names = List.copyOf(names);
+        this.index = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            index.put(names.get(i), i);
+        }
+        this.routes = routes;
+        this.paths = new ArrayList<>(Collections.nCopies(routes.length, null));
+        int n = names.size();
+        IntStream.range(0, routes.length).parallel().forEach(k -> {
+            if (routes[k] != null) {
+                paths.set(k, DijkstraEngine.pathAlong(graph, nodes[k / n], routes[k]));
+            }
+        });
+
+        // Index the routes by the edges they take, in CSR form. A shortest route takes an
+        // edge at most once, so each route is listed at most once per edge.
+        this.usersOffsets = new int[edgeCount + 1];
+        for (int[] route : routes) {
+            if (route != null) {
+                for (int e : route) {
+                    usersOffsets[e + 1]++;
+                }
+            }
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            usersOffsets[e + 1] += usersOffsets[e];
+        }
+        this.users = new int[usersOffsets[edgeCount]];
+        int[] next = Arrays.copyOf(usersOffsets, edgeCount);
+        for (int k = 0; k < routes.length; k++) {
+            if (routes[k] != null) {
+                for (int e : routes[k]) {
+                    users[next[e]++] = k;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the shortest route between every ordered pair of the given buildings, running
+     * one search per building in parallel. If every edge of the graph has a twin going the
+     * other way with the same cost, the route from j to i is the reverse of the route from i
+     * to j, so only half of the pairs are searched for.
+     *
+     * @param graph the map the buildings are on
+     * @param names the short names of the buildings
+     * @param nodes the node id of each building in {@code graph}
+     * @return a table with the shortest route between every pair of buildings
+     */
+    static RouteTable compute(CompactGraph<Point> graph, List<String> names, int[] nodes) {
+        int n = names.size();
+        int[] twins = twinEdges(graph);
+        int[][] routes = new int[n * n][];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            DijkstraEngine engine = DijkstraEngine.forCurrentThread();
+            int first = twins == null ? 0 : i;
+            engine.searchMany(graph, nodes[i], Arrays.copyOfRange(nodes, first, n));
+            for (int j = first; j < n; j++) {
+                if (engine.hasSettled(nodes[j])) {
+                    int[] route = engine.edgesTo(nodes[i], nodes[j]);
+                    routes[i * n + j] = route;
+                    if (twins != null && j != i) {
+                        routes[j * n + i] = reverse(route, twins);
+                    }
+                }
+            }
+        });
+        return new RouteTable(graph, names, nodes, routes);
+    }
+
+    /**
+     * Reads a table saved by {@link #write(File, byte[])}.
+     *
+     * @param file   the file to read
+     * @param digest the digest of the input files the table must have been computed from
+     * @param graph  the map the buildings are on
+     * @param names  the short names of the buildings
+     * @param nodes  the node id of each building in {@code graph}
+     * @return the saved table, or null if it does not exist or was computed from other inputs,
+     *         by another format version, or for another graph or set of buildings
+     * @throws IOException if the file exists but cannot be read
+     */
+    static RouteTable read(File file, byte[] digest, CompactGraph<Point> graph,
+                           List<String> names, int[] nodes) throws IOException {
+        DataInputStream opened = CacheDirectory.open(file, digest);
+        if (opened == null) {
+            return null;
+        }
+        try (DataInputStream in = opened) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || in.readInt() != graph.nodeCount() || in.readInt() != graph.edgeCount()
+                    || in.readInt() != names.size()) {
+                return null;
+            }
+            for (String name : names) {
+                if (!in.readUTF().equals(name)) {
+                    return null;
+                }
+            }
+            int n = names.size();
+            int[][] routes = new int[n * n][];
+            for (int k = 0; k < routes.length; k++) {
+                int length = in.readInt();
+                // -1 for no route; a shortest route visits no node twice.
+                if (length < -1 || length > graph.nodeCount()) {
+                    throw new IOException("Corrupt route table: " + file);
+                }
+                if (length < 0) {
+                    continue;
+                }
+                int[] route = new int[length];
+                int node = nodes[k / n];
+                for (int i = 0; i < length; i++) {
+                    route[i] = in.readInt();
+                    if (route[i] < graph.firstEdge(node) || route[i] >= graph.endEdge(node)) {
+                        throw new IOException("Corrupt route table: " + file);
+                    }
+                    node = graph.target(route[i]);
+                }
+                if (node != nodes[k % n]) {
+                    throw new IOException("Corrupt route table: " + file);
+                }
+                routes[k] = route;
+            }
+            return new RouteTable(graph, names, nodes, routes);
+        }
+    }
+
+    /**
+     * Saves this table, tagged with the digest of the input files it was computed from.
+     * @param file   the file to write
+     * @param digest the digest of the input files
+     * @throws IOException if the file cannot be written
+     */
+    void write(File file, byte[] digest) throws IOException {
+        CacheDirectory.write(file, digest, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(nodeCount);
+            out.writeInt(edgeCount);
+            out.writeInt(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+            for (int[] route : routes) {
+                if (route == null) {
+                    out.writeInt(-1);
+                    continue;
+                }
+                out.writeInt(route.length);
+                for (int edge : route) {
+                    out.writeInt(edge);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return {@literal true} iff both buildings are in this table.
+     */
+    boolean contains(String startShortName, String endShortName) {
+        return index.containsKey(startShortName) && index.containsKey(endShortName);
+    }
+
+    /**
+     * @spec.requires contains(startShortName, endShortName)
+     * @return the shortest route between the buildings, or null if there is none
+     */
+    Path<Point> get(String startShortName, String endShortName) {
+        return paths.get(route(startShortName, endShortName));
+    }
+
+    /**
+     * @spec.requires contains(startShortName, endShortName)
+     * @return the index of the route between the buildings, as returned by
+     *         {@link #routesUsing(int)}
+     */
+    int route(String startShortName, String endShortName) {
+        return index.get(startShortName) * names.size() + index.get(endShortName);
+    }
+
+    /**
+     * @return the number of routes in this table, one per ordered pair of buildings.
+     */
+    int routeCount() {
+        return routes.length;
+    }
+
+    /**
+     * @return roughly how many bytes of memory this table takes.
+     */
+    long bytes() {
+        // Per edge taken by a route: its id in the route, its entry in the index, and the path
+        // node and segment it becomes. Per route: two references and an array header.
+        long edges = users.length;
+        return edges * (4 + 4 + 48 + 32) + routes.length * (8 + 16L) + 4L * usersOffsets.length;
+    }
+
+    /**
+     * @param edge the index of an edge of the map
+     * @spec.requires 0 &lt;= edge &lt; the number of edges of the map
+     * @return the indices of the routes that take the edge, in increasing order
+     */
+    int[] routesUsing(int edge) {
+        return Arrays.copyOfRange(users, usersOffsets[edge], usersOffsets[edge + 1]);
+    }
+
+    /**
+     * Pairs every edge with an edge going the other way with the same cost.
+     * @return the twin of every edge, or null if some edge has no twin
+     */
+    private static int[] twinEdges(CompactGraph<?> graph) {
+        int[] twins = new int[graph.edgeCount()];
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                int child = graph.target(e);
+                twins[e] = -1;
+                for (int f = graph.firstEdge(child); f < graph.endEdge(child); f++) {
+                    if (graph.target(f) == node && graph.weight(f) == graph.weight(e)) {
+                        twins[e] = f;
+                        break;
+                    }
+                }
+                if (twins[e] < 0) {
+                    return null;
+                }
+            }
+        }
+        return twins;
+    }
+
+    private static int[] reverse(int[] route, int[] twins) {
+        int[] reversed = new int[route.length];
+        for (int i = 0; i < route.length; i++) {
+            reversed[i] = twins[route[route.length - 1 - i]];
+        }
+        return reversed;
+    }
+}
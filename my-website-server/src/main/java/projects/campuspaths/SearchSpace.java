@@ -0,0 +1,138 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.IndexedMinHeap;
+
+import java.util.Arrays;
+
+/**
+ * The scratch state of one shortest-path search over int node ids: tentative distances, the
+ * parent pointers of the search tree, which nodes are settled, and the queue of active nodes.
+ * A SearchSpace is meant to be reused for many searches by one thread. Resetting it does not
+ * clear its arrays; instead every entry is tagged with the generation in which it was written,
+ * so the cost of a search is proportional to the part of the graph it explores.
+ */
+final class SearchSpace {
+    // RI:  dist, parent, parentEdge, reached and settled all have the same length
+    //      heap holds only nodes whose reached stamp is generation and whose settled stamp is not
+    // AF(this) = a search in which node v has been reached iff reached[v] == generation, at cost
+    //            dist[v] through the edge parentEdge[v] from parent[v], and settled iff
+    //            settled[v] == generation.
+
+    private double[] dist = new double[0];
+    private int[] parent = new int[0];
+    private int[] parentEdge = new int[0];
+    private int[] reached = new int[0];
+    private int[] settled = new int[0];
+    private int generation = 0;
+    private int settledCount = 0;
+    private final IndexedMinHeap heap = new IndexedMinHeap(0);
+
+    /**
+     * Starts a new search over a graph with the given number of nodes.
+     * @spec.modifies this
+     * @spec.effects no node is reached or settled, and the queue is empty
+     */
+    void reset(int nodeCount) {
+        if (nodeCount > dist.length) {
+            dist = new double[nodeCount];
+            parent = new int[nodeCount];
+            parentEdge = new int[nodeCount];
+            reached = new int[nodeCount];
+            settled = new int[nodeCount];
+            generation = 0;
+            heap.ensureCapacity(nodeCount);
+        }
+        heap.clear();
+        settledCount = 0;
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            // Wrap around before stamps from long-gone searches could look current.
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Marks a node as reached at the given cost and puts it in the queue, if that is cheaper
+     * than any way of reaching it found so far in this search. An infinite cost, as through a
+     * closed edge, never reaches a node.
+     * @return {@literal true} iff the node's cost was lowered
+     */
+    boolean relax(int node, double cost, int fromNode, int viaEdge) {
+        return relax(node, cost, cost, fromNode, viaEdge);
+    }
+
+    /**
+     * Like {@link #relax(int, double, int, int)}, but queues the node at {@code priority}
+     * instead of at its cost.
+     */
+    boolean relax(int node, double cost, double priority, int fromNode, int viaEdge) {
+        if (cost == Double.POSITIVE_INFINITY || reached[node] == generation && dist[node] <= cost) {
+            return false;
+        }
+        reached[node] = generation;
+        dist[node] = cost;
+        parent[node] = fromNode;
+        parentEdge[node] = viaEdge;
+        heap.insertOrDecrease(node, priority);
+        return true;
+    }
+
+    /**
+     * @return {@literal true} iff there are no reached, unsettled nodes left.
+     */
+    boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * @spec.requires !isEmpty()
+     * @return the lowest priority in the queue
+     */
+    double peekPriority() {
+        return heap.minPriority();
+    }
+
+    /**
+     * Removes the node with the lowest priority from the queue and settles it.
+     * @spec.requires !isEmpty()
+     * @return the settled node
+     */
+    int settleMin() {
+        int node = heap.removeMin();
+        settled[node] = generation;
+        settledCount++;
+        return node;
+    }
+
+    boolean isReached(int node) {
+        return reached[node] == generation;
+    }
+
+    boolean isSettled(int node) {
+        return settled[node] == generation;
+    }
+
+    /**
+     * @return the lowest cost found so far to the node, or infinity if it has not been reached.
+     */
+    double dist(int node) {
+        return reached[node] == generation ? dist[node] : Double.POSITIVE_INFINITY;
+    }
+
+    int parent(int node) {
+        return parent[node];
+    }
+
+    int parentEdge(int node) {
+        return parentEdge[node];
+    }
+
+    /**
+     * @return the number of nodes settled since the last reset.
+     */
+    int settledCount() {
+        return settledCount;
+    }
+}
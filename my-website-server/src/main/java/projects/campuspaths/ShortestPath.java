@@ -1,5 +1,6 @@
 package projects.campuspaths;
 
+import projects.campuspaths.datastructures.CompactGraph;
 import projects.campuspaths.datastructures.Graph;
 import projects.campuspaths.datastructures.Path;
 
@@ -57,4 +58,213 @@ public class ShortestPath {
 
         return null;
     }
+
+    /**
+     * Return the shortest Path between two nodes of a compact graph.
+     * @param graph the graph where the path is looking for
+     * @param start the start node of the path
+     * @param end   the destination of the path
+     * @param <V>   the type of nodes
+     * @spec.requires graph != null &amp;&amp; start != null &amp;&amp; end != null
+     *                start and end nodes are in the graph.
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from start to end.
+     */
+    public static <V> Path<V> dijkstra(CompactGraph<V> graph, V start, V end) {
+        return DijkstraEngine.forCurrentThread().shortestPath(graph, graph.id(start), graph.id(end));
+    }
+
+    /**
+     * Return the shortest Path between two nodes of a compact graph, using A* search guided by
+     * the given heuristic.
+     * @param graph     the graph where the path is looking for
+     * @param start     the start node of the path
+     * @param end       the destination of the path
+     * @param heuristic the estimate of the remaining cost from a node to end
+     * @param <V>       the type of nodes
+     * @spec.requires graph != null &amp;&amp; start != null &amp;&amp; end != null &amp;&amp;
+     *                heuristic != null &amp;&amp; start and end nodes are in the graph &amp;&amp;
+     *                heuristic is consistent for graph
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from start to end.
+     */
+    public static <V> Path<V> aStar(CompactGraph<V> graph, V start, V end, Heuristic<? super V> heuristic) {
+        return DijkstraEngine.forCurrentThread().aStar(graph, graph.id(start), graph.id(end), heuristic);
+    }
+
+    /**
+     * Return the shortest Path between two nodes using a bidirectional search: Dijkstra's
+     * algorithm runs forward from start over Graph#getEdgesFrom and backward from end over
+     * Graph#getEdgesTo, always advancing the side whose frontier is cheaper, and stops once no
+     * path through the unsettled nodes can beat the cheapest connection found so far.
+     * @param graph the graph where the path is looking for
+     * @param start the start node of the path
+     * @param end   the destination of the path
+     * @param <V>   the type of nodes
+     * @spec.requires graph != null &amp;&amp; start != null &amp;&amp; end != null
+     *                start and end nodes are in the graph.
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from start to end.
+     */
+    public static <V> Path<V> bidirectionalDijkstra(Graph<V, Double> graph, V start, V end) {
+        Frontier<V> forward = new Frontier<>(start);
+        Frontier<V> backward = new Frontier<>(end);
+        double best = start.equals(end) ? 0 : Double.POSITIVE_INFINITY;
+        V meeting = start.equals(end) ? start : null;
+
+        // Any path not yet found costs at least the sum of the two frontiers' lowest costs.
+        while (!forward.isEmpty() && !backward.isEmpty()
+                && forward.peekCost() + backward.peekCost() < best) {
+            boolean isForward = forward.peekCost() <= backward.peekCost();
+            Frontier<V> frontier = isForward ? forward : backward;
+            Frontier<V> other = isForward ? backward : forward;
+            V node = frontier.settleMin();
+            double cost = frontier.dist.get(node);
+
+            List<Graph.Edge<V, Double>> edges = isForward ? graph.getEdgesFrom(node) : graph.getEdgesTo(node);
+            for (Graph.Edge<V, Double> edge : edges) {
+                V next = isForward ? edge.getChild() : edge.getParent();
+                double nextCost = cost + edge.getLabel();
+                frontier.relax(next, nextCost, edge);
+                Double otherCost = other.dist.get(next);
+                if (otherCost != null && nextCost + otherCost < best) {
+                    best = nextCost + otherCost;
+                    meeting = next;
+                }
+            }
+        }
+        if (meeting == null) {
+            return null;
+        }
+
+        LinkedList<Graph.Edge<V, Double>> edges = new LinkedList<>();
+        for (V node = meeting; !node.equals(start); node = forward.parent.get(node).getParent()) {
+            edges.addFirst(forward.parent.get(node));
+        }
+        for (V node = meeting; !node.equals(end); node = backward.parent.get(node).getChild()) {
+            edges.addLast(backward.parent.get(node));
+        }
+        Path<V> path = new Path<>(start);
+        for (Graph.Edge<V, Double> edge : edges) {
+            path = path.extend(edge.getChild(), edge.getLabel());
+        }
+        return path;
+    }
+
+    /**
+     * Return every node whose shortest path from start costs at most maxCost, with that cost.
+     * The search stops as soon as the next node it would settle is farther, so its work is
+     * proportional to the part of the graph within maxCost of start.
+     * @param graph   the graph where the nodes are looking for
+     * @param start   the start node
+     * @param maxCost the greatest cost of a path to a node that is returned
+     * @param <V>     the type of nodes
+     * @spec.requires graph != null &amp;&amp; start != null &amp;&amp; start is in the graph.
+     * @return  a map from each node within maxCost of start to the cost of its shortest path,
+     *          iterating from the closest node to the farthest.
+     */
+    public static <V> Map<V, Double> reachable(Graph<V, Double> graph, V start, double maxCost) {
+        Frontier<V> frontier = new Frontier<>(start);
+        Map<V, Double> reached = new LinkedHashMap<>();
+        while (!frontier.isEmpty() && frontier.peekCost() <= maxCost) {
+            V node = frontier.settleMin();
+            double cost = frontier.dist.get(node);
+            reached.put(node, cost);
+            for (Graph.Edge<V, Double> edge : graph.getEdgesFrom(node)) {
+                frontier.relax(edge.getChild(), cost + edge.getLabel(), edge);
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Return every node of a compact graph whose shortest path from start costs at most
+     * maxCost, with that cost.
+     * @param graph   the graph where the nodes are looking for
+     * @param start   the start node
+     * @param maxCost the greatest cost of a path to a node that is returned
+     * @param <V>     the type of nodes
+     * @spec.requires graph != null &amp;&amp; start != null &amp;&amp; start is in the graph.
+     * @return  a map from each node within maxCost of start to the cost of its shortest path,
+     *          iterating from the closest node to the farthest.
+     */
+    public static <V> Map<V, Double> reachable(CompactGraph<V> graph, V start, double maxCost) {
+        DijkstraEngine engine = DijkstraEngine.forCurrentThread();
+        Map<V, Double> reached = new LinkedHashMap<>();
+        for (int node : engine.reachable(graph, graph.id(start), maxCost)) {
+            reached.put(graph.node(node), engine.lastCost(node));
+        }
+        return reached;
+    }
+
+    /**
+     * One search, or one direction of a bidirectional search: the lowest known cost to each
+     * reached node, the edge through which it was reached, and a queue of reached, unsettled
+     * nodes.
+     */
+    private static class Frontier<V> {
+        private final Map<V, Double> dist = new HashMap<>();
+        private final Map<V, Graph.Edge<V, Double>> parent = new HashMap<>();
+        private final Set<V> finished = new HashSet<>();
+        // Holds a node once per time its cost was lowered; stale entries are skipped.
+        private final PriorityQueue<Map.Entry<V, Double>> active =
+                new PriorityQueue<>(Map.Entry.comparingByValue());
+
+        private Frontier(V origin) {
+            dist.put(origin, 0.0);
+            active.add(new AbstractMap.SimpleImmutableEntry<>(origin, 0.0));
+        }
+
+        private boolean isEmpty() {
+            discardStale();
+            return active.isEmpty();
+        }
+
+        private double peekCost() {
+            discardStale();
+            return active.peek().getValue();
+        }
+
+        private V settleMin() {
+            discardStale();
+            V node = active.remove().getKey();
+            finished.add(node);
+            return node;
+        }
+
+        private void relax(V node, double cost, Graph.Edge<V, Double> via) {
+            Double known = dist.get(node);
+            if (!finished.contains(node) && (known == null || cost < known)) {
+                dist.put(node, cost);
+                parent.put(node, via);
+                active.add(new AbstractMap.SimpleImmutableEntry<>(node, cost));
+            }
+        }
+
+        private void discardStale() {
+            while (!active.isEmpty() && finished.contains(active.peek().getKey())) {
+                active.remove();
+            }
+        }
+    }
+
+    /**
+     * Return the shortest Path between two nodes of a compact graph using a bidirectional
+     * search.
+     * @param graph the graph where the path is looking for
+     * @param start the start node of the path
+     * @param end   the destination of the path
+     * @param <V>   the type of nodes
+     * @spec.requires graph != null &amp;&amp; start != null &amp;&amp; end != null
+     *                start and end nodes are in the graph.
+     * @return  the Path with the lowest cost connecting the two nodes.
+     *          If there is a tie in cost, return any Path with the lowest cost.
+     *          Return null if there's no path from start to end.
+     */
+    public static <V> Path<V> bidirectionalDijkstra(CompactGraph<V> graph, V start, V end) {
+        return DijkstraEngine.forCurrentThread().bidirectional(graph, graph.id(start), graph.id(end));
+    }
 }
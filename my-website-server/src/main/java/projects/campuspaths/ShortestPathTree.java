@@ -0,0 +1,105 @@
+package projects.campuspaths;
+
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Path;
+
+import java.util.Arrays;
+
+/**
+ * A ShortestPathTree is an immutable record of a finished Dijkstra search from one source over
+ * a CompactGraph: the cost of the shortest path to every node, and the edge through which each
+ * node is reached on it. The path from the source to any node can then be rebuilt in time
+ * proportional to its length, without searching again.
+ */
+final class ShortestPathTree {
+    // RI:  parent, parentEdge and dist have the same length && 0 <= source < dist.length
+    //      dist[source] == 0 && parent[source] == -1 && parentEdge[source] == -1
+    //      for every other node v, dist[v] is infinite and parent[v] == parentEdge[v] == -1 if
+    //          v is unreachable, and otherwise parentEdge[v] is an edge from parent[v] to v
+    // AF(this) = the shortest paths from source, in which node v is reached at cost dist[v]
+    //            through the edge parentEdge[v] from parent[v].
+
+    private final int source;
+    private final int[] parent;
+    private final int[] parentEdge;
+    private final double[] dist;
+
+    private ShortestPathTree(int source, int[] parent, int[] parentEdge, double[] dist) {
+        this.source = source;
+        this.parent = parent;
+        this.parentEdge = parentEdge;
+        this.dist = dist;
+    }
+
+    /**
+     * Copies the tree out of a search that has settled every node reachable from source.
+     * @spec.requires space holds such a search over a graph with nodeCount nodes
+     */
+    static ShortestPathTree of(SearchSpace space, int source, int nodeCount) {
+        int[] parent = new int[nodeCount];
+        int[] parentEdge = new int[nodeCount];
+        double[] dist = new double[nodeCount];
+        Arrays.fill(parent, -1);
+        Arrays.fill(parentEdge, -1);
+        for (int node = 0; node < nodeCount; node++) {
+            dist[node] = space.dist(node);
+            if (node != source && space.isReached(node)) {
+                parent[node] = space.parent(node);
+                parentEdge[node] = space.parentEdge(node);
+            }
+        }
+        return new ShortestPathTree(source, parent, parentEdge, dist);
+    }
+
+    /**
+     * @return the id of the node the paths of this tree start from.
+     */
+    int source() {
+        return source;
+    }
+
+    /**
+     * @return the cost of the shortest path from the source to node, or infinity if there is
+     *         none.
+     */
+    double dist(int node) {
+        return dist[node];
+    }
+
+    /**
+     * @return the edge through which node is reached on its shortest path, or -1 if node is the
+     *         source or cannot be reached.
+     */
+    int parentEdge(int node) {
+        return parentEdge[node];
+    }
+
+    /**
+     * Rebuilds the shortest path from the source to target.
+     * @param graph the graph this tree was computed over
+     * @param target the id of the destination of the path
+     * @return the shortest path from the source to target, or null if there is none
+     */
+    <V> Path<V> pathTo(CompactGraph<V> graph, int target) {
+        if (Double.isInfinite(dist[target])) {
+            return null;
+        }
+        int length = 0;
+        for (int node = target; node != source; node = parent[node]) {
+            length++;
+        }
+        int[] edges = new int[length];
+        for (int node = target, i = length - 1; node != source; node = parent[node], i--) {
+            edges[i] = parentEdge[node];
+        }
+        return DijkstraEngine.pathAlong(graph, source, edges);
+    }
+
+    /**
+     * @return roughly how many bytes of memory this tree takes.
+     */
+    long bytes() {
+        // Three arrays of 4 + 4 + 8 bytes per node, each with a header, and this object.
+        return 16L * dist.length + 3 * 16 + 32;
+    }
+}
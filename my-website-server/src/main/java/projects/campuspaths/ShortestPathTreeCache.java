@@ -0,0 +1,163 @@
+package projects.campuspaths;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * A ShortestPathTreeCache keeps the shortest-path trees of the sources searched from most
+ * recently, up to a budget of memory, evicting the least recently used tree first. It is safe
+ * to use from many threads at once. Trees are computed outside of the cache's lock, so one
+ * slow search does not hold up lookups of other sources.
+ * <p>
+ * When the map changes, the cache is moved to the map's new version, keeping only the trees
+ * that are still shortest in the changed map. Lookups for an older version of the map, by
+ * searches that began before the change, bypass the cache.
+ */
+final class ShortestPathTreeCache {
+    // RI:  trees != null && bytes is the sum of bytes() of the trees in trees
+    //      bytes <= budget
+    // AF(this) = the trees in trees, keyed by their source, from least to most recently used,
+    //            all of them shortest-path trees of the map at version version.
+
+    /**
+     * The system property holding the memory budget in bytes.
+     */
+    static final String BUDGET_PROPERTY = "campuspaths.treeCacheBytes";
+
+    private static final long DEFAULT_BUDGET = 8L << 20;
+
+    private final long budget;
+
+    // Guarded by this.
+    private final LinkedHashMap<Integer, ShortestPathTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long version;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param budget the most bytes of trees to keep
+     */
+    ShortestPathTreeCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @return a cache with the budget given by the {@value #BUDGET_PROPERTY} system property, or
+     *         8 MiB if it is not set.
+     */
+    static ShortestPathTreeCache withConfiguredBudget() {
+        return new ShortestPathTreeCache(Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET));
+    }
+
+    /**
+     * Returns the tree from the given source, computing and keeping it if it is not cached.
+     * @param source  the id of the source node
+     * @param version the version of the map compute searches
+     * @param compute computes the tree from a source
+     * @return the tree from source in the map at the given version
+     */
+    ShortestPathTree get(int source, long version, IntFunction<ShortestPathTree> compute) {
+        synchronized (this) {
+            ShortestPathTree tree = version == this.version ? trees.get(source) : null;
+            if (tree != null) {
+                hits.incrementAndGet();
+                return tree;
+            }
+        }
+        misses.incrementAndGet();
+        ShortestPathTree computed = compute.apply(source);
+        if (computed.bytes() > budget) {
+            return computed;
+        }
+        synchronized (this) {
+            if (version != this.version) {
+                // The map changed while the tree was computed.
+                return computed;
+            }
+            ShortestPathTree raced = trees.putIfAbsent(source, computed);
+            if (raced != null) {
+                // Another thread computed the same tree in the meantime.
+                return raced;
+            }
+            bytes += computed.bytes();
+            Iterator<Map.Entry<Integer, ShortestPathTree>> eldest = trees.entrySet().iterator();
+            while (bytes > budget) {
+                bytes -= eldest.next().getValue().bytes();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Moves the cache to a new version of the map, dropping the trees that are not shortest
+     * in it.
+     * @param version    the new version of the map
+     * @param stillValid tests whether a tree of the current version is still a shortest-path
+     *                   tree of the new version
+     * @spec.requires version is greater than the current version
+     */
+    synchronized void advance(long version, Predicate<ShortestPathTree> stillValid) {
+        Iterator<ShortestPathTree> it = trees.values().iterator();
+        while (it.hasNext()) {
+            ShortestPathTree tree = it.next();
+            if (!stillValid.test(tree)) {
+                bytes -= tree.bytes();
+                it.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+        this.version = version;
+    }
+
+    /**
+     * @return the number of lookups that found their tree in the cache.
+     */
+    long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that had to compute their tree.
+     */
+    long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of trees dropped to stay within the budget.
+     */
+    long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the number of trees dropped because the map changed.
+     */
+    long invalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return the number of trees in the cache.
+     */
+    synchronized int size() {
+        return trees.size();
+    }
+
+    /**
+     * @return roughly how many bytes the trees in the cache take.
+     */
+    synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,152 @@
+package projects.campuspaths.datastructures;
+
+import java.util.*;
+
+/**
+ * An Adjacency is the list of edges on one side of a node of a {@link Graph}: either the
+ * edges leaving it, keyed by their child, or the edges entering it, keyed by their parent.
+ * The edges are kept in insertion order in a plain array, so iterating over them is as cheap
+ * as iterating over an array. Nodes with more than a few edges also get a hash index from
+ * each key to the edges with that key, so that finding duplicates and looking up the edges
+ * between two nodes take constant time no matter the degree.
+ * <p>
+ * Seen as a List, an Adjacency is read-only; the Graph changes it through {@link #insert}
+ * and {@link #delete}.
+ *
+ * @param <V> the type of nodes.
+ * @param <E> the type of the label of edges.
+ */
+final class Adjacency<V, E> extends AbstractList<Graph.Edge<V, E>> implements RandomAccess {
+    // RI:  edges != null && 0 <= size <= edges.length && edges[0..size) are not null
+    //      index != null if size > INDEX_THRESHOLD
+    //      if index != null, index.get(k) holds, in order, exactly the edges of edges[0..size)
+    //      whose key is k, and has no empty lists
+    // AF(this) = the list edges[0..size).
+
+    /**
+     * The number of edges up to which a linear scan is used instead of the index. Scanning a
+     * handful of edges is faster than hashing, and most nodes of a map have fewer.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
+    private final boolean keyedByChild;
+    private Graph.Edge<V, E>[] edges;
+    private int size;
+    private Map<V, List<Graph.Edge<V, E>>> index;
+
+    /**
+     * @param keyedByChild {@literal true} to key the edges by their child, for the edges
+     *                     leaving a node; {@literal false} to key them by their parent
+     */
+    Adjacency(boolean keyedByChild) {
+        this.keyedByChild = keyedByChild;
+        this.edges = newArray(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V, E> Graph.Edge<V, E>[] newArray(int length) {
+        return (Graph.Edge<V, E>[]) new Graph.Edge<?, ?>[length];
+    }
+
+    private V key(Graph.Edge<V, E> edge) {
+        return keyedByChild ? edge.getChild() : edge.getParent();
+    }
+
+    @Override
+    public Graph.Edge<V, E> get(int i) {
+        Objects.checkIndex(i, size);
+        return edges[i];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Graph.Edge<?, ?>)) {
+            return false;
+        }
+        Graph.Edge<?, ?> edge = (Graph.Edge<?, ?>) o;
+        if (index == null) {
+            return super.contains(edge);
+        }
+        Object key = keyedByChild ? edge.getChild() : edge.getParent();
+        List<Graph.Edge<V, E>> withKey = index.get(key);
+        return withKey != null && withKey.contains(edge);
+    }
+
+    /**
+     * Returns the edges whose key is the given node, in insertion order.
+     * @param key the child of the wanted edges if this holds the edges leaving a node, or
+     *            their parent if it holds the edges entering a node
+     * @return a new list of the edges with the given key
+     */
+    List<Graph.Edge<V, E>> withKey(V key) {
+        if (index != null) {
+            List<Graph.Edge<V, E>> withKey = index.get(key);
+            return withKey == null ? new ArrayList<>() : new ArrayList<>(withKey);
+        }
+        List<Graph.Edge<V, E>> withKey = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (key(edges[i]).equals(key)) {
+                withKey.add(edges[i]);
+            }
+        }
+        return withKey;
+    }
+
+    /**
+     * Appends an edge, unless an equal edge is already here.
+     * @param edge the edge to add
+     * @spec.requires edge != null
+     * @return {@literal true} iff the edge was added
+     */
+    boolean insert(Graph.Edge<V, E> edge) {
+        if (contains(edge)) {
+            return false;
+        }
+        if (size == edges.length) {
+            edges = Arrays.copyOf(edges, size * 2);
+        }
+        edges[size++] = edge;
+        modCount++;
+        if (index != null) {
+            index.computeIfAbsent(key(edge), k -> new ArrayList<>(1)).add(edge);
+        } else if (size > INDEX_THRESHOLD) {
+            index = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                index.computeIfAbsent(key(edges[i]), k -> new ArrayList<>(1)).add(edges[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the edge equal to the given one, if there is one. The remaining edges keep
+     * their order, so this takes time linear in the number of edges.
+     * @param edge the edge to remove
+     * @spec.requires edge != null
+     * @return {@literal true} iff an edge was removed
+     */
+    boolean delete(Graph.Edge<V, E> edge) {
+        // The edges after it are shifted anyway, so the scan for it costs no more than that.
+        int i = indexOf(edge);
+        if (i < 0) {
+            return false;
+        }
+        Graph.Edge<V, E> removed = edges[i];
+        System.arraycopy(edges, i + 1, edges, i, size - i - 1);
+        edges[--size] = null;
+        modCount++;
+        if (index != null) {
+            List<Graph.Edge<V, E>> withKey = index.get(key(removed));
+            withKey.remove(removed);
+            if (withKey.isEmpty()) {
+                index.remove(key(removed));
+            }
+        }
+        return true;
+    }
+}
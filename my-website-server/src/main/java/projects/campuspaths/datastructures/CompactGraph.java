@@ -0,0 +1,415 @@
+package projects.campuspaths.datastructures;
+
+import java.util.*;
+
+/**
+ * A CompactGraph is an immutable snapshot of a directed graph whose edge labels are doubles,
+ * stored in compressed sparse row (CSR) form. Every node is given a dense int id in
+ * [0, nodeCount()), and the edges leaving node i occupy the index range
+ * [firstEdge(i), endEdge(i)) of two parallel primitive arrays holding the edge targets and
+ * weights. Routing code can therefore walk the graph without touching any boxed labels or
+ * Edge objects.
+ *
+ * @param <V> the type of nodes.
+ */
+public final class CompactGraph<V> {
+    // RI:  nodes != null && ids != null && offsets != null && targets != null && weights != null
+    //      offsets.length == nodes.size() + 1 && offsets[0] == 0 && offsets is non-decreasing
+    //      offsets[nodes.size()] == targets.length == weights.length
+    //      0 <= targets[e] < nodes.size() for every edge e
+    //      ids.get(nodes.get(i)) == i for every node i
+    // AF(this) = a graph with nodes this.nodes, where node i has an edge to targets[e] labeled
+    //            weights[e] for every offsets[i] <= e < offsets[i + 1].
+
+    /**
+     * The node of each id.
+     */
+    private final List<V> nodes;
+
+    /**
+     * The id of each node.
+     */
+    private final Map<V, Integer> ids;
+
+    /**
+     * The index of the first outgoing edge of each node, plus one final entry equal to the
+     * total number of edges.
+     */
+    private final int[] offsets;
+
+    /**
+     * The id of the child node of each edge.
+     */
+    private final int[] targets;
+
+    /**
+     * The label of each edge.
+     */
+    private final double[] weights;
+
+    /**
+     * The edges entering each node, built the first time they are asked for.
+     */
+    private volatile Incoming incoming;
+
+    private CompactGraph(List<V> nodes, Map<V, Integer> ids, int[] offsets, int[] targets, double[] weights) {
+        this.nodes = nodes;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert nodes != null && ids != null : "the node tables cannot be null";
+        assert offsets != null && targets != null && weights != null : "the edge arrays cannot be null";
+        assert offsets.length == nodes.size() + 1 && offsets[0] == 0 : "offsets must cover every node";
+        assert offsets[nodes.size()] == targets.length && targets.length == weights.length
+                : "offsets must cover every edge";
+        if (Graph.DEBUG) {
+            for (int i = 0; i < nodes.size(); i++) {
+                assert offsets[i] <= offsets[i + 1] : "offsets must be non-decreasing";
+                assert ids.get(nodes.get(i)) == i : "ids must be the inverse of nodes";
+            }
+            for (int target : targets) {
+                assert 0 <= target && target < nodes.size() : "edge targets must be valid node ids";
+            }
+        }
+    }
+
+    /**
+     * Creates a compact snapshot of the given graph. Later changes to {@code graph} are not
+     * reflected in the snapshot.
+     *
+     * @param graph the graph to copy
+     * @param <V>   the type of nodes
+     * @spec.requires graph != null
+     * @return a CompactGraph with the same nodes and edges as {@code graph}
+     */
+    public static <V> CompactGraph<V> of(Graph<V, Double> graph) {
+        List<V> nodes = graph.getNodes();
+        Map<V, Integer> ids = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ids.put(nodes.get(i), i);
+        }
+
+        int[] offsets = new int[nodes.size() + 1];
+        for (int i = 0; i < nodes.size(); i++) {
+            offsets[i + 1] = offsets[i] + graph.getEdgesFrom(nodes.get(i)).size();
+        }
+        int[] targets = new int[offsets[nodes.size()]];
+        double[] weights = new double[offsets[nodes.size()]];
+        for (int i = 0; i < nodes.size(); i++) {
+            int e = offsets[i];
+            for (Graph.Edge<V, Double> edge : graph.getEdgesFrom(nodes.get(i))) {
+                targets[e] = ids.get(edge.getChild());
+                weights[e] = edge.getLabel();
+                e++;
+            }
+        }
+        return new CompactGraph<>(nodes, ids, offsets, targets, weights);
+    }
+
+    /**
+     * Creates a compact graph from a list of nodes and a list of edges between their indices.
+     * The edges leaving each node keep the order they are given in, and an edge equal to an
+     * earlier one, with the same parent, child and label, is left out, as Graph#addEdge does.
+     *
+     * @param nodes   the nodes, whose ids are their indices in this list
+     * @param sources the id of the parent node of each edge
+     * @param targets the id of the child node of each edge
+     * @param weights the label of each edge
+     * @param <V>     the type of nodes
+     * @spec.requires nodes != null &amp;&amp; sources, targets and weights are not null and have
+     *                the same length &amp;&amp; nodes has no null or duplicate elements
+     * @throws IllegalArgumentException if an edge has a parent or child that is not a node id
+     * @return a CompactGraph with the given nodes and edges
+     */
+    public static <V> CompactGraph<V> of(List<V> nodes, int[] sources, int[] targets, double[] weights) {
+        int n = nodes.size();
+        Map<V, Integer> ids = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ids.put(nodes.get(i), i);
+        }
+
+        // Counting sort of the edges by parent, keeping their order within each parent.
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] < 0 || sources[i] >= n || targets[i] < 0 || targets[i] >= n) {
+                throw new IllegalArgumentException("Edge " + i + " is not between two nodes");
+            }
+            offsets[sources[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] sortedTargets = new int[sources.length];
+        double[] sortedWeights = new double[sources.length];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < sources.length; i++) {
+            int e = next[sources[i]]++;
+            sortedTargets[e] = targets[i];
+            sortedWeights[e] = weights[i];
+        }
+
+        // Drop duplicates, shifting the remaining edges of each node down.
+        int kept = 0;
+        for (int node = 0; node < n; node++) {
+            int first = kept;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                boolean duplicate = false;
+                for (int f = first; f < kept && !duplicate; f++) {
+                    duplicate = sortedTargets[f] == sortedTargets[e]
+                            && Double.valueOf(sortedWeights[f]).equals(sortedWeights[e]);
+                }
+                if (!duplicate) {
+                    sortedTargets[kept] = sortedTargets[e];
+                    sortedWeights[kept] = sortedWeights[e];
+                    kept++;
+                }
+            }
+            offsets[node] = first;
+        }
+        offsets[n] = kept;
+        return new CompactGraph<>(List.copyOf(nodes), ids, offsets,
+                Arrays.copyOf(sortedTargets, kept), Arrays.copyOf(sortedWeights, kept));
+    }
+
+    /**
+     * Creates a compact graph directly from its CSR arrays, as returned by
+     * {@link #firstEdge(int)}, {@link #target(int)} and {@link #weight(int)}, such as when
+     * reading back a graph that was saved.
+     *
+     * @param nodes   the nodes, whose ids are their indices in this list
+     * @param offsets the index of the first edge of each node, then the number of edges
+     * @param targets the id of the child node of each edge
+     * @param weights the label of each edge
+     * @param <V>     the type of nodes
+     * @spec.requires nodes has no null or duplicate elements
+     * @throws IllegalArgumentException if the arrays are not the CSR form of a graph on nodes
+     * @return a CompactGraph with the given nodes and edges, which keeps the given arrays
+     */
+    public static <V> CompactGraph<V> fromCsr(List<V> nodes, int[] offsets, int[] targets, double[] weights) {
+        int n = nodes.size();
+        if (offsets.length != n + 1 || offsets[0] != 0 || offsets[n] != targets.length
+                || targets.length != weights.length) {
+            throw new IllegalArgumentException("The edge arrays do not cover the nodes");
+        }
+        for (int i = 0; i < n; i++) {
+            if (offsets[i] > offsets[i + 1]) {
+                throw new IllegalArgumentException("The offsets of node " + i + " are decreasing");
+            }
+        }
+        for (int e = 0; e < targets.length; e++) {
+            if (targets[e] < 0 || targets[e] >= n) {
+                throw new IllegalArgumentException("Edge " + e + " is not between two nodes");
+            }
+        }
+        Map<V, Integer> ids = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ids.put(nodes.get(i), i);
+        }
+        return new CompactGraph<>(List.copyOf(nodes), ids, offsets, targets, weights);
+    }
+
+    /**
+     * Returns a graph with the same nodes and edges as this one, relabeled with the given
+     * weights. Edges keep their indices, so an edge index into this graph names the same edge
+     * in the returned one. An edge of infinite weight cannot be taken by any search.
+     *
+     * @param weights the new label of each edge, by index
+     * @throws IllegalArgumentException if {@code weights.length != edgeCount()}
+     * @return a CompactGraph with the same nodes and edges as this one, labeled
+     *         {@code weights}
+     */
+    public CompactGraph<V> withWeights(double[] weights) {
+        if (weights.length != edgeCount()) {
+            throw new IllegalArgumentException("Expected " + edgeCount() + " weights, got " + weights.length);
+        }
+        CompactGraph<V> relabeled = new CompactGraph<>(nodes, ids, offsets, targets, weights.clone());
+        // The incoming edges don't depend on the weights.
+        relabeled.incoming = incoming;
+        return relabeled;
+    }
+
+    /**
+     * @return the number of nodes in this graph.
+     */
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the number of edges in this graph.
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * @param node the node to look for
+     * @return {@literal true} iff {@code node} is in this graph
+     */
+    public boolean contains(V node) {
+        return ids.containsKey(node);
+    }
+
+    /**
+     * Return the id of the given node.
+     * @param node the node whose id is looked for
+     * @spec.requires node != null
+     * @throws NoSuchElementException if the node doesn't exist in this graph
+     * @return the id of {@code node}
+     */
+    public int id(V node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            throw new NoSuchElementException("The given node doesn't exist in the map");
+        }
+        return id;
+    }
+
+    /**
+     * @param id the id of a node
+     * @spec.requires 0 &lt;= id &lt; nodeCount()
+     * @return the node with the given id
+     */
+    public V node(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * @param node the id of a node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     * @return the index of the first edge leaving {@code node}
+     */
+    public int firstEdge(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * @param node the id of a node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     * @return one past the index of the last edge leaving {@code node}
+     */
+    public int endEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    /**
+     * @param edge the index of an edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     * @return the id of the child node of {@code edge}
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Finds the parent of an edge, by a binary search of the edge ranges of the nodes.
+     * @param edge the index of an edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     * @return the id of the parent node of {@code edge}
+     */
+    public int source(int edge) {
+        // The parent is the last node whose edges start at or before edge.
+        int lo = 0;
+        int hi = nodes.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= edge) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @param edge the index of an edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     * @return the label of {@code edge}
+     */
+    public double weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * @param node the id of a node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     * @return the first slot of the incoming edges of {@code node}; the incoming edges of
+     *         node i occupy the slots [firstIncoming(i), endIncoming(i))
+     */
+    public int firstIncoming(int node) {
+        return incoming().offsets[node];
+    }
+
+    /**
+     * @param node the id of a node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     * @return one past the last slot of the incoming edges of {@code node}
+     */
+    public int endIncoming(int node) {
+        return incoming().offsets[node + 1];
+    }
+
+    /**
+     * @param slot a slot of an incoming edge
+     * @spec.requires 0 &lt;= slot &lt; edgeCount()
+     * @return the index of the edge in {@code slot}
+     */
+    public int incomingEdge(int slot) {
+        return incoming().edges[slot];
+    }
+
+    /**
+     * @param slot a slot of an incoming edge
+     * @spec.requires 0 &lt;= slot &lt; edgeCount()
+     * @return the id of the parent node of the edge in {@code slot}
+     */
+    public int incomingSource(int slot) {
+        return incoming().sources[slot];
+    }
+
+    private Incoming incoming() {
+        Incoming result = incoming;
+        if (result == null) {
+            result = new Incoming(this);
+            incoming = result;
+        }
+        return result;
+    }
+
+    /**
+     * The transpose of a CompactGraph's edges, in the same CSR layout: the edges entering node
+     * i occupy the slots [offsets[i], offsets[i + 1]).
+     */
+    private static final class Incoming {
+        private final int[] offsets;
+        private final int[] edges;
+        private final int[] sources;
+
+        private Incoming(CompactGraph<?> graph) {
+            int n = graph.nodeCount();
+            offsets = new int[n + 1];
+            for (int target : graph.targets) {
+                offsets[target + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            edges = new int[graph.edgeCount()];
+            sources = new int[graph.edgeCount()];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int node = 0; node < n; node++) {
+                for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                    int slot = next[graph.target(e)]++;
+                    edges[slot] = e;
+                    sources[slot] = node;
+                }
+            }
+        }
+    }
+}
@@ -12,23 +12,50 @@ import java.util.*;
  * @param <E> the type of the label of edges.
  */
 public class Graph<V, E> {
-    // RI:  adjacencyList != null
+    // RI:  adjacencyList != null && incomingEdges != null
     //      no null values and no identical values in adjacencyList.
+    //      incomingEdges has the same keys as adjacencyList, and incomingEdges.get(n) holds
+    //      exactly the edges of adjacencyList.values whose child is n.
     // AF(this) = a graph with nodes of this.adjacencyList.keys and edges of this.adjacencyList.values.
-    private Map<V, List<Edge<V, E>>> adjacencyList;
+    private Map<V, Adjacency<V, E>> adjacencyList;
+
+    /**
+     * The edges pointing to each node, kept in step with adjacencyList so that predecessor
+     * queries don't have to scan every edge of the graph.
+     */
+    private Map<V, Adjacency<V, E>> incomingEdges;
 
     public static final boolean DEBUG = true;
 
+    /**
+     * Whether every operation checks the whole representation invariant, or only the
+     * constant-time part of it.
+     */
+    private final boolean debug;
+
     private void checkRep() {
+        checkRep(debug);
+    }
+
+    private void checkRep(boolean full) {
         assert adjacencyList != null : "the adjacency list cannot be null.";
-        if (DEBUG) {
+        assert incomingEdges != null : "the incoming edges cannot be null.";
+        if (full) {
+            assert adjacencyList.keySet().equals(incomingEdges.keySet()) : "Every node must have incoming edges";
+            int edgeCount = 0;
             for (V node: adjacencyList.keySet()) {
-                List<Edge<V, E>> edges = adjacencyList.get(node);
+                Adjacency<V, E> edges = adjacencyList.get(node);
                 for (int i = 0; i < edges.size(); i++) {
                     assert edges.get(i) != null : "Edges cannot be null";
                     assert i == edges.lastIndexOf(edges.get(i)) : "There cannot be identical edges in the map";
                 }
+                edgeCount += edges.size();
+                for (Edge<V, E> edge : incomingEdges.get(node)) {
+                    assert edge.getChild().equals(node) : "Incoming edges must point to their node";
+                    edgeCount--;
+                }
             }
+            assert edgeCount == 0 : "Every edge must be indexed by its child";
         }
     }
 
@@ -38,9 +65,31 @@ public class Graph<V, E> {
      */
     public Graph() {
         adjacencyList = new HashMap<>();
+        incomingEdges = new HashMap<>();
+        debug = DEBUG;
         checkRep();
     }
 
+    private Graph(Map<V, Adjacency<V, E>> adjacencyList, Map<V, Adjacency<V, E>> incomingEdges, boolean debug) {
+        this.adjacencyList = adjacencyList;
+        this.incomingEdges = incomingEdges;
+        this.debug = debug;
+        checkRep(true);
+    }
+
+    /**
+     * Returns a Builder that collects nodes and edges and then makes a Graph of all of them at
+     * once. Unlike adding them to a Graph one at a time, which checks the representation
+     * invariant around every addition, a Builder finds duplicate edges by hashing and checks
+     * the invariant once, when the Graph is built.
+     * @param <V> the type of nodes
+     * @param <E> the type of the label of edges
+     * @return a new Builder with no nodes and no edges
+     */
+    public static <V, E> Builder<V, E> builder() {
+        return new Builder<>();
+    }
+
     /**
      * Add a node to the graph.
      * @param node the new node being added to this graph
@@ -51,7 +100,8 @@ public class Graph<V, E> {
     public void addNode(V node) {
         checkRep();
         if (!adjacencyList.containsKey(node)) {
-            adjacencyList.put(node, new LinkedList<>());
+            adjacencyList.put(node, new Adjacency<>(true));
+            incomingEdges.put(node, new Adjacency<>(false));
         }
         checkRep();
     }
@@ -66,9 +116,8 @@ public class Graph<V, E> {
     public void addEdge(Edge<V, E> edge) {
         checkRep();
 
-        V parent = edge.getParent();
-        if (!adjacencyList.get(parent).contains(edge)) {
-            adjacencyList.get(parent).add(edge);
+        if (adjacencyList.get(edge.getParent()).insert(edge)) {
+            incomingEdges.get(edge.getChild()).insert(edge);
         }
 
         checkRep();
@@ -116,17 +165,13 @@ public class Graph<V, E> {
         if (!adjacencyList.containsKey(child)) {
             throw new NoSuchElementException("The given child node doesn't exist in the map");
         }
-        List<V> parents = new ArrayList<>();
-
-        List<Edge<V, E>> edgesTo = getEdgesTo(child);
-        for (Edge<V, E> edge: edgesTo) {
-            if (!parents.contains(edge.getParent())) {
-                parents.add(edge.getParent());
-            }
+        Set<V> parents = new LinkedHashSet<>();
+        for (Edge<V, E> edge: getEdgesTo(child)) {
+            parents.add(edge.getParent());
         }
 
         checkRep();
-        return parents;
+        return new ArrayList<>(parents);
     }
 
     /**
@@ -145,12 +190,7 @@ public class Graph<V, E> {
         if (!adjacencyList.containsKey(child)) {
             throw new NoSuchElementException("The given child node doesn't exist in the map");
         }
-        List<Edge<V, E>> edges = new ArrayList<>();
-        for (Edge<V, E> edge: adjacencyList.get(parent)) {
-            if (edge.getChild().equals(child)) {
-                edges.add(edge);
-            }
-        }
+        List<Edge<V, E>> edges = adjacencyList.get(parent).withKey(child);
 
         checkRep();
         return edges;
@@ -161,7 +201,8 @@ public class Graph<V, E> {
      * @param node the starting node
      * @spec.requires node != null
      * @throws NoSuchElementException if the node doesn't exist in this graph
-     * @return a list of edges starting from the given node
+     * @return a read-only view of the edges starting from the given node, which reflects
+     *         later changes to this graph
      */
     public List<Edge<V, E>> getEdgesFrom(V node) {
         checkRep();
@@ -186,13 +227,9 @@ public class Graph<V, E> {
             throw new NoSuchElementException("The given child node doesn't exist in the map");
         }
         List<Edge<V, E>> edges = new ArrayList<>();
-        for (V parent: adjacencyList.keySet()) {
-            if (!parent.equals(node)) {
-                for (Edge<V, E> edge : adjacencyList.get(parent)) {
-                    if (edge.getChild().equals(node)) {
-                        edges.add(edge);
-                    }
-                }
+        for (Edge<V, E> edge : incomingEdges.get(node)) {
+            if (!edge.getParent().equals(node)) {
+                edges.add(edge);
             }
         }
 
@@ -209,10 +246,121 @@ public class Graph<V, E> {
      */
     public void removeEdge(Edge<V, E> edge) {
         checkRep();
-        adjacencyList.get(edge.getParent()).remove(edge);
+        if (adjacencyList.get(edge.getParent()).delete(edge)) {
+            incomingEdges.get(edge.getChild()).delete(edge);
+        }
         checkRep();
     }
 
+    /**
+     * A Builder collects the nodes and edges of a Graph so that they can be loaded all at once.
+     * Nodes and edges that have already been added are ignored, as they are by
+     * {@link Graph#addNode} and {@link Graph#addEdge}.
+     * @param <V> the type of nodes.
+     * @param <E> the type of the label of edges.
+     */
+    public static class Builder<V, E> {
+        // The edges leaving each node, to find duplicates, and every edge in the order it was
+        // added, so that the Graph is filled in the same order as a Graph whose nodes and
+        // edges were added one at a time.
+        private final Map<V, Set<Edge<V, E>>> adjacencyList = new LinkedHashMap<>();
+        private final List<Edge<V, E>> added = new ArrayList<>();
+        private boolean debug = false;
+
+        private Builder() {
+        }
+
+        /**
+         * Add a node to the graph being built.
+         * @param node the new node
+         * @spec.requires node != null
+         * @return this Builder
+         */
+        public Builder<V, E> addNode(V node) {
+            adjacencyList.computeIfAbsent(node, n -> new LinkedHashSet<>());
+            return this;
+        }
+
+        /**
+         * Add several nodes to the graph being built.
+         * @param nodes the new nodes
+         * @spec.requires nodes != null &amp;&amp; no node in nodes is null
+         * @return this Builder
+         */
+        public Builder<V, E> addNodes(Collection<? extends V> nodes) {
+            for (V node : nodes) {
+                addNode(node);
+            }
+            return this;
+        }
+
+        /**
+         * Add an edge to the graph being built.
+         * @param edge the new edge
+         * @spec.requires edge != null
+         * @throws NoSuchElementException if the parent or child of the edge hasn't been added
+         * @return this Builder
+         */
+        public Builder<V, E> addEdge(Edge<V, E> edge) {
+            if (!adjacencyList.containsKey(edge.getChild())) {
+                throw new NoSuchElementException("The given child node doesn't exist in the map");
+            }
+            Set<Edge<V, E>> edges = adjacencyList.get(edge.getParent());
+            if (edges == null) {
+                throw new NoSuchElementException("The given parent node doesn't exist in the map");
+            }
+            if (edges.add(edge)) {
+                added.add(edge);
+            }
+            return this;
+        }
+
+        /**
+         * Add several edges to the graph being built.
+         * @param edges the new edges
+         * @spec.requires edges != null &amp;&amp; no edge in edges is null
+         * @throws NoSuchElementException if the parent or child of an edge hasn't been added
+         * @return this Builder
+         */
+        public Builder<V, E> addEdges(Collection<? extends Edge<V, E>> edges) {
+            for (Edge<V, E> edge : edges) {
+                addEdge(edge);
+            }
+            return this;
+        }
+
+        /**
+         * Choose whether the built Graph checks its whole representation invariant around
+         * every operation, as a Graph made by {@link Graph#Graph()} does when
+         * {@link Graph#DEBUG} is set. It is off by default.
+         * @param debug whether to check the whole invariant on every operation
+         * @return this Builder
+         */
+        public Builder<V, E> debug(boolean debug) {
+            this.debug = debug;
+            return this;
+        }
+
+        /**
+         * Make a Graph of every node and edge added so far. The Builder can still be used
+         * afterwards; later additions do not affect the Graph.
+         * @return a new Graph with the nodes and edges of this Builder
+         */
+        public Graph<V, E> build() {
+            Map<V, Adjacency<V, E>> outgoing = new HashMap<>();
+            Map<V, Adjacency<V, E>> incoming = new HashMap<>();
+            for (V node : adjacencyList.keySet()) {
+                outgoing.put(node, new Adjacency<>(true));
+                incoming.put(node, new Adjacency<>(false));
+            }
+            for (Edge<V, E> edge : added) {
+                outgoing.get(edge.getParent()).insert(edge);
+                incoming.get(edge.getChild()).insert(edge);
+            }
+            return new Graph<>(outgoing, incoming, debug);
+        }
+    }
+
     /**
      * An Edge is an immutable directed, labeled edge, pointing from a source to a destination.
      * A typical Edge is a pair of nodes (node1, node2) with a label, representing
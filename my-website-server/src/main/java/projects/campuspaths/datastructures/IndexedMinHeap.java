@@ -0,0 +1,210 @@
+package projects.campuspaths.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An IndexedMinHeap is a mutable priority queue of int keys in [0, capacity) ordered by double
+ * priorities. Each key is in the heap at most once, and its priority can be lowered in place
+ * (decrease-key), so a shortest-path search never has to queue stale duplicates. The heap is
+ * d-ary with a fan-out of 4, which keeps it shallow and keeps the children of a slot in the
+ * same cache line.
+ */
+public final class IndexedMinHeap {
+    // RI:  0 <= size <= heap.length && heap.length == position.length == priority.length
+    //      position[heap[i]] == i for every 0 <= i < size, and position[k] == -1 for any other key
+    //      priority[heap[(i - 1) / ARITY]] <= priority[heap[i]] for every 0 < i < size
+    // AF(this) = the set of keys heap[0..size), each with priority priority[key].
+
+    private static final int ARITY = 4;
+
+    /**
+     * The keys in heap order.
+     */
+    private int[] heap;
+
+    /**
+     * The slot of each key in heap, or -1 if the key is not in the heap.
+     */
+    private int[] position;
+
+    /**
+     * The priority of each key in the heap.
+     */
+    private double[] priority;
+
+    /**
+     * The number of keys in the heap.
+     */
+    private int size;
+
+    /**
+     * Construct a new, empty heap.
+     * @param capacity one more than the largest key this heap must hold
+     * @spec.requires capacity &gt;= 0
+     * @spec.effects makes an empty heap for keys in [0, capacity)
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new double[capacity];
+        Arrays.fill(position, -1);
+        size = 0;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert 0 <= size && size <= heap.length : "size out of range";
+        assert heap.length == position.length && heap.length == priority.length : "mismatched arrays";
+        // The heap order is not re-checked here, and heap operations do not call checkRep:
+        // either would make every operation linear in the size of the heap.
+    }
+
+    /**
+     * Grows this heap so it can hold keys in [0, capacity).
+     * @param capacity one more than the largest key this heap must hold
+     * @spec.modifies this
+     * @spec.effects the capacity of this becomes at least {@code capacity}; the contents are unchanged
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= position.length) {
+            return;
+        }
+        int oldCapacity = position.length;
+        heap = Arrays.copyOf(heap, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, oldCapacity, capacity, -1);
+        checkRep();
+    }
+
+    /**
+     * Removes every key from this heap, in time proportional to the number of keys removed.
+     * @spec.modifies this
+     * @spec.effects this becomes empty
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return {@literal true} iff this heap contains no keys.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of keys in this heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param key the key to look for
+     * @spec.requires 0 &lt;= key &lt; capacity
+     * @return {@literal true} iff {@code key} is in this heap
+     */
+    public boolean contains(int key) {
+        return position[key] >= 0;
+    }
+
+    /**
+     * Adds a key to this heap, or lowers its priority if it is already present.
+     * @param key         the key to add
+     * @param newPriority the priority of the key
+     * @spec.requires 0 &lt;= key &lt; capacity &amp;&amp;
+     *                newPriority &lt;= the current priority of key, if key is in this heap
+     * @spec.modifies this
+     * @spec.effects key is in this heap with priority newPriority
+     */
+    public void insertOrDecrease(int key, double newPriority) {
+        int slot = position[key];
+        if (slot < 0) {
+            slot = size++;
+            heap[slot] = key;
+            position[key] = slot;
+        }
+        priority[key] = newPriority;
+        siftUp(slot);
+    }
+
+    /**
+     * @throws NoSuchElementException if this heap is empty
+     * @return the priority of the key with the lowest priority
+     */
+    public double minPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        return priority[heap[0]];
+    }
+
+    /**
+     * Removes the key with the lowest priority. Ties are broken arbitrarily.
+     * @spec.modifies this
+     * @throws NoSuchElementException if this heap is empty
+     * @return the removed key
+     */
+    public int removeMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int slot) {
+        int key = heap[slot];
+        double keyPriority = priority[key];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) / ARITY;
+            int parent = heap[parentSlot];
+            if (priority[parent] <= keyPriority) {
+                break;
+            }
+            heap[slot] = parent;
+            position[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = key;
+        position[key] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int key = heap[slot];
+        double keyPriority = priority[key];
+        while (true) {
+            int firstChild = slot * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int minChild = firstChild;
+            int lastChild = Math.min(firstChild + ARITY, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (priority[heap[child]] < priority[heap[minChild]]) {
+                    minChild = child;
+                }
+            }
+            if (priority[heap[minChild]] >= keyPriority) {
+                break;
+            }
+            heap[slot] = heap[minChild];
+            position[heap[slot]] = slot;
+            slot = minChild;
+        }
+        heap[slot] = key;
+        position[key] = slot;
+    }
+}
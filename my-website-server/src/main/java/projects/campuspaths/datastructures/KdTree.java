@@ -0,0 +1,229 @@
+package projects.campuspaths.datastructures;
+
+import java.util.List;
+
+/**
+ * A KdTree is an immutable spatial index over a list of Points, answering nearest-neighbor
+ * queries in logarithmic expected time instead of by scanning every point. Points are named
+ * by their index in the list the tree was built from.
+ * <p>
+ * The tree is stored implicitly in one array: the points in the index range [lo, hi) form a
+ * subtree whose root is the median point at (lo + hi) / 2 along the subtree's split axis,
+ * with the points before it on one side of the split and the points after it on the other.
+ * Split axes alternate between x and y with the depth of the subtree.
+ */
+public final class KdTree {
+    // RI:  xs, ys and order are not null && xs.length == ys.length == order.length
+    //      order is a permutation of [0, order.length)
+    //      for the subtree on [lo, hi) at depth d, with mid = (lo + hi) >>> 1 and axis d % 2,
+    //          every point in [lo, mid) is <= order[mid] along axis, and every point in
+    //          (mid, hi) is >= order[mid] along axis
+    // AF(this) = the points (xs[i], ys[i]) for 0 <= i < xs.length
+
+    private final double[] xs;
+    private final double[] ys;
+
+    /**
+     * The indices of the points, in tree order.
+     */
+    private final int[] order;
+
+    /**
+     * Builds a tree over the given points.
+     * @param points the points to index
+     * @spec.requires points != null &amp;&amp; no point in points is null
+     */
+    public KdTree(List<Point> points) {
+        int n = points.size();
+        xs = new double[n];
+        ys = new double[n];
+        order = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = points.get(i).getX();
+            ys[i] = points.get(i).getY();
+            order[i] = i;
+        }
+        build(0, n, 0);
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi, mid, depth % 2 == 0 ? xs : ys);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Reorders order[lo, hi) so that the point at k is the one that would be there if the
+     * range were sorted by coord, with no greater point before it and no lesser one after it.
+     */
+    private void select(int lo, int hi, int k, double[] coord) {
+        int left = lo;
+        int right = hi - 1;
+        while (left < right) {
+            double pivot = coord[order[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coord[order[i]] < pivot) {
+                    i++;
+                }
+                while (coord[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of points in this tree.
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Finds the point closest to (x, y).
+     * @param x the x coordinate to search around
+     * @param y the y coordinate to search around
+     * @return the index of the point closest to (x, y), breaking ties arbitrarily, or -1 if
+     *         this tree has no points
+     */
+    public int nearest(double x, double y) {
+        int[] nearest = nearest(x, y, 1);
+        return nearest.length == 0 ? -1 : nearest[0];
+    }
+
+    /**
+     * Finds the k points closest to (x, y).
+     * @param x the x coordinate to search around
+     * @param y the y coordinate to search around
+     * @param k the number of points to find
+     * @spec.requires k &gt;= 0
+     * @return the indices of the min(k, size()) points closest to (x, y), closest first,
+     *         breaking ties arbitrarily
+     */
+    public int[] nearest(double x, double y, int k) {
+        Candidates candidates = new Candidates(Math.min(k, order.length));
+        if (candidates.capacity > 0) {
+            search(0, order.length, 0, x, y, candidates);
+        }
+        return candidates.sorted();
+    }
+
+    private void search(int lo, int hi, int depth, double x, double y, Candidates candidates) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int point = order[mid];
+        double dx = xs[point] - x;
+        double dy = ys[point] - y;
+        candidates.offer(point, dx * dx + dy * dy);
+
+        double split = depth % 2 == 0 ? dx : dy; // from the query to the splitting line
+        // Search the side the query is on first, so that the other side can usually be pruned.
+        if (split > 0) {
+            search(lo, mid, depth + 1, x, y, candidates);
+            if (split * split < candidates.worst()) {
+                search(mid + 1, hi, depth + 1, x, y, candidates);
+            }
+        } else {
+            search(mid + 1, hi, depth + 1, x, y, candidates);
+            if (split * split < candidates.worst()) {
+                search(lo, mid, depth + 1, x, y, candidates);
+            }
+        }
+    }
+
+    /**
+     * The closest points found so far by a search, in a binary max-heap on their squared
+     * distances so that the farthest can be replaced.
+     */
+    private static final class Candidates {
+        private final int capacity;
+        private final int[] points;
+        private final double[] distances;
+        private int size;
+
+        private Candidates(int capacity) {
+            this.capacity = capacity;
+            this.points = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        /**
+         * @return the squared distance a point must beat to become a candidate.
+         */
+        private double worst() {
+            return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        private void offer(int point, double distance) {
+            if (size < capacity) {
+                int i = size++;
+                while (i > 0 && distances[(i - 1) / 2] < distance) {
+                    points[i] = points[(i - 1) / 2];
+                    distances[i] = distances[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                points[i] = point;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                replaceRoot(point, distance);
+            }
+        }
+
+        /**
+         * Replaces the farthest candidate with the given one.
+         */
+        private void replaceRoot(int point, double distance) {
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                points[i] = points[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            points[i] = point;
+            distances[i] = distance;
+        }
+
+        /**
+         * Empties the heap, farthest candidate first.
+         * @return the candidates, closest first.
+         */
+        private int[] sorted() {
+            int[] result = new int[size];
+            while (size > 0) {
+                result[size - 1] = points[0];
+                size--;
+                replaceRoot(points[size], distances[size]);
+            }
+            return result;
+        }
+    }
+}
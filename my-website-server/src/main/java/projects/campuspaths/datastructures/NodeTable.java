@@ -0,0 +1,151 @@
+package projects.campuspaths.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A NodeTable interns the locations of a map into dense int ids, so that a map can be loaded
+ * and routed over as ints and only turned back into Points for output. Locations are
+ * identified by their coordinates rounded to a fixed precision, packed into one long, and
+ * looked up in an open-addressing hash table of primitive longs, so interning neither boxes
+ * nor allocates a Point for a location that was seen before.
+ */
+public final class NodeTable {
+    // RI:  points, keys and values are not null && keys.length == values.length is a power of 2
+    //      points.size() <= keys.length * MAX_LOAD
+    //      for every id i, keys holds key(points.get(i)) with value i, reachable by linear
+    //          probing from its hash, and keys holds no other key besides EMPTY
+    // AF(this) = the locations points.get(0), points.get(1), ..., with ids 0, 1, ...
+
+    /**
+     * The number of units per unit of the map's coordinates. Coordinates that round to the
+     * same unit are the same location.
+     */
+    public static final double PRECISION = 1e4;
+
+    private static final double MAX_LOAD = 0.5;
+
+    /**
+     * The key of no location, marking an empty slot. It would be the key of (-2^31, 0) in units,
+     * which is out of the range of coordinates a NodeTable accepts.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final List<Point> points = new ArrayList<>();
+    private long[] keys;
+    private int[] values;
+
+    /**
+     * Creates an empty table.
+     */
+    public NodeTable() {
+        keys = new long[16];
+        values = new int[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Returns the id of the given location, giving it the next unused id if it is new.
+     * @param x the x coordinate of the location
+     * @param y the y coordinate of the location
+     * @throws IllegalArgumentException if either coordinate is not finite or is too large to
+     *                                  be represented at {@link #PRECISION}
+     * @return the id of (x, y)
+     */
+    public int intern(double x, double y) {
+        long key = key(x, y);
+        int slot = slot(key);
+        if (keys[slot] != EMPTY) {
+            return values[slot];
+        }
+        int id = points.size();
+        points.add(new Point(x, y));
+        keys[slot] = key;
+        values[slot] = id;
+        if (points.size() > keys.length * MAX_LOAD) {
+            grow();
+        }
+        return id;
+    }
+
+    /**
+     * @param x the x coordinate of the location
+     * @param y the y coordinate of the location
+     * @throws IllegalArgumentException if either coordinate is not finite or is too large to
+     *                                  be represented at {@link #PRECISION}
+     * @return the id of (x, y), or -1 if it is not in this table
+     */
+    public int find(double x, double y) {
+        int slot = slot(key(x, y));
+        return keys[slot] == EMPTY ? -1 : values[slot];
+    }
+
+    /**
+     * @return the number of locations in this table.
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * @param id the id of a location
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the location with the given id, as first interned
+     */
+    public Point point(int id) {
+        return points.get(id);
+    }
+
+    /**
+     * @return an unmodifiable view of the locations in this table, in order of id.
+     */
+    public List<Point> points() {
+        return Collections.unmodifiableList(points);
+    }
+
+    /**
+     * Packs a location, rounded to {@link #PRECISION}, into a long.
+     */
+    private static long key(double x, double y) {
+        return ((long) units(x) << 32) | (units(y) & 0xffffffffL);
+    }
+
+    private static int units(double coordinate) {
+        double units = Math.rint(coordinate * PRECISION);
+        if (!(Math.abs(units) < Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Coordinate out of range: " + coordinate);
+        }
+        return (int) units;
+    }
+
+    /**
+     * @return the slot holding key, or the empty slot where it would be inserted.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        // Spread the bits of both coordinates over the low bits used for the slot.
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash >>> 32) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
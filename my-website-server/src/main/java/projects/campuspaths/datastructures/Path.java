@@ -11,13 +11,14 @@
 
 package projects.campuspaths.datastructures;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  * This represents an immutable path between two nodes, particularly Path#getStart() and Path#getEnd().
  *  Also contains a cached version of the total cost along this path, for efficient repeated access.
+ *  A path shares all but its last segment with the path it was extended from, so extending a
+ *  path takes constant time no matter how long it is.
  *
  * @param <V> The type of nodes in the path.
  */
@@ -25,9 +26,9 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
 
     // AF(this) =
     //      first node in the path => start
-    //      each "step" along the path between nodes => elements of list path, where
-    //          path.get(0) is the first step from the start point to an intermediate node, and
-    //          path.get(path.size() - 1) is the final step from an intermediate node to the end
+    //      each "step" along the path between nodes => the segments of prefix, followed by last,
+    //          which path lists in order from the first step from the start point to an
+    //          intermediate node to the final step from an intermediate node to the end
     //      total cost along the path => cost
     //      the destination node in this path, opposite the start node => getEnd()
 
@@ -35,8 +36,11 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
     //      cost >= 0 &&
     //      Double.isFinite(cost) &&
     //      start != null &&
-    //      path != null &&
-    //      path does not contain null elements
+    //      (prefix == null) == (last == null) &&
+    //      if prefix == null, size == 0 and listHash == 1, and otherwise
+    //          start == prefix.start && last.start equals prefix.getEnd() &&
+    //          size == prefix.size + 1 && listHash == 31 * prefix.listHash + last.hashCode()
+    //      segments is null or holds the size segments of this path in order
 
     /**
      * The total cost along all the segments in this path.
@@ -49,9 +53,30 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
     private V start;
 
     /**
-     * The ordered sequence of segments representing a path between nodes.
+     * The path this one extends, or null if this path has no segments.
      */
-    private List<Segment> path;
+    private final transient Path<V> prefix;
+
+    /**
+     * The last segment of this path, or null if this path has no segments.
+     */
+    private final transient Segment last;
+
+    /**
+     * The number of segments in this path.
+     */
+    private final transient int size;
+
+    /**
+     * The hash code of the list of segments of this path, as defined by List#hashCode().
+     */
+    private final transient int listHash;
+
+    /**
+     * The segments of this path, in order, copied out of the chain of prefixes the first time
+     * they are needed.
+     */
+    private transient volatile Segment[] segments;
 
     /**
      * Creates a new, empty path containing a start node. Essentially this represents a path
@@ -62,7 +87,23 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
     public Path(V start) {
         this.start = start;
         this.cost = 0;
-        this.path = new ArrayList<>();
+        this.prefix = null;
+        this.last = null;
+        this.size = 0;
+        this.listHash = 1;
+        checkRep();
+    }
+
+    /**
+     * Creates the path that follows prefix and then the given segment.
+     */
+    private Path(Path<V> prefix, Segment last) {
+        this.start = prefix.start;
+        this.cost = prefix.cost + last.getCost();
+        this.prefix = prefix;
+        this.last = last;
+        this.size = prefix.size + 1;
+        this.listHash = 31 * prefix.listHash + last.hashCode();
         checkRep();
     }
 
@@ -79,16 +120,7 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
      */
     public Path<V> extend(V newEnd, double segmentCost) {
         checkRep();
-        //
-        Path<V> extendedPath = new Path<>(start);
-        extendedPath.path.addAll(this.path);
-        extendedPath.path.add(new Segment(this.getEnd(), newEnd, segmentCost));
-        extendedPath.cost = this.cost + segmentCost;
-        //
-        extendedPath.checkRep();
-        checkRep();
-        //
-        return extendedPath;
+        return new Path<>(this, new Segment(this.getEnd(), newEnd, segmentCost));
     }
 
     /**
@@ -110,10 +142,10 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
      * contains no segments (i.e. this path is from the start node to itself).
      */
     public V getEnd() {
-        if(path.size() == 0) {
+        if(last == null) {
             return start;
         }
-        return path.get(path.size() - 1).getEnd();
+        return last.getEnd();
     }
 
     /**
@@ -128,7 +160,7 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
         // Create a wrapping iterator to guarantee exceptional behavior on Iterator#remove.
         return new Iterator<>() {
 
-            private Iterator<Segment> backingIterator = path.iterator();
+            private Iterator<Segment> backingIterator = Arrays.asList(segments()).iterator();
 
             @Override
             public boolean hasNext() {
@@ -147,18 +179,37 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
         };
     }
 
+    /**
+     * Returns the segments of this path, in order.
+     */
+    private Segment[] segments() {
+        Segment[] result = segments;
+        if(result == null) {
+            @SuppressWarnings("unchecked")
+            Segment[] copy = (Segment[]) new Path<?>.Segment[size];
+            Path<V> node = this;
+            for(int i = size - 1; i >= 0; i--) {
+                copy[i] = node.last;
+                node = node.prefix;
+            }
+            result = copy;
+            segments = result;
+        }
+        return result;
+    }
+
     /**
      * Ensures that the representation invariant has not been violated. Returns normally if
-     * there is no violation.
+     * there is no violation. Only the last segment is checked, since the rest of the path is
+     * shared with a prefix that was checked when it was made.
      */
     private void checkRep() {
         assert cost >= 0;
         assert Double.isFinite(cost);
         assert start != null;
-        assert path != null;
-        for(Segment segment : path) {
-            assert segment != null;
-        }
+        assert (prefix == null) == (last == null);
+        assert prefix == null || (prefix.start == start && last.getStart().equals(prefix.getEnd())
+                                  && size == prefix.size + 1);
     }
 
     /**
@@ -178,30 +229,35 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
             return false;
         }
         Path<?> other = (Path<?>) obj;
-        if(this.path.size() != other.path.size()) {
+        if(this.size != other.size || this.listHash != other.listHash) {
             return false;
         }
-        if(this.path.size() == 0 && !this.start.equals(other.start)) {
-            return false;
+        if(this.size == 0) {
+            return this.start.equals(other.start);
         }
-        for(int i = 0; i < this.path.size(); i++) {
-            if(!this.path.get(i).equals(other.path.get(i))) {
+        Path<?> a = this;
+        Path<?> b = other;
+        // Walk back from the ends until the two paths share the rest of their segments.
+        while(a != b && a.last != null) {
+            if(!a.last.equals(b.last)) {
                 return false;
             }
+            a = a.prefix;
+            b = b.prefix;
         }
         return true;
     }
 
     @Override
     public int hashCode() {
-        return (31 * start.hashCode()) + path.hashCode();
+        return (31 * start.hashCode()) + listHash;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(start.toString());
-        for(Segment segment : path) {
+        for(Segment segment : segments()) {
             sb.append(" =(");
             sb.append(String.format("%.3f", segment.getCost()));
             sb.append(")=> ");
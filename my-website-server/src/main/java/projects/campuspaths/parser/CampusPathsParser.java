@@ -12,9 +12,14 @@
 package projects.campuspaths.parser;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,6 +29,14 @@ import java.util.stream.Collectors;
  */
 public class CampusPathsParser {
 
+    /**
+     * Exact powers of ten, up to the largest that a double holds exactly.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     /**
      * Parses the campus buildings file (in src/main/resources/data/) and
      * returns a list of objects containing all the data in that file.
@@ -37,10 +50,10 @@ public class CampusPathsParser {
         List<CampusBuilding> buildings = new ArrayList<>();
         List<String> lines = readLines(file);
         //
-        for (String line : lines) {
-            String[] fields = line.split(",");
+        for (int i = 0; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(",");
             if (fields.length != 4) {
-                throw new ParserException("Wrong number of fields in line.");
+                throw new ParserException(file + ":" + (i + 1) + ": Wrong number of fields in line.");
             }
             String shortName = fields[0];
             String longName = fields[1];
@@ -49,7 +62,7 @@ public class CampusPathsParser {
                 x = Double.parseDouble(fields[2]);
                 y = Double.parseDouble(fields[3]);
             } catch (NumberFormatException e) {
-                throw new ParserException("Cannot parse x/y coordinates as numbers", e);
+                throw new ParserException(file + ":" + (i + 1) + ": Cannot parse x/y coordinates as numbers", e);
             }
             //
             buildings.add(new CampusBuilding(shortName, longName, x, y));
@@ -66,31 +79,199 @@ public class CampusPathsParser {
      * @return A {@link List} of {@link CampusPath} objects, one for each
      * line in the parsed file, containing the data contained within that line.
      * @throws ParserException if the file cannot be found or parsed as expected
+     * @see #parseCampusPaths(String, PathHandler)
      */
     public static List<CampusPath> parseCampusPaths(String file) {
         List<CampusPath> paths = new ArrayList<>();
-        List<String> lines = readLines(file);
-        //
-        for (String line : lines) {
-            String[] fields = line.split(",");
-            if (fields.length != 5) {
-                throw new ParserException("Wrong number of fields in line");
+        parseCampusPaths(file, (x1, y1, x2, y2, distance) -> paths.add(new CampusPath(x1, y1, x2, y2, distance)));
+        return paths;
+    }
+
+    /**
+     * Parses the campus paths file (in src/main/resources/data/), handing
+     * the data in each line to the given handler as it is read, without
+     * keeping the lines or creating an object per line.
+     *
+     * @param file    The simple filename of a campus paths file to parse.
+     * @param handler Receives the data of each line, in order.
+     * @throws ParserException if the file cannot be found or parsed as expected
+     */
+    public static void parseCampusPaths(String file, PathHandler handler) {
+        try (InputStream stream = openResource(file)) {
+            parseCampusPaths(file, stream, handler);
+        } catch (IOException e) {
+            throw new ParserException("Cannot read file: " + file, e);
+        }
+    }
+
+    /**
+     * Parses campus paths data from the given stream, in the format of the
+     * campus paths file, handing the data in each line to the given handler
+     * as it is read.
+     * <p>
+     * The bytes are scanned in place: lines are found in a buffer, split at
+     * commas, and their numbers parsed straight from the bytes. Numbers in
+     * plain decimal or scientific notation with at most 15 significant
+     * digits, as the campus files have, are converted with a single exact
+     * multiplication or division, which rounds correctly; any other number
+     * falls back to {@link Double#parseDouble(String)}, so that every input
+     * parses to the same value as before.
+     *
+     * @param name    The name of the data, for error messages.
+     * @param stream  The data to parse. It is not closed.
+     * @param handler Receives the data of each line, in order.
+     * @throws ParserException if the data cannot be parsed as expected
+     * @throws IOException     if the stream cannot be read
+     */
+    public static void parseCampusPaths(String name, InputStream stream, PathHandler handler) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        double[] fields = new double[5];
+        int length = 0;
+        int line = 0;
+        while (true) {
+            int read = stream.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
             }
-            double x1, x2, y1, y2, distance;
-            try {
-                x1 = Double.parseDouble(fields[0]);
-                y1 = Double.parseDouble(fields[1]);
-                x2 = Double.parseDouble(fields[2]);
-                y2 = Double.parseDouble(fields[3]);
-                distance = Double.parseDouble(fields[4]);
-            } catch (NumberFormatException e) {
-                throw new ParserException("Cannot parse x/y coordinates as numbers", e);
+            length += read;
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    parsePathLine(name, ++line, buffer, start, i, fields);
+                    handler.handle(fields[0], fields[1], fields[2], fields[3], fields[4]);
+                    start = i + 1;
+                }
+            }
+            // Keep the unfinished last line, making room for a line longer than the buffer.
+            length -= start;
+            System.arraycopy(buffer, start, buffer, 0, length);
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
             }
-            //
-            paths.add(new CampusPath(x1, y1, x2, y2, distance));
         }
-        //
-        return paths;
+        if (length > 0) {
+            parsePathLine(name, ++line, buffer, 0, length, fields);
+            handler.handle(fields[0], fields[1], fields[2], fields[3], fields[4]);
+        }
+    }
+
+    /**
+     * Parses the line in bytes[start, end) into fields, as split(",") would
+     * split it, dropping any trailing empty fields.
+     */
+    private static void parsePathLine(String name, int line, byte[] bytes, int start, int end, double[] fields) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        while (end > start && bytes[end - 1] == ',') {
+            end--;
+        }
+        int field = 0;
+        int from = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || bytes[i] == ',') {
+                if (field == fields.length) {
+                    throw new ParserException(name + ":" + line + ": Wrong number of fields in line");
+                }
+                try {
+                    fields[field++] = parseDouble(bytes, from, i);
+                } catch (NumberFormatException e) {
+                    throw new ParserException(name + ":" + line + ": Cannot parse x/y coordinates as numbers", e);
+                }
+                from = i + 1;
+            }
+        }
+        if (field != fields.length) {
+            throw new ParserException(name + ":" + line + ": Wrong number of fields in line");
+        }
+    }
+
+    /**
+     * Parses the ASCII number in bytes[from, to) to the same value as
+     * {@link Double#parseDouble(String)} would.
+     *
+     * @throws NumberFormatException if it is not a number
+     */
+    static double parseDouble(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        for (; i < to && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+            anyDigits = true;
+            if (mantissa != 0 || bytes[i] != '0') {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                digits++;
+            }
+            if (digits > 15) {
+                return parseSlowly(bytes, from, to);
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            for (i++; i < to && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                anyDigits = true;
+                if (mantissa != 0 || bytes[i] != '0') {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    digits++;
+                }
+                exponent--;
+                if (digits > 15) {
+                    return parseSlowly(bytes, from, to);
+                }
+            }
+        }
+        if (anyDigits && i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < to && (bytes[j] == '-' || bytes[j] == '+')) {
+                negativeExponent = bytes[j] == '-';
+                j++;
+            }
+            int value = 0;
+            int start = j;
+            for (; j < to && bytes[j] >= '0' && bytes[j] <= '9' && value < 1000; j++) {
+                value = value * 10 + (bytes[j] - '0');
+            }
+            if (j == start) {
+                return parseSlowly(bytes, from, to);
+            }
+            exponent += negativeExponent ? -value : value;
+            i = j;
+        }
+        // Anything else, such as whitespace, "NaN", hex or a type suffix, is left to the JDK.
+        if (!anyDigits || i != to || exponent < -22 || exponent > 22) {
+            return parseSlowly(bytes, from, to);
+        }
+        // The mantissa has at most 15 digits, so it and the power of ten are exact doubles,
+        // and one correctly rounded operation gives the correctly rounded result.
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private static double parseSlowly(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Receives the data of the lines of a campus paths file as it is parsed.
+     */
+    public interface PathHandler {
+        /**
+         * Handles one line of a campus paths file.
+         *
+         * @param x1       The x coordinate of the start of the path segment.
+         * @param y1       The y coordinate of the start of the path segment.
+         * @param x2       The x coordinate of the end of the path segment.
+         * @param y2       The y coordinate of the end of the path segment.
+         * @param distance The length of the path segment.
+         */
+        void handle(double x1, double y1, double x2, double y2, double distance);
     }
 
     /**
@@ -102,12 +283,64 @@ public class CampusPathsParser {
      * @return A new {@link List<String>} containing all lines in the file.
      */
     private static List<String> readLines(String filename) {
+        InputStream stream = openResource(filename);
+        return new BufferedReader(new InputStreamReader(stream)).lines().collect(Collectors.toList());
+    }
+
+    /**
+     * Computes a SHA-256 digest of the contents of the given data files, in order. Data derived
+     * from the files can be stored under this digest and reused for as long as it matches.
+     *
+     * @param filenames The files to digest.
+     * @throws ParserException if a file doesn't exist, has an invalid name, or can't be read
+     * @return The digest of the names and contents of all the files.
+     */
+    public static byte[] digest(String... filenames) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[8192];
+        for (String filename : filenames) {
+            digest.update(filename.getBytes(StandardCharsets.UTF_8));
+            try (InputStream stream = openResource(filename)) {
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new ParserException("Cannot read file: " + filename, e);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @param filename The file to look for, relative to the data/ folder in this parser's
+     *                 classpath.
+     * @return Whether the file exists.
+     */
+    public static boolean exists(String filename) {
+        return CampusPathsParser.class.getResource("/CampuspathsData/" + filename) != null;
+    }
+
+    /**
+     * Opens the provided data file, which is located relative to the data/ folder in this
+     * parser's classpath.
+     *
+     * @param filename The file to open.
+     * @throws ParserException if the file doesn't exist or has an invalid name
+     * @return A stream of the contents of the file.
+     */
+    private static InputStream openResource(String filename) {
         // See MarvelParser.java (from hw-marvel) for an explanation of this code
         InputStream stream = CampusPathsParser.class.getResourceAsStream("/CampuspathsData/" + filename);
         if (stream == null) {
             throw new ParserException("No such file: " + filename);
         }
-        return new BufferedReader(new InputStreamReader(stream)).lines().collect(Collectors.toList());
+        return stream;
     }
 
     /**
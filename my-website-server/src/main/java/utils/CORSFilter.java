@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 import spark.Filter;
 import spark.Request;
 import spark.Response;
+import spark.Route;
 import spark.Spark;
 
 import java.util.HashMap;
@@ -66,10 +67,22 @@ public class CORSFilter {
         Filter filter = new Filter() {
             @Override
             public void handle(Request request, Response response) {
-                corsHeaders.forEach(response::header);
+                // Response#header adds another value each time, and browsers reject a response
+                // with two, so set them instead: the filter runs twice for most responses.
+                corsHeaders.forEach(response.raw()::setHeader);
             }
         };
+        // Responses streamed straight to the client are sent before afterAfter filters run,
+        // so add the headers up front too.
+        Spark.before(filter);
         Spark.afterAfter(filter); // Applies this filter even if there's a halt() or exception.
+        // Answer the preflight request browsers send before a cross-origin POST of Json.
+        Spark.options("/*", new Route() {
+            @Override
+            public Object handle(Request request, Response response) {
+                return "OK";
+            }
+        });
         //
         Logger logger = LoggerFactory.getLogger("MyReactApp Server");
         logger.info("Listening on: http://localhost:" + Spark.port());
@@ -0,0 +1,143 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chooses among the forms a response can take by the q-values of a request's Accept or
+ * Accept-Encoding header, as RFC 7231 section 5.3 describes. A form the header gives a q-value
+ * of 0 is refused, and among the forms it accepts, the one it gives the highest q-value is
+ * chosen, the server's own preference breaking ties. Malformed elements of a header are
+ * skipped.
+ */
+public final class ContentNegotiation {
+
+    private ContentNegotiation() {
+    }
+
+    /**
+     * Chooses the media type to send.
+     *
+     * @param accept  the value of the Accept header, or {@literal null} if there is none
+     * @param offered the media types the response can take, such as "application/json", in the
+     *                server's order of preference
+     * @return the offered type the header gives the highest q-value, the earliest of them on a
+     *         tie, or {@literal null} if it refuses them all. Without a header, every type is
+     *         acceptable, so this is the first one.
+     */
+    public static String mediaType(String accept, List<String> offered) {
+        List<Element> ranges = parse(accept);
+        String best = null;
+        double bestQuality = 0;
+        for (String type : offered) {
+            double quality = ranges == null ? 1 : mediaTypeQuality(ranges, type.toLowerCase(Locale.ROOT));
+            if (quality > bestQuality) {
+                best = type;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The q-value of a media type is that of the most specific range matching it: the type
+     * itself, then its type with any subtype, then any type at all. It is 0 if none matches.
+     */
+    private static double mediaTypeQuality(List<Element> ranges, String type) {
+        String anySubtype = type.substring(0, type.indexOf('/') + 1) + "*";
+        double quality = 0;
+        int specificity = -1;
+        for (Element range : ranges) {
+            int matched = range.value.equals(type) ? 2
+                    : range.value.equals(anySubtype) ? 1
+                    : range.value.equals("*/*") ? 0 : -1;
+            if (matched > specificity) {
+                specificity = matched;
+                quality = range.quality;
+            }
+        }
+        return quality;
+    }
+
+    /**
+     * Tests whether a content coding may be sent.
+     *
+     * @param acceptEncoding the value of the Accept-Encoding header, or {@literal null} if there
+     *                       is none
+     * @param coding         the content coding, such as "gzip"
+     * @return {@literal true} iff the header gives the coding, or failing that "*", a q-value
+     *         above 0. Without a header, no coding is assumed to be acceptable.
+     */
+    public static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        List<Element> codings = parse(acceptEncoding);
+        if (codings == null) {
+            return false;
+        }
+        double named = -1;
+        double any = 0;
+        for (Element element : codings) {
+            if (element.value.equals(coding.toLowerCase(Locale.ROOT))) {
+                named = Math.max(named, element.quality);
+            } else if (element.value.equals("*")) {
+                any = Math.max(any, element.quality);
+            }
+        }
+        return (named >= 0 ? named : any) > 0;
+    }
+
+    /**
+     * @return the elements of a header, each a lower-cased value with its q-value, 1 if it
+     *         has none, or {@literal null} if there is no header.
+     */
+    private static List<Element> parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        List<Element> elements = new ArrayList<>();
+        for (String part : header.split(",")) {
+            String[] fields = part.split(";");
+            String value = fields[0].trim().toLowerCase(Locale.ROOT);
+            if (value.isEmpty()) {
+                continue;
+            }
+            double quality = 1;
+            for (int i = 1; i < fields.length; i++) {
+                String parameter = fields[i].trim();
+                if (parameter.length() > 1 && Character.toLowerCase(parameter.charAt(0)) == 'q'
+                        && parameter.substring(1).trim().startsWith("=")) {
+                    quality = parseQuality(parameter.substring(parameter.indexOf('=') + 1).trim());
+                }
+            }
+            if (quality >= 0) {
+                elements.add(new Element(value, quality));
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * @return the q-value, a number from 0 to 1, or -1 if it is not one.
+     */
+    private static double parseQuality(String value) {
+        // Only plain decimals, so that "NaN", "1e0" and the like are not taken for numbers.
+        if (!value.matches("[0-9]+(\\.[0-9]*)?")) {
+            return -1;
+        }
+        double quality = Double.parseDouble(value);
+        return quality <= 1 ? quality : -1;
+    }
+
+    /**
+     * An element of a header: a media range or content coding, and its q-value.
+     */
+    private static final class Element {
+        private final String value;
+        private final double quality;
+
+        private Element(String value, double quality) {
+            this.value = value;
+            this.quality = quality;
+        }
+    }
+}
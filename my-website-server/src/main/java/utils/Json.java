@@ -0,0 +1,416 @@
+package utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import parser.Blog;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+import projects.campuspaths.parser.CampusBuilding;
+import spark.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * The Json serialization shared by all of the server's endpoints. The types every response is
+ * made of, {@link Path}, {@link Point}, {@link Blog} and {@link CampusBuilding}, are written by
+ * hand rather than by reflection, in exactly the form reflection gives them, and responses are
+ * encoded straight into the response's output stream through a buffer reused by each thread,
+ * without building the whole response as a String first.
+ */
+public final class Json {
+
+    /**
+     * The Gson instance to serialize and deserialize with. It is safe to use from many threads.
+     */
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Point.class, new PointAdapter().nullSafe())
+            .registerTypeAdapter(CampusBuilding.class, new CampusBuildingAdapter().nullSafe())
+            .registerTypeAdapter(Blog.class, new BlogAdapter().nullSafe())
+            .registerTypeAdapterFactory(new PathAdapterFactory())
+            .create();
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    // The buffer of each thread, taken by a writer while it is open.
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private Json() {
+    }
+
+    /**
+     * Sends the given value as the body of a response, in the Json format. The response's type
+     * is "application/json" unless it was already set.
+     *
+     * @param response the response to send the value in
+     * @param value    the value to send, which may be {@literal null}
+     * @return the empty string, for the route to return, since the body has been sent
+     * @throws IOException if the response cannot be written
+     */
+    public static String send(Response response, Object value) throws IOException {
+        if (response.type() == null) {
+            response.type("application/json");
+        }
+        try (Writer writer = writer(response.raw().getOutputStream())) {
+            GSON.toJson(value, writer);
+        }
+        return "";
+    }
+
+    /**
+     * Returns a writer that encodes what is written to it as UTF-8 into a buffer of the calling
+     * thread's, and writes the buffer to the given stream whenever it fills up or the writer is
+     * flushed. Closing the writer flushes it and gives the buffer back, but leaves the stream
+     * open.
+     *
+     * @param out the stream to write to
+     * @return the writer
+     */
+    public static Writer writer(OutputStream out) {
+        return new PooledUtf8Writer(out);
+    }
+
+    /**
+     * A Writer of UTF-8 into a pooled buffer. Unpaired surrogates are written as '?', as
+     * {@link String#getBytes} does.
+     */
+    private static final class PooledUtf8Writer extends Writer {
+        private final OutputStream out;
+        private byte[] buffer;
+        private int position;
+        // A high surrogate waiting for the low surrogate that follows it, or 0.
+        private char highSurrogate;
+
+        private PooledUtf8Writer(OutputStream out) {
+            this.out = out;
+            // A writer opened while another is open on the same thread gets a buffer of its own.
+            this.buffer = BUFFERS.get();
+            BUFFERS.remove();
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            writeChar((char) c);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                writeChar(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                writeChar(string.charAt(i));
+            }
+        }
+
+        private void writeChar(char c) throws IOException {
+            if (buffer.length - position < 4) {
+                drain();
+            }
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                    return;
+                }
+                buffer[position++] = '?';
+                if (buffer.length - position < 4) {
+                    drain();
+                }
+            }
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (buffer == null) {
+                return;
+            }
+            try {
+                if (highSurrogate != 0) {
+                    highSurrogate = 0;
+                    buffer[position++] = '?';
+                }
+                flush();
+            } finally {
+                BUFFERS.set(buffer);
+                buffer = null;
+            }
+        }
+    }
+
+    /**
+     * Writes a Point as {"x": ..., "y": ...}.
+     */
+    private static final class PointAdapter extends TypeAdapter<Point> {
+        @Override
+        public void write(JsonWriter out, Point point) throws IOException {
+            out.beginObject();
+            out.name("x").value(point.getX());
+            out.name("y").value(point.getY());
+            out.endObject();
+        }
+
+        @Override
+        public Point read(JsonReader in) throws IOException {
+            double x = 0;
+            double y = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "x":
+                        x = in.nextDouble();
+                        break;
+                    case "y":
+                        y = in.nextDouble();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Point(x, y);
+        }
+    }
+
+    /**
+     * Writes a CampusBuilding as {"shortName": ..., "longName": ..., "x": ..., "y": ...}.
+     */
+    private static final class CampusBuildingAdapter extends TypeAdapter<CampusBuilding> {
+        @Override
+        public void write(JsonWriter out, CampusBuilding building) throws IOException {
+            out.beginObject();
+            out.name("shortName").value(building.getShortName());
+            out.name("longName").value(building.getLongName());
+            out.name("x").value(building.getX());
+            out.name("y").value(building.getY());
+            out.endObject();
+        }
+
+        @Override
+        public CampusBuilding read(JsonReader in) throws IOException {
+            String shortName = null;
+            String longName = null;
+            double x = 0;
+            double y = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "shortName":
+                        shortName = nextString(in);
+                        break;
+                    case "longName":
+                        longName = nextString(in);
+                        break;
+                    case "x":
+                        x = in.nextDouble();
+                        break;
+                    case "y":
+                        y = in.nextDouble();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new CampusBuilding(shortName, longName, x, y);
+        }
+    }
+
+    /**
+     * Writes a Blog as {"title": ..., "content": ..., "author": ..., "date": ...}.
+     */
+    private static final class BlogAdapter extends TypeAdapter<Blog> {
+        @Override
+        public void write(JsonWriter out, Blog blog) throws IOException {
+            out.beginObject();
+            out.name("title").value(blog.getTitle());
+            out.name("content").value(blog.getContent());
+            out.name("author").value(blog.getAuthor());
+            out.name("date").value(blog.getDate());
+            out.endObject();
+        }
+
+        @Override
+        public Blog read(JsonReader in) throws IOException {
+            String title = null;
+            String content = null;
+            String author = null;
+            String date = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "title":
+                        title = nextString(in);
+                        break;
+                    case "content":
+                        content = nextString(in);
+                        break;
+                    case "author":
+                        author = nextString(in);
+                        break;
+                    case "date":
+                        date = nextString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Blog(title, content, author, date);
+        }
+    }
+
+    /**
+     * Makes the adapters of Paths, which write a Path as {"cost": ..., "start": ..., "path":
+     * [{"start": ..., "end": ..., "cost": ...}, ...]}, with each node written by the adapter
+     * of the Path's node type.
+     */
+    private static final class PathAdapterFactory implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != Path.class) {
+                return null;
+            }
+            Type nodeType = Object.class;
+            if (type.getType() instanceof ParameterizedType) {
+                nodeType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+            }
+            @SuppressWarnings("unchecked")
+            TypeAdapter<T> adapter = (TypeAdapter<T>) new PathAdapter<>(gson.getAdapter(TypeToken.get(nodeType)));
+            return adapter.nullSafe();
+        }
+    }
+
+    private static final class PathAdapter<V> extends TypeAdapter<Path<V>> {
+        private final TypeAdapter<V> nodes;
+
+        private PathAdapter(TypeAdapter<V> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public void write(JsonWriter out, Path<V> path) throws IOException {
+            out.beginObject();
+            out.name("cost").value(path.getCost());
+            out.name("start");
+            nodes.write(out, path.getStart());
+            out.name("path").beginArray();
+            for (Path<V>.Segment segment : path) {
+                out.beginObject();
+                out.name("start");
+                nodes.write(out, segment.getStart());
+                out.name("end");
+                nodes.write(out, segment.getEnd());
+                out.name("cost").value(segment.getCost());
+                out.endObject();
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public Path<V> read(JsonReader in) throws IOException {
+            // The path is rebuilt from its start and segments; its cost is their sum.
+            Path<V> path = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "start":
+                        V start = nodes.read(in);
+                        if (path == null) {
+                            path = new Path<>(start);
+                        }
+                        break;
+                    case "path":
+                        if (path == null) {
+                            throw new IOException("a path's start must come before its segments");
+                        }
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            path = readSegment(in, path);
+                        }
+                        in.endArray();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return path;
+        }
+
+        /**
+         * Reads a segment and returns the path extended by it.
+         */
+        private Path<V> readSegment(JsonReader in, Path<V> path) throws IOException {
+            V end = null;
+            double cost = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "end":
+                        end = nodes.read(in);
+                        break;
+                    case "cost":
+                        cost = in.nextDouble();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return path.extend(end, cost);
+        }
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
@@ -0,0 +1,214 @@
+package utils;
+
+import spark.Request;
+import spark.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A ResponseCache keeps the Json bodies of responses that change only when the data behind
+ * them does, already serialized and gzipped, and tagged with an ETag derived from their
+ * contents. Each body is kept under a key, along with the version of the data it was made
+ * from; it is made again only when it is asked for with another version.
+ * <p>
+ * Requests whose If-None-Match header holds the body's ETag are answered with 304 Not
+ * Modified and no body, and requests whose Accept-Encoding header gives gzip a q-value above 0
+ * get the gzipped body. It is safe to use from many threads at once.
+ */
+public final class ResponseCache {
+
+    /**
+     * Makes the value to send in the Json format.
+     */
+    public interface Source {
+        /**
+         * @return the value to send
+         * @throws Exception if the value cannot be made
+         */
+        Object get() throws Exception;
+    }
+
+    private final ConcurrentHashMap<String, Body> bodies = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    /**
+     * Sends the body kept under the given key if it was made from the given version of the
+     * data, or else makes it from source and keeps it.
+     *
+     * @param request  the request to answer
+     * @param response the response to send the body in
+     * @param key      the key of the body, which must name the endpoint and anything else it
+     *                 depends on
+     * @param version  the version of the data the body is made from, compared with
+     *                 {@link Object#equals}; it should be small, as it is kept with the body
+     * @param source   makes the value to send, if the body must be made
+     * @return the empty string, for the route to return, since the response has been sent
+     * @throws Exception if source throws one, or the response cannot be written
+     */
+    public String send(Request request, Response response, String key, Object version, Source source)
+            throws Exception {
+        Reply reply = reply(request.headers("Accept-Encoding"), request.headers("If-None-Match"), key, version,
+                source);
+        response.type("application/json");
+        for (Map.Entry<String, String> header : reply.headers.entrySet()) {
+            response.header(header.getKey(), header.getValue());
+        }
+        if (reply.body == null) {
+            response.status(reply.status);
+            return "";
+        }
+        // Writing the body commits the response, so Spark leaves it as it is.
+        response.raw().setContentLength(reply.body.length);
+        OutputStream out = response.raw().getOutputStream();
+        out.write(reply.body);
+        out.flush();
+        return "";
+    }
+
+    /**
+     * Decides how to answer a request for the body kept under the given key, making the body if
+     * it is not kept for the given version, as {@link #send} does.
+     *
+     * @param acceptEncoding the request's Accept-Encoding header, or {@literal null}
+     * @param ifNoneMatch    the request's If-None-Match header, or {@literal null}
+     * @return the reply to send
+     * @throws Exception if source throws one
+     */
+    Reply reply(String acceptEncoding, String ifNoneMatch, String key, Object version, Source source)
+            throws Exception {
+        Body body = bodies.get(key);
+        if (body != null && body.version.equals(version)) {
+            hits.incrementAndGet();
+        } else {
+            // Threads that miss at once each make the body; they all make the same one.
+            misses.incrementAndGet();
+            body = new Body(Objects.requireNonNull(version), source.get());
+            bodies.put(key, body);
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Cache-Control", "no-cache");
+        headers.put("Vary", "Accept-Encoding");
+        boolean gzip = body.gzipped != null && ContentNegotiation.acceptsEncoding(acceptEncoding, "gzip");
+        headers.put("ETag", gzip ? body.gzipEtag : body.etag);
+        if (matches(ifNoneMatch, body)) {
+            notModified.incrementAndGet();
+            return new Reply(304, headers, null);
+        }
+        if (gzip) {
+            headers.put("Content-Encoding", "gzip");
+            return new Reply(200, headers, body.gzipped);
+        }
+        return new Reply(200, headers, body.bytes);
+    }
+
+    /**
+     * @return whether an If-None-Match header holds an ETag of the body, in either encoding.
+     */
+    private static boolean matches(String ifNoneMatch, Body body) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(body.etag) || tag.equals(body.gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The counters of this cache: the "hits" and "misses" of bodies asked for, the
+     * number of responses that were "notModified", and the number of "bodies" kept.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("notModified", notModified.get());
+        stats.put("bodies", (long) bodies.size());
+        return stats;
+    }
+
+    /**
+     * How to answer a request: the status, the headers to set besides the type, which is always
+     * "application/json", and the bytes of the body, which are {@literal null} if it has none.
+     */
+    static final class Reply {
+        final int status;
+        final Map<String, String> headers;
+        final byte[] body;
+
+        private Reply(int status, Map<String, String> headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A body made from one version of the data, as Json, gzipped if that is smaller, and its
+     * ETags.
+     */
+    private static final class Body {
+        private final Object version;
+        private final byte[] bytes;
+        private final byte[] gzipped;
+        private final String etag;
+        private final String gzipEtag;
+
+        private Body(Object version, Object value) throws IOException {
+            this.version = version;
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            try (Writer writer = Json.writer(json)) {
+                Json.GSON.toJson(value, writer);
+            }
+            this.bytes = json.toByteArray();
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(bytes);
+            }
+            this.gzipped = compressed.size() < bytes.length ? compressed.toByteArray() : null;
+
+            // The tags depend only on the contents, so a body made again from unchanged data
+            // keeps its tags and clients' copies stay valid.
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+            byte[] hash = digest.digest(bytes);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            this.etag = "\"" + hex + "\"";
+            this.gzipEtag = "\"" + hex + "-gzip\"";
+        }
+    }
+}
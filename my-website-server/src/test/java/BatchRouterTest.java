@@ -0,0 +1,131 @@
+import org.junit.Test;
+import projects.campuspaths.BatchRouter;
+import projects.campuspaths.CampusMap;
+import projects.campuspaths.TestMaps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class BatchRouterTest {
+
+    private static final List<String> BUILDINGS = List.of("A", "B", "C", "D", "E", "X");
+
+    /**
+     * Runs a test with a router of the given number of threads on a freshly loaded square map.
+     */
+    private interface RouterTest {
+        void run(BatchRouter router, CampusMap map) throws Exception;
+    }
+
+    private static void withRouter(int threads, RouterTest test) throws Exception {
+        java.nio.file.Path directory = TestMaps.useNewCacheDirectory();
+        BatchRouter router = new BatchRouter(threads);
+        try {
+            test.run(router, new CampusMap(TestMaps.SQUARE));
+        } finally {
+            router.shutdown();
+            TestMaps.deleteCacheDirectory(directory);
+        }
+    }
+
+    private static List<BatchRouter.Query> randomQueries(int count, long seed) {
+        Random random = new Random(seed);
+        List<BatchRouter.Query> queries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            queries.add(new BatchRouter.Query(BUILDINGS.get(random.nextInt(BUILDINGS.size())),
+                    BUILDINGS.get(random.nextInt(BUILDINGS.size()))));
+        }
+        return queries;
+    }
+
+    @Test
+    public void testEveryQueryAnsweredOnceInGroupsByStart() throws Exception {
+        withRouter(4, (router, map) -> {
+            List<BatchRouter.Query> queries = randomQueries(300, 17);
+            List<List<BatchRouter.Answer>> groups = new ArrayList<>();
+            router.solve(map, queries, answers -> {
+                synchronized (groups) {
+                    groups.add(answers);
+                }
+            });
+
+            boolean[] answered = new boolean[queries.size()];
+            Set<String> starts = new HashSet<>();
+            for (List<BatchRouter.Answer> group : groups) {
+                String start = group.get(0).getStart();
+                // One group per start.
+                assertTrue(starts.add(start));
+                for (BatchRouter.Answer answer : group) {
+                    BatchRouter.Query query = queries.get(answer.getIndex());
+                    assertEquals(start, answer.getStart());
+                    assertEquals(query.getStart(), answer.getStart());
+                    assertEquals(query.getEnd(), answer.getEnd());
+                    assertTrue("answered twice: " + answer.getIndex(), !answered[answer.getIndex()]);
+                    answered[answer.getIndex()] = true;
+                    assertEquals(map.findShortestPath(query.getStart(), query.getEnd()), answer.getPath());
+                }
+            }
+            boolean[] all = new boolean[queries.size()];
+            Arrays.fill(all, true);
+            assertTrue(Arrays.equals(all, answered));
+            for (BatchRouter.Query query : queries) {
+                assertTrue(starts.contains(query.getStart()));
+            }
+        });
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        withRouter(2, (router, map) -> {
+            AtomicInteger calls = new AtomicInteger();
+            router.solve(map, List.of(), answers -> calls.incrementAndGet());
+            assertEquals(0, calls.get());
+        });
+    }
+
+    @Test
+    public void testSinkFailureStopsGroupsNotStarted() throws Exception {
+        withRouter(1, (router, map) -> {
+            // Six groups, solved one at a time.
+            List<BatchRouter.Query> queries = new ArrayList<>();
+            for (String start : BUILDINGS) {
+                queries.add(new BatchRouter.Query(start, "A"));
+            }
+            AtomicInteger calls = new AtomicInteger();
+            IOException thrown = assertThrows(IOException.class, () -> router.solve(map, queries, answers -> {
+                calls.incrementAndGet();
+                throw new IOException("client went away");
+            }));
+            assertEquals("client went away", thrown.getMessage());
+            assertEquals(1, calls.get());
+
+            // The router is still usable afterwards.
+            AtomicInteger answered = new AtomicInteger();
+            router.solve(map, queries, answers -> answered.addAndGet(answers.size()));
+            assertEquals(queries.size(), answered.get());
+        });
+    }
+
+    @Test
+    public void testInvalidQueries() throws Exception {
+        withRouter(1, (router, map) -> {
+            BatchRouter.Sink sink = answers -> { };
+            assertThrows(IllegalArgumentException.class, () -> router.solve(map, null, sink));
+            assertThrows(IllegalArgumentException.class,
+                    () -> router.solve(map, List.of(new BatchRouter.Query("A", "Z")), sink));
+            assertThrows(IllegalArgumentException.class,
+                    () -> router.solve(map, List.of(new BatchRouter.Query(null, "A")), sink));
+            assertThrows(IllegalArgumentException.class, () -> new BatchRouter(0));
+        });
+    }
+}
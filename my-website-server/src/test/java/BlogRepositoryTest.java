@@ -0,0 +1,86 @@
+import org.junit.Test;
+import parser.Blog;
+import parser.BlogRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BlogRepositoryTest {
+
+    private static List<String> titles(BlogRepository repository) {
+        return titlesOf(repository.snapshot());
+    }
+
+    /**
+     * Waits for the repository to take a snapshot of the expected contents. A write may show up
+     * in several snapshots, such as one of the truncated file before one of its new contents,
+     * so a new version alone does not mean the change is all there.
+     */
+    private static BlogRepository.Snapshot awaitSnapshot(BlogRepository repository,
+                                                         Predicate<BlogRepository.Snapshot> expected)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        BlogRepository.Snapshot snapshot = repository.snapshot();
+        while (!expected.test(snapshot)) {
+            assertTrue("the change was not noticed, last saw " + titlesOf(snapshot),
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            snapshot = repository.snapshot();
+        }
+        return snapshot;
+    }
+
+    private static void awaitTitles(BlogRepository repository, List<String> titles)
+            throws InterruptedException {
+        awaitSnapshot(repository, snapshot -> titlesOf(snapshot).equals(titles));
+    }
+
+    @Test
+    public void testReloadsChangedFiles() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("blogs");
+        Files.writeString(directory.resolve("a.md"), "Alpha\nfirst");
+        Files.writeString(directory.resolve("b.md"), "Beta\nsecond");
+        try (BlogRepository repository = BlogRepository.open(directory)) {
+            // Written on the same day, so sorted by title.
+            assertEquals(List.of("Alpha", "Beta"), titles(repository));
+            BlogRepository.Snapshot before = repository.snapshot();
+            assertSame(before, repository.snapshot());
+
+            Files.writeString(directory.resolve("c.md"), "Gamma\nthird");
+            awaitTitles(repository, List.of("Alpha", "Beta", "Gamma"));
+            assertEquals(List.of("Alpha", "Beta"), titlesOf(before));
+
+            Files.writeString(directory.resolve("a.md"), "Aleph\nedited");
+            BlogRepository.Snapshot edited = awaitSnapshot(repository, snapshot ->
+                    titlesOf(snapshot).equals(List.of("Aleph", "Beta", "Gamma"))
+                            && "edited".equals(snapshot.getBlogs().get(0).getContent()));
+            assertTrue(edited.getVersion() > before.getVersion());
+
+            Files.delete(directory.resolve("b.md"));
+            awaitTitles(repository, List.of("Aleph", "Gamma"));
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static List<String> titlesOf(BlogRepository.Snapshot snapshot) {
+        List<String> titles = new ArrayList<>();
+        for (Blog blog : snapshot.getBlogs()) {
+            titles.add(blog.getTitle());
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,217 @@
+import org.junit.Test;
+import projects.campuspaths.CampusMap;
+import projects.campuspaths.CampusMapRegistry;
+import projects.campuspaths.TestMaps;
+import projects.campuspaths.parser.CampusPathsParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CampusMapRegistryTest {
+
+    /**
+     * Runs a test with a cache directory of its own.
+     */
+    private interface RegistryTest {
+        void run() throws Exception;
+    }
+
+    private static void withCacheDirectory(RegistryTest test) throws Exception {
+        java.nio.file.Path directory = TestMaps.useNewCacheDirectory();
+        try {
+            test.run();
+        } finally {
+            TestMaps.deleteCacheDirectory(directory);
+        }
+    }
+
+    private static long stat(CampusMapRegistry registry, String name) {
+        return registry.stats().get(name);
+    }
+
+    @Test
+    public void testExists() {
+        CampusMapRegistry registry = new CampusMapRegistry(Long.MAX_VALUE);
+        assertTrue(registry.exists(CampusMapRegistry.DEFAULT_MAP));
+        assertTrue(registry.exists(TestMaps.SQUARE));
+        assertFalse(registry.exists(null));
+        assertFalse(registry.exists(""));
+        assertFalse(registry.exists("nosuchmap"));
+        assertFalse(registry.exists("../CampuspathsData"));
+        assertFalse(registry.exists("square/"));
+        assertFalse(registry.exists("a".repeat(65)));
+        assertThrows(IllegalArgumentException.class, () -> registry.get("nosuchmap"));
+        assertThrows(IllegalArgumentException.class, () -> registry.get("../square"));
+        assertEquals(0, stat(registry, "loads"));
+    }
+
+    @Test
+    public void testConcurrentFirstGetsShareOneLoad() throws Exception {
+        withCacheDirectory(() -> {
+            CampusMapRegistry registry = new CampusMapRegistry(Long.MAX_VALUE);
+            int threads = 8;
+            CountDownLatch ready = new CountDownLatch(threads);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<CampusMap>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(pool.submit(() -> {
+                        ready.countDown();
+                        ready.await();
+                        return registry.get(TestMaps.SQUARE);
+                    }));
+                }
+                CampusMap first = futures.get(0).get();
+                for (Future<CampusMap> future : futures) {
+                    assertSame(first, future.get());
+                }
+            } finally {
+                pool.shutdown();
+            }
+            assertEquals(1, stat(registry, "loads"));
+            assertEquals(1, stat(registry, "maps"));
+        });
+    }
+
+    @Test
+    public void testFailedLoadIsRetried() throws Exception {
+        withCacheDirectory(() -> {
+            CampusMapRegistry registry = new CampusMapRegistry(Long.MAX_VALUE);
+            assertTrue(registry.exists(TestMaps.BROKEN));
+            assertThrows(CampusPathsParser.ParserException.class, () -> registry.get(TestMaps.BROKEN));
+            assertEquals(1, stat(registry, "loads"));
+            assertEquals(0, stat(registry, "maps"));
+            // The failure is not kept: the next request loads the map again.
+            assertThrows(CampusPathsParser.ParserException.class, () -> registry.get(TestMaps.BROKEN));
+            assertEquals(2, stat(registry, "loads"));
+            assertEquals(0, stat(registry, "maps"));
+        });
+    }
+
+    // How many bytes each of the given maps is thought to take once loaded.
+    private static long[] bytesOf(String... ids) {
+        CampusMapRegistry registry = new CampusMapRegistry(Long.MAX_VALUE);
+        long[] bytes = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            bytes[i] = registry.get(ids[i]).estimatedBytes();
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        withCacheDirectory(() -> {
+            long[] bytes = bytesOf(TestMaps.SQUARE, TestMaps.LINE, TestMaps.TRIANGLE);
+            // Room for any two of the maps, but not for all three.
+            long budget = bytes[0] + bytes[1] + bytes[2] - 1;
+            CampusMapRegistry registry = new CampusMapRegistry(budget);
+            CampusMap square = registry.get(TestMaps.SQUARE);
+            CampusMap line = registry.get(TestMaps.LINE);
+            assertSame(square, registry.get(TestMaps.SQUARE));
+            CampusMap triangle = registry.get(TestMaps.TRIANGLE);
+            // The line was used least recently.
+            assertEquals(3, stat(registry, "loads"));
+            assertEquals(1, stat(registry, "evictions"));
+            assertEquals(2, stat(registry, "maps"));
+            assertTrue(stat(registry, "bytes") <= budget);
+            assertSame(square, registry.get(TestMaps.SQUARE));
+            assertSame(triangle, registry.get(TestMaps.TRIANGLE));
+            assertEquals(3, stat(registry, "loads"));
+
+            // Now the square was.
+            assertNotSame(line, registry.get(TestMaps.LINE));
+            assertEquals(4, stat(registry, "loads"));
+            assertEquals(2, stat(registry, "evictions"));
+            assertTrue(stat(registry, "bytes") <= budget);
+            assertSame(triangle, registry.get(TestMaps.TRIANGLE));
+            assertNotSame(square, registry.get(TestMaps.SQUARE));
+            assertEquals(5, stat(registry, "loads"));
+        });
+    }
+
+    @Test
+    public void testMapJustLoadedIsKept() throws Exception {
+        withCacheDirectory(() -> {
+            // Smaller than any map, so every load evicts the others but keeps itself.
+            CampusMapRegistry registry = new CampusMapRegistry(1);
+            CampusMap square = registry.get(TestMaps.SQUARE);
+            assertSame(square, registry.get(TestMaps.SQUARE));
+            registry.get(TestMaps.LINE);
+            assertEquals(1, stat(registry, "maps"));
+            assertEquals(1, stat(registry, "evictions"));
+            assertNotSame(square, registry.get(TestMaps.SQUARE));
+        });
+    }
+
+    @Test
+    public void testMapsWithClosuresAreKept() throws Exception {
+        withCacheDirectory(() -> {
+            CampusMapRegistry registry = new CampusMapRegistry(1);
+            registry.get(TestMaps.SQUARE);
+            // The square is evicted by this load, so the closure has to load it again.
+            registry.get(TestMaps.LINE);
+            assertTrue(registry.closeSegment(TestMaps.SQUARE, 100, 0, 200, 0));
+            assertFalse(registry.closeSegment(TestMaps.SQUARE, 200, 0, 100, 0));
+            CampusMap square = registry.get(TestMaps.SQUARE);
+            assertEquals(2, square.closedSegments().size());
+
+            registry.get(TestMaps.TRIANGLE);
+            registry.get(TestMaps.LINE);
+            assertSame(square, registry.get(TestMaps.SQUARE));
+            assertEquals(2, square.closedSegments().size());
+
+            // Once reopened, it can be evicted again.
+            assertTrue(registry.reopenSegment(TestMaps.SQUARE, 100, 0, 200, 0));
+            assertTrue(square.closedSegments().isEmpty());
+            registry.get(TestMaps.TRIANGLE);
+            assertNotSame(square, registry.get(TestMaps.SQUARE));
+
+            assertThrows(IllegalArgumentException.class, () -> registry.closeSegment(TestMaps.SQUARE, 0, 0, 100, 100));
+            assertThrows(IllegalArgumentException.class, () -> registry.closeSegment("nosuchmap", 0, 0, 100, 0));
+        });
+    }
+
+    @Test
+    public void testClosuresRacingEvictionAreKept() throws Exception {
+        withCacheDirectory(() -> {
+            // Every load evicts every other map it can, while segments of the square are closed.
+            CampusMapRegistry registry = new CampusMapRegistry(1);
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                for (int round = 0; round < 20; round++) {
+                    String other = round % 2 == 0 ? TestMaps.LINE : TestMaps.TRIANGLE;
+                    registry.get(TestMaps.SQUARE);
+                    CountDownLatch ready = new CountDownLatch(2);
+                    Future<Boolean> closing = pool.submit(() -> {
+                        ready.countDown();
+                        ready.await();
+                        return registry.closeSegment(TestMaps.SQUARE, 100, 0, 200, 0);
+                    });
+                    Future<?> loading = pool.submit(() -> {
+                        ready.countDown();
+                        ready.await();
+                        registry.get(other);
+                        return null;
+                    });
+                    assertTrue(closing.get());
+                    loading.get();
+                    assertEquals(2, registry.get(TestMaps.SQUARE).closedSegments().size());
+                    assertTrue(registry.reopenSegment(TestMaps.SQUARE, 100, 0, 200, 0));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        });
+    }
+}
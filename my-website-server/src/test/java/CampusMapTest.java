@@ -0,0 +1,195 @@
+import com.google.gson.JsonObject;
+import org.junit.Test;
+import projects.campuspaths.Algorithm;
+import projects.campuspaths.CampusMap;
+import projects.campuspaths.TestMaps;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+import utils.Json;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CampusMapTest {
+
+    private static final List<String> BUILDINGS = List.of("A", "B", "C", "D", "E", "X");
+
+    /**
+     * Runs a test on a freshly loaded square map, with a cache directory of its own.
+     */
+    private interface MapTest {
+        void run(CampusMap map) throws Exception;
+    }
+
+    private static void withSquare(MapTest test) throws Exception {
+        java.nio.file.Path directory = TestMaps.useNewCacheDirectory();
+        try {
+            test.run(new CampusMap(TestMaps.SQUARE));
+        } finally {
+            TestMaps.deleteCacheDirectory(directory);
+        }
+    }
+
+    private static void assertPathsMatchSinglePair(CampusMap map) {
+        for (String start : BUILDINGS) {
+            List<String> ends = new ArrayList<>(BUILDINGS);
+            // In another order than the map's, and with a repeat.
+            ends.add(0, "C");
+            Map<String, Path<Point>> paths = map.findShortestPaths(start, ends);
+            assertEquals(new ArrayList<>(new LinkedHashSet<>(ends)), new ArrayList<>(paths.keySet()));
+            for (String end : ends) {
+                assertEquals(start + " -> " + end, map.findShortestPath(start, end), paths.get(end));
+                assertEquals(start + " -> " + end, map.findShortestPath(start, end, Algorithm.DIJKSTRA), paths.get(end));
+            }
+        }
+    }
+
+    @Test
+    public void testFindShortestPathsFromPrecomputedRoutes() throws Exception {
+        withSquare(map -> {
+            assertPathsMatchSinglePair(map);
+            // A -> C takes the shortcut through the middle.
+            assertEquals(new Path<>(new Point(0, 0)).extend(new Point(50, 50), 70.7107)
+                    .extend(new Point(100, 100), 70.8), map.findShortestPaths("A", List.of("C")).get("C"));
+        });
+    }
+
+    @Test
+    public void testFindShortestPathsBySearch() throws Exception {
+        withSquare(map -> {
+            // Closing the only way to E makes every precomputed route to or from E stale, so
+            // paths from A to a list including E need a search.
+            assertTrue(map.closeSegment(100, 0, 200, 0));
+            assertPathsMatchSinglePair(map);
+            assertNull(map.findShortestPaths("A", List.of("B", "E")).get("E"));
+        });
+    }
+
+    @Test
+    public void testUnreachableTargetsAreLeftOut() throws Exception {
+        withSquare(map -> {
+            Map<String, Path<Point>> paths = map.findShortestPaths("A", List.of("X", "B"));
+            assertEquals(List.of("X", "B"), new ArrayList<>(paths.keySet()));
+            assertNull(paths.get("X"));
+            // The Json sent by /findPaths leaves out buildings with no path.
+            JsonObject json = Json.GSON.fromJson(Json.GSON.toJson(paths), JsonObject.class);
+            assertFalse(json.has("X"));
+            assertTrue(json.has("B"));
+            assertEquals(100.0, json.getAsJsonObject("B").get("cost").getAsDouble(), 0);
+
+            assertTrue(map.closeSegment(100, 0, 200, 0));
+            json = Json.GSON.fromJson(Json.GSON.toJson(map.findShortestPaths("A", List.of("E", "X", "B"))),
+                    JsonObject.class);
+            assertEquals(List.of("B"), new ArrayList<>(json.keySet()));
+        });
+    }
+
+    private static final Point A = new Point(0, 0);
+    private static final Point B = new Point(100, 0);
+    private static final Point C = new Point(100, 100);
+    private static final Point M = new Point(50, 50);
+
+    private static final Path<Point> A_TO_C = new Path<>(A).extend(M, 70.7107).extend(C, 70.8);
+
+    @Test
+    public void testClosingSegmentReroutes() throws Exception {
+        withSquare(map -> {
+            assertEquals(A_TO_C, map.findShortestPath("A", "C"));
+            assertTrue(map.closeSegment(0, 0, 50, 50));
+            // Closed in both directions, and closing it again changes nothing.
+            assertEquals(2, map.closedSegments().size());
+            assertFalse(map.closeSegment(50, 50, 0, 0));
+
+            Path<Point> around = new Path<>(A).extend(B, 100.0).extend(C, 100.0);
+            assertEquals(around, map.findShortestPath("A", "C"));
+            assertEquals(around, map.findShortestPaths("A", List.of("C")).get("C"));
+            assertEquals(around, map.findShortestPath("A", "C", Algorithm.DIJKSTRA));
+            assertEquals(new Path<>(C).extend(B, 100.0).extend(A, 100.0), map.findShortestPath("C", "A"));
+            assertPathsMatchSinglePair(map);
+        });
+    }
+
+    @Test
+    public void testUnrelatedCachedTreeSurvivesClosure() throws Exception {
+        withSquare(map -> {
+            // Closing the way to E makes the routes from A and E stale, so they are searched
+            // and their trees cached.
+            assertTrue(map.closeSegment(100, 0, 200, 0));
+            assertNull(map.findShortestPath("A", "E"));
+            assertNull(map.findShortestPath("E", "A"));
+            assertEquals(2L, (long) map.treeCacheStats().get("trees"));
+
+            // Neither tree takes C-D.
+            assertTrue(map.closeSegment(100, 100, 0, 100));
+            Map<String, Long> stats = map.treeCacheStats();
+            assertEquals(0L, (long) stats.get("invalidations"));
+            assertEquals(2L, (long) stats.get("trees"));
+            long hits = stats.get("hits");
+            assertNull(map.findShortestPath("A", "E"));
+            assertNull(map.findShortestPath("E", "A"));
+            assertEquals(hits + 2, (long) map.treeCacheStats().get("hits"));
+
+            // The tree from A reaches C through M.
+            assertTrue(map.closeSegment(0, 0, 50, 50));
+            stats = map.treeCacheStats();
+            assertEquals(1L, (long) stats.get("invalidations"));
+            assertEquals(1L, (long) stats.get("trees"));
+            assertEquals(new Path<>(A).extend(B, 100.0).extend(C, 100.0), map.findShortestPath("A", "C"));
+        });
+    }
+
+    @Test
+    public void testReopeningRestoresPaths() throws Exception {
+        withSquare(map -> {
+            assertTrue(map.closeSegment(0, 0, 50, 50));
+            assertTrue(map.closeSegment(100, 0, 200, 0));
+            assertEquals(new Path<>(A).extend(B, 100.0).extend(C, 100.0), map.findShortestPath("A", "C"));
+            assertNull(map.findShortestPath("E", "A"));
+            Map<String, Long> stats = map.treeCacheStats();
+            assertEquals(2L, (long) stats.get("trees"));
+            long invalidations = stats.get("invalidations");
+
+            assertTrue(map.reopenSegment(50, 50, 0, 0));
+            assertFalse(map.reopenSegment(0, 0, 50, 50));
+            // Reopening A-M shortens the tree from A but cannot reach the one from E.
+            stats = map.treeCacheStats();
+            assertEquals(invalidations + 1, (long) stats.get("invalidations"));
+            assertEquals(1L, (long) stats.get("trees"));
+            assertEquals(A_TO_C, map.findShortestPath("A", "C"));
+            assertEquals(A_TO_C, map.findShortestPath("A", "C", Algorithm.DIJKSTRA));
+            assertEquals(Set.of(new Path<>(B).extend(new Point(200, 0), 100.0),
+                    new Path<>(new Point(200, 0)).extend(B, 100.0)), new HashSet<>(map.closedSegments()));
+
+            assertTrue(map.reopenSegment(200, 0, 100, 0));
+            assertTrue(map.closedSegments().isEmpty());
+            assertEquals(new Path<>(new Point(200, 0)).extend(B, 100.0).extend(A, 100.0),
+                    map.findShortestPath("E", "A"));
+            assertPathsMatchSinglePair(map);
+        });
+    }
+
+    @Test
+    public void testMissingSegmentThrows() throws Exception {
+        withSquare(map -> {
+            // A and C are both points of the map, but no segment joins them.
+            assertThrows(IllegalArgumentException.class, () -> map.closeSegment(0, 0, 100, 100));
+            assertThrows(IllegalArgumentException.class, () -> map.reopenSegment(0, 0, 100, 100));
+            // No point of the map is at (1, 1).
+            assertThrows(IllegalArgumentException.class, () -> map.closeSegment(0, 0, 1, 1));
+            assertThrows(IllegalArgumentException.class, () -> map.reopenSegment(1, 1, 0, 0));
+            assertTrue(map.closedSegments().isEmpty());
+            // An open segment is not reopened.
+            assertFalse(map.reopenSegment(0, 0, 100, 0));
+        });
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.Test;
+import projects.campuspaths.parser.CampusPathsParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CampusPathsParserTest {
+
+    private static List<double[]> parse(String data) throws IOException {
+        List<double[]> lines = new ArrayList<>();
+        CampusPathsParser.parseCampusPaths("test.csv",
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)),
+                (x1, y1, x2, y2, distance) -> lines.add(new double[] {x1, y1, x2, y2, distance}));
+        return lines;
+    }
+
+    @Test
+    public void testNumbersMatchParseDouble() throws IOException {
+        Random random = new Random(331);
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+            switch (i % 5) {
+                case 0:
+                    numbers.add(String.format("%.4f", value));
+                    break;
+                case 1:
+                    numbers.add(String.format("%.7f", value));
+                    break;
+                case 2:
+                    numbers.add(Double.toString(value));
+                    break;
+                case 3:
+                    numbers.add(String.format("%.12e", value));
+                    break;
+                default:
+                    numbers.add(Long.toString((long) value));
+            }
+        }
+        numbers.add("-0.0");
+        numbers.add(".5");
+        numbers.add("1.");
+        numbers.add(" 2.5 ");
+        numbers.add("1e-300");
+        numbers.add("123456789012345678901234567890");
+        while (numbers.size() % 5 != 0) {
+            numbers.add("0");
+        }
+
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < numbers.size(); i++) {
+            data.append(numbers.get(i)).append(i % 5 == 4 ? "\n" : ",");
+        }
+        List<double[]> lines = parse(data.toString());
+        assertEquals(numbers.size() / 5, lines.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            double expected = Double.parseDouble(numbers.get(i));
+            double actual = lines.get(i / 5)[i % 5];
+            assertEquals(numbers.get(i), Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+        }
+    }
+
+    @Test
+    public void testLineEndings() throws IOException {
+        List<double[]> lines = parse("1,2,3,4,5\r\n6,7,8,9,10,,\n11,12,13,14,15");
+        assertEquals(3, lines.size());
+        assertEquals(10.0, lines.get(1)[4], 0);
+        assertEquals(15.0, lines.get(2)[4], 0);
+    }
+
+    @Test
+    public void testLineLongerThanBuffer() throws IOException {
+        StringBuilder zeros = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            zeros.append('0');
+        }
+        List<double[]> lines = parse("1,2,3,4,5\n" + zeros + "1.5,2,3,4,5\n6,7,8,9,10\n");
+        assertEquals(3, lines.size());
+        assertEquals(1.5, lines.get(1)[0], 0);
+        assertEquals(6.0, lines.get(2)[0], 0);
+    }
+
+    @Test
+    public void testErrorsHaveLineNumbers() throws IOException {
+        try {
+            parse("1,2,3,4,5\n1,2,3,4,5\n1,2,x,4,5\n");
+            fail("expected a ParserException");
+        } catch (CampusPathsParser.ParserException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("test.csv:3:"));
+        }
+        try {
+            parse("1,2,3,4,5\n1,2,3,4\n");
+            fail("expected a ParserException");
+        } catch (CampusPathsParser.ParserException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("test.csv:2:"));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import org.junit.Test;
+import utils.ContentNegotiation;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContentNegotiationTest {
+
+    private static final String JSON = "application/json";
+    private static final String POLYLINE_JSON = "application/vnd.campuspaths.polyline+json";
+    private static final String BINARY = "application/octet-stream";
+
+    // The forms of /findPath, in the server's order of preference.
+    private static final List<String> OFFERED = List.of(JSON, POLYLINE_JSON, BINARY);
+
+    private static String choose(String accept) {
+        return ContentNegotiation.mediaType(accept, OFFERED);
+    }
+
+    @Test
+    public void testMediaTypeWithoutQValues() {
+        assertEquals(JSON, choose(null));
+        assertEquals(JSON, choose("*/*"));
+        assertEquals(JSON, choose("application/*"));
+        assertEquals(BINARY, choose(BINARY));
+        assertEquals(POLYLINE_JSON, choose(POLYLINE_JSON));
+        assertEquals(POLYLINE_JSON, choose(" Application/Vnd.CampusPaths.Polyline+JSON "));
+        // Equally acceptable types go by the server's order, not the header's.
+        assertEquals(POLYLINE_JSON, choose(BINARY + ", " + POLYLINE_JSON));
+        assertNull(choose("text/html"));
+        assertNull(choose(""));
+    }
+
+    @Test
+    public void testMediaTypeByQValue() {
+        assertEquals(BINARY, choose(POLYLINE_JSON + ";q=0.5, " + BINARY));
+        assertEquals(POLYLINE_JSON, choose(POLYLINE_JSON + ", " + BINARY + ";q=0.9"));
+        assertEquals(BINARY, choose(BINARY + ", */*;q=0.1"));
+        assertEquals(JSON, choose(JSON + ";q=0.3, " + POLYLINE_JSON + ";q=0.2"));
+        // A browser's header, which ranks them all the same.
+        assertEquals(JSON, choose("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"));
+        // Parameters other than q are allowed, and q is not case sensitive.
+        assertEquals(BINARY, choose(JSON + ";charset=utf-8;Q=0.4, " + BINARY + ";q=0.6"));
+    }
+
+    @Test
+    public void testMostSpecificRangeGivesQValue() {
+        // Any application type but plain Json.
+        assertEquals(POLYLINE_JSON, choose("application/*, application/json;q=0"));
+        assertEquals(BINARY, choose("*/*;q=0.5, application/octet-stream"));
+        // The more specific range lowers the type's q-value below that of the others.
+        assertEquals(POLYLINE_JSON, choose("*/*, " + JSON + ";q=0.1"));
+    }
+
+    @Test
+    public void testZeroQValueRefuses() {
+        assertEquals(POLYLINE_JSON, choose(JSON + ";q=0, " + POLYLINE_JSON + ";q=0.01"));
+        assertEquals(BINARY, choose("*/*;q=0, " + BINARY));
+        assertNull(choose("*/*;q=0"));
+        assertNull(choose(JSON + ";q=0.000"));
+    }
+
+    @Test
+    public void testMalformedElementsAreSkipped() {
+        assertEquals(BINARY, choose(JSON + ";q=high, " + BINARY + ";q=0.5"));
+        assertEquals(BINARY, choose(JSON + ";q=2, " + BINARY + ";q=0.5"));
+        assertEquals(BINARY, choose(JSON + ";q=NaN, " + BINARY + ";q=0.5"));
+        assertEquals(BINARY, choose(",, ;q=1, " + BINARY));
+        assertNull(choose(JSON + ";q=."));
+    }
+
+    @Test
+    public void testAcceptsEncoding() {
+        assertFalse(ContentNegotiation.acceptsEncoding(null, "gzip"));
+        assertFalse(ContentNegotiation.acceptsEncoding("", "gzip"));
+        assertTrue(ContentNegotiation.acceptsEncoding("gzip", "gzip"));
+        assertTrue(ContentNegotiation.acceptsEncoding("deflate, GZIP;q=0.5", "gzip"));
+        assertTrue(ContentNegotiation.acceptsEncoding("*", "gzip"));
+        assertFalse(ContentNegotiation.acceptsEncoding("deflate, br", "gzip"));
+        assertFalse(ContentNegotiation.acceptsEncoding("gzip;q=0", "gzip"));
+        assertFalse(ContentNegotiation.acceptsEncoding("gzip;q=0.0, deflate", "gzip"));
+        // A coding named on its own overrides "*", either way.
+        assertFalse(ContentNegotiation.acceptsEncoding("*, gzip;q=0", "gzip"));
+        assertTrue(ContentNegotiation.acceptsEncoding("*;q=0, gzip", "gzip"));
+        assertFalse(ContentNegotiation.acceptsEncoding("*;q=0", "gzip"));
+        // Not a substring match.
+        assertFalse(ContentNegotiation.acceptsEncoding("x-gzipped", "gzip"));
+    }
+}
@@ -0,0 +1,141 @@
+import org.junit.Test;
+import projects.campuspaths.ContractionHierarchy;
+import projects.campuspaths.ShortestPath;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.Path;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+public class ContractionHierarchyTest {
+
+    // A random directed graph, so that some pairs are only connected one way or not at all.
+    private static CompactGraph<Integer> randomGraph(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        Graph<Integer, Double> graph = new Graph<>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            double weight = 1 + random.nextInt(20);
+            graph.addEdge(new Graph.Edge<>(random.nextInt(nodes), random.nextInt(nodes), weight));
+        }
+        return CompactGraph.of(graph);
+    }
+
+    private static void assertMatchesDijkstra(CompactGraph<Integer> graph, ContractionHierarchy<Integer> hierarchy) {
+        for (int start = 0; start < graph.nodeCount(); start++) {
+            for (int end = 0; end < graph.nodeCount(); end++) {
+                Path<Integer> expected = ShortestPath.dijkstra(graph, graph.node(start), graph.node(end));
+                Path<Integer> actual = hierarchy.shortestPath(graph.node(start), graph.node(end));
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.getCost(), actual.getCost(), 1e-9);
+                    assertEquals(expected.getStart(), actual.getStart());
+                    assertEquals(expected.getEnd(), actual.getEnd());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesDijkstra() {
+        for (long seed = 0; seed < 5; seed++) {
+            CompactGraph<Integer> graph = randomGraph(40, 120, seed);
+            assertMatchesDijkstra(graph, ContractionHierarchy.build(graph));
+        }
+    }
+
+    @Test
+    public void testPathFollowsOriginalEdges() {
+        Graph<String, Double> graph = new Graph<>();
+        for (String node : new String[] {"a", "b", "c", "d"}) {
+            graph.addNode(node);
+        }
+        graph.addEdge(new Graph.Edge<>("a", "b", 1.0));
+        graph.addEdge(new Graph.Edge<>("b", "c", 1.0));
+        graph.addEdge(new Graph.Edge<>("c", "d", 1.0));
+        graph.addEdge(new Graph.Edge<>("a", "d", 5.0));
+        Path<String> path = ContractionHierarchy.of(graph).shortestPath("a", "d");
+        assertEquals(new Path<>("a").extend("b", 1.0).extend("c", 1.0).extend("d", 1.0), path);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        CompactGraph<Integer> graph = randomGraph(30, 90, 42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ContractionHierarchy.build(graph).write(new DataOutputStream(bytes));
+        ContractionHierarchy<Integer> read = ContractionHierarchy.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), graph);
+        assertMatchesDijkstra(graph, read);
+    }
+
+    @Test
+    public void testCorruptArcCountIsRejected() throws IOException {
+        CompactGraph<Integer> graph = randomGraph(30, 90, 42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ContractionHierarchy.build(graph).write(new DataOutputStream(bytes));
+        // The arc count follows the header and the rank of every node.
+        int offset = 4 * 4 + 4 * graph.nodeCount();
+        int arcCount = ByteBuffer.wrap(bytes.toByteArray()).getInt(offset);
+        // More arcs than there are, by one and by far too many to allocate.
+        for (int corrupt : new int[] {arcCount + 1, Integer.MAX_VALUE}) {
+            byte[] saved = bytes.toByteArray();
+            ByteBuffer.wrap(saved).putInt(offset, corrupt);
+            assertThrows(IOException.class, () -> ContractionHierarchy.read(
+                    new DataInputStream(new ByteArrayInputStream(saved)), graph));
+        }
+    }
+
+    @Test
+    public void testSelfLoops() throws IOException {
+        // Self-loops get no arcs, so this hierarchy has fewer arcs than the graph has edges.
+        Graph<Integer, Double> loops = new Graph<>();
+        loops.addNode(0);
+        loops.addNode(1);
+        loops.addEdge(new Graph.Edge<>(0, 1, 2.0));
+        loops.addEdge(new Graph.Edge<>(0, 0, 1.0));
+        loops.addEdge(new Graph.Edge<>(1, 1, 3.0));
+        CompactGraph<Integer> graph = CompactGraph.of(loops);
+        ContractionHierarchy<Integer> built = ContractionHierarchy.build(graph);
+        assertEquals(0, built.shortcutCount());
+        assertMatchesDijkstra(graph, built);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        built.write(new DataOutputStream(bytes));
+        ContractionHierarchy<Integer> read = ContractionHierarchy.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), graph);
+        assertNotNull(read);
+        assertEquals(0, read.shortcutCount());
+        assertMatchesDijkstra(graph, read);
+    }
+
+    @Test
+    public void testRandomSelfLoops() throws IOException {
+        Random random = new Random(7);
+        Graph<Integer, Double> withLoops = new Graph<>();
+        for (int i = 0; i < 30; i++) {
+            withLoops.addNode(i);
+            withLoops.addEdge(new Graph.Edge<>(i, i, 1.0));
+        }
+        for (int i = 0; i < 90; i++) {
+            withLoops.addEdge(new Graph.Edge<>(random.nextInt(30), random.nextInt(30), 1.0 + random.nextInt(20)));
+        }
+        CompactGraph<Integer> graph = CompactGraph.of(withLoops);
+        ContractionHierarchy<Integer> built = ContractionHierarchy.build(graph);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        built.write(new DataOutputStream(bytes));
+        ContractionHierarchy<Integer> read = ContractionHierarchy.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), graph);
+        assertEquals(built.shortcutCount(), read.shortcutCount());
+        assertMatchesDijkstra(graph, read);
+    }
+}
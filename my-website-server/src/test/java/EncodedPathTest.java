@@ -0,0 +1,85 @@
+import org.junit.Test;
+import projects.campuspaths.EncodedPath;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EncodedPathTest {
+
+    private static Path<Point> randomPath(Random random, int segments) {
+        double x = 4000 * random.nextDouble();
+        double y = 3000 * random.nextDouble();
+        Path<Point> path = new Path<>(new Point(x, y));
+        for (int i = 0; i < segments; i++) {
+            x += 40 * random.nextDouble() - 20;
+            y += 40 * random.nextDouble() - 20;
+            path = path.extend(new Point(x, y), random.nextDouble());
+        }
+        return path;
+    }
+
+    private static List<Point> pointsOf(Path<Point> path) {
+        List<Point> points = new ArrayList<>();
+        points.add(path.getStart());
+        for (Path<Point>.Segment segment : path) {
+            points.add(segment.getEnd());
+        }
+        return points;
+    }
+
+    private static void assertSamePoints(List<Point> expected, List<Point> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getX(), actual.get(i).getX(), 0.5e-5);
+            assertEquals(expected.get(i).getY(), actual.get(i).getY(), 0.5e-5);
+        }
+    }
+
+    @Test
+    public void testPolylineRoundTrip() {
+        Random random = new Random(3);
+        for (int segments = 0; segments < 50; segments++) {
+            Path<Point> path = randomPath(random, segments);
+            EncodedPath encoded = EncodedPath.of(path);
+            assertEquals(path.getCost(), encoded.getCost(), 0);
+            assertSamePoints(pointsOf(path), encoded.getPoints());
+        }
+    }
+
+    @Test
+    public void testKnownPolyline() {
+        // The example from the description of the encoded polyline format, at precision 5.
+        Path<Point> path = new Path<>(new Point(38.5, -120.2))
+                .extend(new Point(40.7, -120.95), 1)
+                .extend(new Point(43.252, -126.453), 1);
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", EncodedPath.of(path).getPolyline());
+    }
+
+    @Test
+    public void testBinaryRoundTrip() {
+        Random random = new Random(5);
+        List<Path<Point>> paths = Arrays.asList(randomPath(random, 30), null, randomPath(random, 0),
+                randomPath(random, 200));
+        List<EncodedPath> decoded = EncodedPath.fromBytes(EncodedPath.toBytes(paths));
+        assertEquals(paths.size(), decoded.size());
+        assertNull(decoded.get(1));
+        for (int i : new int[] {0, 2, 3}) {
+            assertEquals(paths.get(i).getCost(), decoded.get(i).getCost(), 0);
+            assertEquals(EncodedPath.of(paths.get(i)).getPolyline(), decoded.get(i).getPolyline());
+            assertSamePoints(pointsOf(paths.get(i)), decoded.get(i).getPoints());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedBinary() {
+        byte[] bytes = EncodedPath.toBytes(Arrays.asList(randomPath(new Random(7), 10)));
+        EncodedPath.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+}
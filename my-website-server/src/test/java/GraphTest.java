@@ -0,0 +1,290 @@
+import org.junit.Test;
+import projects.campuspaths.datastructures.Graph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class GraphTest {
+
+    private static final int NODES = 12;
+
+    // The edges to node found by scanning every edge of the graph, as Graph did before it
+    // indexed them, in no particular order. Self-loops are not edges to their node.
+    private static List<Graph.Edge<Integer, String>> scanEdgesTo(Graph<Integer, String> graph, int node) {
+        List<Graph.Edge<Integer, String>> edges = new ArrayList<>();
+        for (int parent : graph.getNodes()) {
+            if (parent != node) {
+                for (Graph.Edge<Integer, String> edge : graph.getEdgesFrom(parent)) {
+                    if (edge.getChild() == node) {
+                        edges.add(edge);
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static void assertIncomingConsistent(Graph<Integer, String> graph) {
+        for (int node : graph.getNodes()) {
+            List<Graph.Edge<Integer, String>> expected = scanEdgesTo(graph, node);
+            List<Graph.Edge<Integer, String>> actual = graph.getEdgesTo(node);
+            assertEquals(expected.size(), actual.size());
+            assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+
+            LinkedHashSet<Integer> parents = new LinkedHashSet<>();
+            for (Graph.Edge<Integer, String> edge : expected) {
+                parents.add(edge.getParent());
+            }
+            List<Integer> actualParents = graph.getParents(node);
+            assertEquals(parents.size(), actualParents.size());
+            assertEquals(parents, new HashSet<>(actualParents));
+        }
+    }
+
+    @Test
+    public void testIncomingEdgesFollowAddAndRemove() {
+        Random random = new Random(331);
+        Graph<Integer, String> graph = new Graph<>();
+        for (int i = 0; i < NODES; i++) {
+            graph.addNode(i);
+        }
+        List<Graph.Edge<Integer, String>> added = new ArrayList<>();
+        for (int step = 0; step < 2000; step++) {
+            if (added.isEmpty() || random.nextInt(3) > 0) {
+                // Few nodes and labels, so that edges are often added twice, and some nodes
+                // have many parents.
+                Graph.Edge<Integer, String> edge = new Graph.Edge<>(random.nextInt(NODES),
+                        random.nextInt(step < 1000 ? 3 : NODES), "l" + random.nextInt(3));
+                graph.addEdge(edge);
+                added.add(edge);
+            } else {
+                Graph.Edge<Integer, String> edge = added.remove(random.nextInt(added.size()));
+                // A copy, since edges are removed by equality.
+                graph.removeEdge(new Graph.Edge<>(edge.getParent(), edge.getChild(), edge.getLabel()));
+            }
+            if (step % 50 == 0) {
+                assertIncomingConsistent(graph);
+            }
+        }
+        assertIncomingConsistent(graph);
+    }
+
+    @Test
+    public void testSelfLoopsAreNotIncoming() {
+        Graph<Integer, String> graph = new Graph<>();
+        graph.addNode(0);
+        graph.addNode(1);
+        graph.addEdge(new Graph.Edge<>(0, 0, "loop"));
+        graph.addEdge(new Graph.Edge<>(1, 0, "in"));
+        assertEquals(List.of(new Graph.Edge<>(1, 0, "in")), graph.getEdgesTo(0));
+        assertEquals(List.of(1), graph.getParents(0));
+
+        graph.removeEdge(new Graph.Edge<>(1, 0, "in"));
+        assertEquals(List.of(), graph.getEdgesTo(0));
+        assertEquals(List.of(), graph.getParents(0));
+        // Removing an edge that is not there changes nothing.
+        graph.removeEdge(new Graph.Edge<>(1, 0, "in"));
+        assertEquals(List.of(new Graph.Edge<>(0, 0, "loop")), graph.getEdgesFrom(0));
+    }
+
+    private static void assertSameGraph(Graph<Integer, String> expected, Graph<Integer, String> actual) {
+        assertEquals(new HashSet<>(expected.getNodes()), new HashSet<>(actual.getNodes()));
+        for (int node : expected.getNodes()) {
+            assertEquals(expected.getEdgesFrom(node), actual.getEdgesFrom(node));
+            assertEquals(expected.getEdgesTo(node), actual.getEdgesTo(node));
+        }
+    }
+
+    @Test
+    public void testBuilderMatchesIncrementalConstruction() {
+        Random random = new Random(42);
+        Graph<Integer, String> incremental = new Graph<>();
+        Graph.Builder<Integer, String> builder = Graph.builder();
+        for (int i = 0; i < NODES; i++) {
+            incremental.addNode(i);
+            builder.addNode(i);
+        }
+        // Nodes added again are ignored.
+        builder.addNodes(List.of(0, 1, 2));
+        for (int i = 0; i < 300; i++) {
+            Graph.Edge<Integer, String> edge = new Graph.Edge<>(random.nextInt(NODES), random.nextInt(NODES),
+                    "l" + random.nextInt(2));
+            incremental.addEdge(edge);
+            builder.addEdge(new Graph.Edge<>(edge.getParent(), edge.getChild(), edge.getLabel()));
+        }
+        assertSameGraph(incremental, builder.build());
+    }
+
+    @Test
+    public void testBuilderDedupesEdges() {
+        Graph<Integer, String> graph = Graph.<Integer, String>builder()
+                .addNodes(List.of(0, 1))
+                .addEdge(new Graph.Edge<>(0, 1, "a"))
+                .addEdges(List.of(new Graph.Edge<>(0, 1, "a"), new Graph.Edge<>(0, 1, "b"), new Graph.Edge<>(0, 1, "a")))
+                .build();
+        assertEquals(List.of(new Graph.Edge<>(0, 1, "a"), new Graph.Edge<>(0, 1, "b")), graph.getEdgesFrom(0));
+        assertEquals(List.of(new Graph.Edge<>(0, 1, "a"), new Graph.Edge<>(0, 1, "b")), graph.getEdgesTo(1));
+    }
+
+    @Test
+    public void testBuilderLaterAdditionsDoNotAffectGraph() {
+        Graph.Builder<Integer, String> builder = Graph.<Integer, String>builder().addNodes(List.of(0, 1));
+        Graph<Integer, String> graph = builder.build();
+        builder.addNode(2).addEdge(new Graph.Edge<>(0, 1, "a"));
+        assertEquals(2, graph.getNodes().size());
+        assertEquals(List.of(), graph.getEdgesFrom(0));
+        assertThrows(java.util.NoSuchElementException.class, () -> builder.addEdge(new Graph.Edge<>(0, 3, "a")));
+    }
+
+    /**
+     * A node whose identity can be changed after it is in a graph, to break the graph's
+     * representation invariant from outside.
+     */
+    private static final class Mutable {
+        private String name;
+
+        private Mutable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Mutable && ((Mutable) obj).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testBuilderDebugChecksRep() {
+        for (boolean debug : new boolean[] {false, true}) {
+            Mutable a = new Mutable("a");
+            Mutable b = new Mutable("b");
+            Mutable c = new Mutable("c");
+            Graph<Mutable, String> graph = Graph.<Mutable, String>builder()
+                    .addNodes(List.of(a, b, c))
+                    .addEdge(new Graph.Edge<>(a, b, "x"))
+                    .addEdge(new Graph.Edge<>(a, c, "x"))
+                    .debug(debug)
+                    .build();
+            // Now the two edges from a are identical, which only the full check notices.
+            c.name = "b";
+            if (debug) {
+                assertThrows(AssertionError.class, graph::getNodes);
+            } else {
+                assertEquals(3, graph.getNodes().size());
+            }
+        }
+    }
+
+    // Checks the edges of graph, whose edges all leave hub, against the edges expected in
+    // order, through every way of looking them up.
+    private static void assertHubEdges(Graph<Integer, String> graph, int hub, List<Graph.Edge<Integer, String>> expected) {
+        assertEquals(expected, graph.getEdgesFrom(hub));
+        for (int child : graph.getNodes()) {
+            List<Graph.Edge<Integer, String>> toChild = new ArrayList<>();
+            for (Graph.Edge<Integer, String> edge : expected) {
+                if (edge.getChild() == child) {
+                    toChild.add(edge);
+                }
+            }
+            assertEquals(toChild, graph.getEdges(hub, child));
+        }
+        assertIncomingConsistent(graph);
+    }
+
+    @Test
+    public void testAdjacencyAcrossIndexThreshold() {
+        // Edges are indexed by child once a node has more than 8 of them. Go well past that
+        // and back to none, twice, with several edges to each child.
+        Random random = new Random(9);
+        int hub = 0;
+        Graph<Integer, String> graph = new Graph<>();
+        for (int i = 0; i < NODES; i++) {
+            graph.addNode(i);
+        }
+        List<Graph.Edge<Integer, String>> expected = new ArrayList<>();
+        for (int round = 0; round < 2; round++) {
+            while (expected.size() < 20) {
+                Graph.Edge<Integer, String> edge = new Graph.Edge<>(hub, random.nextInt(NODES), "l" + random.nextInt(3));
+                graph.addEdge(edge);
+                if (!expected.contains(edge)) {
+                    expected.add(edge);
+                }
+                assertHubEdges(graph, hub, expected);
+            }
+            while (!expected.isEmpty()) {
+                Graph.Edge<Integer, String> edge = expected.remove(random.nextInt(expected.size()));
+                graph.removeEdge(new Graph.Edge<>(edge.getParent(), edge.getChild(), edge.getLabel()));
+                assertHubEdges(graph, hub, expected);
+            }
+        }
+    }
+
+    @Test
+    public void testAdjacencyRejectsDuplicates() {
+        for (int degree : new int[] {3, 20}) {
+            Graph<Integer, String> graph = new Graph<>();
+            graph.addNode(0);
+            graph.addNode(1);
+            List<Graph.Edge<Integer, String>> expected = new ArrayList<>();
+            for (int i = 0; i < degree; i++) {
+                graph.addEdge(new Graph.Edge<>(0, 1, "l" + i));
+                expected.add(new Graph.Edge<>(0, 1, "l" + i));
+            }
+            for (int i = 0; i < degree; i++) {
+                graph.addEdge(new Graph.Edge<>(0, 1, "l" + i));
+            }
+            assertEquals(expected, graph.getEdgesFrom(0));
+            assertEquals(expected, graph.getEdges(0, 1));
+            assertEquals(expected, graph.getEdgesTo(1));
+            // Removing an edge that is not there changes nothing.
+            graph.removeEdge(new Graph.Edge<>(0, 1, "missing"));
+            graph.removeEdge(new Graph.Edge<>(1, 0, "l0"));
+            assertEquals(expected, graph.getEdgesFrom(0));
+            assertEquals(List.of(), graph.getEdges(1, 0));
+        }
+    }
+
+    @Test
+    public void testEdgesFromIsReadOnlyView() {
+        for (int degree : new int[] {3, 20}) {
+            Graph<Integer, String> graph = new Graph<>();
+            graph.addNode(0);
+            graph.addNode(1);
+            for (int i = 0; i < degree; i++) {
+                graph.addEdge(new Graph.Edge<>(0, 1, "l" + i));
+            }
+            List<Graph.Edge<Integer, String>> edges = graph.getEdgesFrom(0);
+            Graph.Edge<Integer, String> extra = new Graph.Edge<>(0, 1, "extra");
+            assertThrows(UnsupportedOperationException.class, () -> edges.add(extra));
+            assertThrows(UnsupportedOperationException.class, () -> edges.remove(0));
+            assertThrows(UnsupportedOperationException.class, () -> edges.set(0, extra));
+            assertThrows(UnsupportedOperationException.class, edges::clear);
+            Iterator<Graph.Edge<Integer, String>> iterator = edges.iterator();
+            iterator.next();
+            assertThrows(UnsupportedOperationException.class, iterator::remove);
+            assertEquals(degree, graph.getEdgesFrom(0).size());
+
+            // The view follows later changes to the graph.
+            graph.addEdge(extra);
+            assertEquals(degree + 1, edges.size());
+            assertTrue(edges.contains(extra));
+            graph.removeEdge(extra);
+            assertEquals(degree, edges.size());
+            assertFalse(edges.contains(extra));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+import parser.Blog;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+import projects.campuspaths.parser.CampusBuilding;
+import utils.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class JsonTest {
+
+    private static final Gson REFLECTIVE = new Gson();
+
+    private static Path<Point> path() {
+        return new Path<>(new Point(1536.287, 1786.613))
+                .extend(new Point(1561.0528, 1786.6467), 51.9858177)
+                .extend(new Point(1535.7457, 1807.3386), 43.73364306994077);
+    }
+
+    // The fields reflection would write for a path, in the order it always wrote them.
+    private static final class PathShape {
+        private final double cost;
+        private final Point start;
+        private final List<SegmentShape> path = new ArrayList<>();
+
+        private PathShape(Path<Point> path) {
+            this.cost = path.getCost();
+            this.start = path.getStart();
+            for (Path<Point>.Segment segment : path) {
+                this.path.add(new SegmentShape(segment));
+            }
+        }
+    }
+
+    private static final class SegmentShape {
+        private final Point start;
+        private final Point end;
+        private final double cost;
+
+        private SegmentShape(Path<Point>.Segment segment) {
+            this.start = segment.getStart();
+            this.end = segment.getEnd();
+            this.cost = segment.getCost();
+        }
+    }
+
+    @Test
+    public void testSameAsReflection() {
+        List<Object> values = Arrays.asList(
+                new Point(-0.5, 1e-7),
+                new CampusBuilding("CSE", "Paul G. Allen Center <for> \"Computer\" & 'Science'", 2259.7, 1715.5),
+                new Blog("A title", "Some `markdown` with <html> & é 😀\n", null, "Jan 1, 2022"),
+                Arrays.asList(new Blog(null, null, null, null), null));
+        for (Object value : values) {
+            assertEquals(REFLECTIVE.toJson(value), Json.GSON.toJson(value));
+        }
+        assertEquals(REFLECTIVE.toJson(null), Json.GSON.toJson(null));
+    }
+
+    @Test
+    public void testPathsSameAsReflectionOfTheirFields() {
+        // Paths no longer have the fields reflection would write, but are written as if they did.
+        Path<Point> empty = new Path<>(new Point(3, 4));
+        assertEquals(REFLECTIVE.toJson(new PathShape(path())), Json.GSON.toJson(path()));
+        assertEquals(REFLECTIVE.toJson(new PathShape(empty)), Json.GSON.toJson(empty));
+        assertEquals(REFLECTIVE.toJson(Arrays.asList(new PathShape(path()), null, new PathShape(path()))),
+                Json.GSON.toJson(Arrays.asList(path(), null, path())));
+        assertEquals(REFLECTIVE.toJson(Collections.singletonMap("CSE", new PathShape(path()))),
+                Json.GSON.toJson(Collections.singletonMap("CSE", path())));
+    }
+
+    @Test
+    public void testReadBack() {
+        Type type = new TypeToken<List<Path<Point>>>() { }.getType();
+        List<Path<Point>> paths = Arrays.asList(path(), new Path<>(new Point(3, 4)));
+        assertEquals(paths, Json.GSON.fromJson(Json.GSON.toJson(paths), type));
+
+        CampusBuilding building = new CampusBuilding("CSE", "Allen Center", 2259.7, 1715.5);
+        CampusBuilding read = Json.GSON.fromJson(Json.GSON.toJson(building), CampusBuilding.class);
+        assertEquals(building.getLongName(), read.getLongName());
+        assertEquals(building.getX(), read.getX(), 0);
+
+        Blog blog = new Blog("Title", "Content", null, "Jan 1, 2022");
+        Blog readBlog = Json.GSON.fromJson(Json.GSON.toJson(blog), Blog.class);
+        assertEquals(REFLECTIVE.toJson(blog), REFLECTIVE.toJson(readBlog));
+
+        Type mapType = new TypeToken<Map<String, Point>>() { }.getType();
+        Map<String, Point> points = Json.GSON.fromJson("{\"a\": {\"y\": 2, \"x\": 1, \"z\": 3}}", mapType);
+        assertEquals(new Point(1, 2), points.get("a"));
+    }
+
+    @Test
+    public void testWriterEncodesUtf8() throws IOException {
+        Random random = new Random(11);
+        char[] alphabet = {'a', '"', '\n', 'é', '€', '\ud83d', '\ude00', '￿', 0};
+        for (int length : new int[] {0, 1, 100, 50_000}) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (Writer writer = Json.writer(out)) {
+                writer.write(text.toString());
+            }
+            assertArrayEquals(text.toString().getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testNestedWriters() throws IOException {
+        ByteArrayOutputStream outer = new ByteArrayOutputStream();
+        ByteArrayOutputStream inner = new ByteArrayOutputStream();
+        try (Writer first = Json.writer(outer)) {
+            first.write("outer ");
+            try (Writer second = Json.writer(inner)) {
+                second.write("inner");
+            }
+            first.write("done");
+        }
+        assertEquals("outer done", outer.toString("UTF-8"));
+        assertEquals("inner", inner.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,86 @@
+import org.junit.Test;
+import projects.campuspaths.KShortestPaths;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.Path;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KShortestPathsTest {
+
+    private static final long NO_TIMEOUT = Long.MAX_VALUE / 2;
+
+    private static CompactGraph<Integer> randomGraph(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        Graph<Integer, Double> graph = new Graph<>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            double weight = 1 + random.nextInt(10);
+            graph.addEdge(new Graph.Edge<>(random.nextInt(nodes), random.nextInt(nodes), weight));
+        }
+        return CompactGraph.of(graph);
+    }
+
+    // Collects the cost of every path from node to target that doesn't visit a node twice.
+    private static void simplePathCosts(CompactGraph<Integer> graph, int node, int target, double cost,
+                                        boolean[] visited, List<Double> costs) {
+        if (node == target) {
+            costs.add(cost);
+            return;
+        }
+        visited[node] = true;
+        for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+            if (!visited[graph.target(e)]) {
+                simplePathCosts(graph, graph.target(e), target, cost + graph.weight(e), visited, costs);
+            }
+        }
+        visited[node] = false;
+    }
+
+    @Test
+    public void testMatchesEnumeration() {
+        for (long seed = 0; seed < 20; seed++) {
+            CompactGraph<Integer> graph = randomGraph(8, 24, seed);
+            for (int source = 0; source < 3; source++) {
+                int target = 7 - source;
+                List<Double> expected = new ArrayList<>();
+                simplePathCosts(graph, source, target, 0, new boolean[graph.nodeCount()], expected);
+                Collections.sort(expected);
+
+                List<Path<Integer>> paths = KShortestPaths.find(graph, source, target, 6, Integer.MAX_VALUE, NO_TIMEOUT);
+                assertEquals(Math.min(6, expected.size()), paths.size());
+                Set<Path<Integer>> distinct = new HashSet<>();
+                for (int i = 0; i < paths.size(); i++) {
+                    Path<Integer> path = paths.get(i);
+                    assertEquals(expected.get(i), path.getCost(), 1e-9);
+                    assertEquals(Integer.valueOf(source), path.getStart());
+                    assertEquals(Integer.valueOf(target), path.getEnd());
+                    Set<Integer> nodes = new HashSet<>();
+                    nodes.add(path.getStart());
+                    for (Path<Integer>.Segment segment : path) {
+                        assertTrue("paths must not visit a node twice", nodes.add(segment.getEnd()));
+                    }
+                    distinct.add(path);
+                }
+                assertEquals(paths.size(), distinct.size());
+            }
+        }
+    }
+
+    @Test
+    public void testBudgetLimitsWork() {
+        CompactGraph<Integer> graph = randomGraph(200, 1200, 1);
+        List<Path<Integer>> unbounded = KShortestPaths.find(graph, 0, 1, 50, Integer.MAX_VALUE, NO_TIMEOUT);
+        List<Path<Integer>> bounded = KShortestPaths.find(graph, 0, 1, 50, 500, NO_TIMEOUT);
+        assertEquals(50, unbounded.size());
+        assertTrue(bounded.size() < unbounded.size());
+        for (int i = 0; i < bounded.size(); i++) {
+            assertEquals(unbounded.get(i).getCost(), bounded.get(i).getCost(), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import org.junit.Test;
+import projects.campuspaths.datastructures.KdTree;
+import projects.campuspaths.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class KdTreeTest {
+
+    private static double distance(Point point, double x, double y) {
+        return Math.hypot(point.getX() - x, point.getY() - y);
+    }
+
+    @Test
+    public void testNearestMatchesLinearScan() {
+        Random random = new Random(7);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Round coordinates so that some points share an x or a y.
+            points.add(new Point(random.nextInt(100), random.nextInt(100)));
+        }
+        KdTree tree = new KdTree(points);
+        for (int query = 0; query < 200; query++) {
+            double x = random.nextDouble() * 120 - 10;
+            double y = random.nextDouble() * 120 - 10;
+            int k = 1 + random.nextInt(10);
+
+            double[] expected = new double[points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                expected[i] = distance(points.get(i), x, y);
+            }
+            Arrays.sort(expected);
+            int[] nearest = tree.nearest(x, y, k);
+            double[] actual = new double[nearest.length];
+            for (int i = 0; i < nearest.length; i++) {
+                actual[i] = distance(points.get(nearest[i]), x, y);
+            }
+            assertArrayEquals(Arrays.copyOf(expected, k), actual, 0);
+            assertEquals(expected[0], distance(points.get(tree.nearest(x, y)), x, y), 0);
+        }
+    }
+
+    @Test
+    public void testFewerPointsThanK() {
+        KdTree tree = new KdTree(Arrays.asList(new Point(0, 0), new Point(3, 4)));
+        assertArrayEquals(new int[] {1, 0}, tree.nearest(3, 3, 5));
+        assertEquals(-1, new KdTree(new ArrayList<>()).nearest(0, 0));
+    }
+}
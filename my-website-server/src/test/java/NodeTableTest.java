@@ -0,0 +1,124 @@
+import org.junit.Test;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.NodeTable;
+import projects.campuspaths.datastructures.Point;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class NodeTableTest {
+
+    @Test
+    public void testDenseIdsInFirstSeenOrder() {
+        NodeTable table = new NodeTable();
+        assertEquals(0, table.intern(3, 4));
+        assertEquals(1, table.intern(-1.5, 2));
+        assertEquals(0, table.intern(3, 4));
+        assertEquals(2, table.intern(4, 3));
+        assertEquals(1, table.intern(-1.5, 2));
+        assertEquals(3, table.size());
+        assertEquals(List.of(new Point(3, 4), new Point(-1.5, 2), new Point(4, 3)), table.points());
+        assertEquals(new Point(4, 3), table.point(2));
+    }
+
+    @Test
+    public void testFindMisses() {
+        NodeTable table = new NodeTable();
+        assertEquals(-1, table.find(0, 0));
+        table.intern(1, 2);
+        assertEquals(0, table.find(1, 2));
+        assertEquals(-1, table.find(2, 1));
+        assertEquals(-1, table.find(1, 2.001));
+        // Finding doesn't add anything.
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testQuantizedCoordinatesCollapse() {
+        NodeTable table = new NodeTable();
+        int id = table.intern(1.00001, 2);
+        // Both round to 10000 units of 1 / PRECISION.
+        assertEquals(id, table.intern(1.000012, 2.00004));
+        assertEquals(id, table.find(0.99996, 1.99999));
+        assertEquals(id, table.find(1, 2));
+        // The location keeps the coordinates it was first interned with.
+        assertEquals(new Point(1.00001, 2), table.point(id));
+        // One unit over is another location.
+        assertEquals(-1, table.find(1.0001, 2));
+        assertEquals(id + 1, table.intern(1.0001, 2));
+        // Zero and negative zero are the same location.
+        assertEquals(table.intern(0.0, 0.0), table.intern(-0.0, -0.0));
+    }
+
+    @Test
+    public void testGrowth() {
+        // Well past the initial 16 slots, with locations close together and far apart.
+        NodeTable table = new NodeTable();
+        Random random = new Random(331);
+        double[][] locations = new double[20_000][];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = i % 2 == 0
+                    ? new double[] {i / 1e4, 0}
+                    : new double[] {random.nextInt(400_000) - 200_000, i};
+            assertEquals(i, table.intern(locations[i][0], locations[i][1]));
+        }
+        assertEquals(locations.length, table.size());
+        for (int i = 0; i < locations.length; i++) {
+            assertEquals(i, table.find(locations[i][0], locations[i][1]));
+            assertEquals(i, table.intern(locations[i][0], locations[i][1]));
+            assertEquals(new Point(locations[i][0], locations[i][1]), table.point(i));
+        }
+        assertEquals(locations.length, table.size());
+    }
+
+    @Test
+    public void testCoordinatesOutOfRange() {
+        NodeTable table = new NodeTable();
+        assertThrows(IllegalArgumentException.class, () -> table.intern(Double.NaN, 0));
+        assertThrows(IllegalArgumentException.class, () -> table.intern(0, Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> table.find(1e6, 0));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testCompactGraphFromEdgeArrays() {
+        List<String> nodes = List.of("a", "b", "c");
+        int[] sources = {1, 0, 0, 2, 0, 0};
+        int[] targets = {2, 1, 2, 0, 1, 1};
+        double[] weights = {1, 2, 3, 4, 2, 5};
+        CompactGraph<String> graph = CompactGraph.of(nodes, sources, targets, weights);
+
+        // The same graph, with its edges added one at a time.
+        Graph<String, Double> expected = new Graph<>();
+        for (String node : nodes) {
+            expected.addNode(node);
+        }
+        for (int i = 0; i < sources.length; i++) {
+            expected.addEdge(new Graph.Edge<>(nodes.get(sources[i]), nodes.get(targets[i]), weights[i]));
+        }
+
+        assertEquals(nodes.size(), graph.nodeCount());
+        // The second edge from a to b at cost 2 is a duplicate.
+        assertEquals(5, graph.edgeCount());
+        for (int node = 0; node < nodes.size(); node++) {
+            assertEquals(node, graph.id(nodes.get(node)));
+            List<Graph.Edge<String, Double>> edges = expected.getEdgesFrom(nodes.get(node));
+            assertEquals(edges.size(), graph.endEdge(node) - graph.firstEdge(node));
+            for (int i = 0; i < edges.size(); i++) {
+                int e = graph.firstEdge(node) + i;
+                assertEquals(edges.get(i).getChild(), graph.node(graph.target(e)));
+                assertEquals(edges.get(i).getLabel(), graph.weight(e), 0);
+                assertEquals(node, graph.source(e));
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CompactGraph.of(nodes, new int[] {0}, new int[] {3}, new double[] {1}));
+        assertThrows(IllegalArgumentException.class,
+                () -> CompactGraph.of(nodes, new int[] {-1}, new int[] {0}, new double[] {1}));
+    }
+}
@@ -0,0 +1,121 @@
+import com.google.gson.Gson;
+import org.junit.Test;
+import projects.campuspaths.ShortestPath;
+import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+import utils.Json;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+
+public class PathTest {
+
+    private static List<Path<String>.Segment> segments(Path<String> path) {
+        List<Path<String>.Segment> segments = new ArrayList<>();
+        for (Path<String>.Segment segment : path) {
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    @Test
+    public void testSegmentOrder() {
+        Path<String> path = new Path<>("a").extend("b", 1.0).extend("c", 2.5).extend("a", 0.5);
+        List<Path<String>.Segment> segments = segments(path);
+        assertEquals(3, segments.size());
+        String[] ends = {"a", "b", "c", "a"};
+        double[] costs = {1.0, 2.5, 0.5};
+        for (int i = 0; i < segments.size(); i++) {
+            assertEquals(ends[i], segments.get(i).getStart());
+            assertEquals(ends[i + 1], segments.get(i).getEnd());
+            assertEquals(costs[i], segments.get(i).getCost(), 0);
+        }
+        assertEquals("a", path.getStart());
+        assertEquals("a", path.getEnd());
+        assertEquals(4.0, path.getCost(), 0);
+        assertEquals("a =(1.000)=> b =(2.500)=> c =(0.500)=> a", path.toString());
+
+        Iterator<Path<String>.Segment> iterator = path.iterator();
+        iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertFalse(new Path<>("a").iterator().hasNext());
+    }
+
+    @Test
+    public void testExtendLeavesPrefixUnchanged() {
+        Path<String> prefix = new Path<>("a").extend("b", 1.0);
+        Path<String> left = prefix.extend("c", 1.0);
+        Path<String> right = prefix.extend("d", 2.0);
+        assertEquals(1, segments(prefix).size());
+        assertEquals("b", prefix.getEnd());
+        assertEquals(1.0, prefix.getCost(), 0);
+        assertEquals("c", left.getEnd());
+        assertEquals("d", right.getEnd());
+        assertEquals(segments(prefix).get(0), segments(left).get(0));
+        assertEquals(segments(prefix).get(0), segments(right).get(0));
+    }
+
+    @Test
+    public void testEqualsAcrossConstructions() {
+        Path<String> shared = new Path<>("a").extend("b", 1.0);
+        Path<String> fromShared = shared.extend("c", 2.0);
+        Path<String> separate = new Path<>("a").extend("b", 1.0).extend("c", 2.0);
+
+        Graph<String, Double> graph = new Graph<>();
+        for (String node : new String[] {"a", "b", "c"}) {
+            graph.addNode(node);
+        }
+        graph.addEdge(new Graph.Edge<>("a", "b", 1.0));
+        graph.addEdge(new Graph.Edge<>("b", "c", 2.0));
+        graph.addEdge(new Graph.Edge<>("a", "c", 5.0));
+        Path<String> searched = ShortestPath.dijkstra(graph, "a", "c");
+
+        for (Path<String> path : List.of(fromShared, separate, searched)) {
+            assertEquals(fromShared, path);
+            assertEquals(path, fromShared);
+            assertEquals(fromShared.hashCode(), path.hashCode());
+        }
+
+        // Same ends and cost, different segments.
+        assertNotEquals(fromShared, new Path<>("a").extend("c", 3.0));
+        // Same segments except for the cost of one.
+        assertNotEquals(fromShared, shared.extend("c", 2.5));
+        // A prefix is not equal to the path it is a prefix of.
+        assertNotEquals(fromShared, shared);
+        assertNotEquals(shared, fromShared);
+        // Empty paths are equal iff they start at the same node.
+        assertEquals(new Path<>("a"), new Path<>("a"));
+        assertNotEquals(new Path<>("a"), new Path<>("b"));
+        assertNotEquals(new Path<>("a"), "a");
+    }
+
+    @Test
+    public void testHashCodeMatchesListOfSegments() {
+        // A path's hash code has always been that of its start and its list of segments.
+        Path<String> path = new Path<>("a");
+        for (int i = 0; i < 50; i++) {
+            path = path.extend("n" + i, i);
+            assertEquals(31 * "a".hashCode() + segments(path).hashCode(), path.hashCode());
+        }
+        assertEquals(31 * "a".hashCode() + List.of().hashCode(), new Path<>("a").hashCode());
+    }
+
+    @Test
+    public void testToJsonShape() {
+        Gson gson = Json.GSON;
+        Path<Point> path = new Path<>(new Point(1, 2)).extend(new Point(3, 4), 5).extend(new Point(1, 2), 0.5);
+        assertEquals("{\"cost\":5.5,\"start\":{\"x\":1.0,\"y\":2.0},\"path\":["
+                        + "{\"start\":{\"x\":1.0,\"y\":2.0},\"end\":{\"x\":3.0,\"y\":4.0},\"cost\":5.0},"
+                        + "{\"start\":{\"x\":3.0,\"y\":4.0},\"end\":{\"x\":1.0,\"y\":2.0},\"cost\":0.5}]}",
+                gson.toJson(path));
+        assertEquals("{\"cost\":0.0,\"start\":{\"x\":1.0,\"y\":2.0},\"path\":[]}",
+                gson.toJson(new Path<>(new Point(1, 2))));
+    }
+}
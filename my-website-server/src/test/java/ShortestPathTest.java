@@ -0,0 +1,189 @@
+import org.junit.Test;
+import projects.campuspaths.DijkstraEngine;
+import projects.campuspaths.EuclideanHeuristic;
+import projects.campuspaths.ShortestPath;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ShortestPathTest {
+
+    // a -> b -> d is cheaper than a -> c -> d, and a -> d directly is the most expensive.
+    private static Graph<String, Double> diamond() {
+        Graph<String, Double> graph = new Graph<>();
+        for (String node : new String[] {"a", "b", "c", "d", "e"}) {
+            graph.addNode(node);
+        }
+        graph.addEdge(new Graph.Edge<>("a", "b", 1.0));
+        graph.addEdge(new Graph.Edge<>("b", "d", 2.0));
+        graph.addEdge(new Graph.Edge<>("a", "c", 1.5));
+        graph.addEdge(new Graph.Edge<>("c", "d", 2.0));
+        graph.addEdge(new Graph.Edge<>("a", "d", 5.0));
+        graph.addEdge(new Graph.Edge<>("d", "a", 1.0));
+        return graph;
+    }
+
+    @Test
+    public void testCompactDijkstraMatchesGraphDijkstra() {
+        Graph<String, Double> graph = diamond();
+        CompactGraph<String> compact = CompactGraph.of(graph);
+        for (String start : graph.getNodes()) {
+            for (String end : graph.getNodes()) {
+                assertEquals(start + " -> " + end,
+                        ShortestPath.dijkstra(graph, start, end), ShortestPath.dijkstra(compact, start, end));
+            }
+        }
+    }
+
+    @Test
+    public void testCompactDijkstraPath() {
+        Path<String> path = ShortestPath.dijkstra(CompactGraph.of(diamond()), "a", "d");
+        assertEquals(new Path<>("a").extend("b", 1.0).extend("d", 2.0), path);
+        assertEquals(3.0, path.getCost(), 0);
+    }
+
+    @Test
+    public void testCompactDijkstraUnreachable() {
+        assertNull(ShortestPath.dijkstra(CompactGraph.of(diamond()), "a", "e"));
+    }
+
+    @Test
+    public void testCompactDijkstraReusesScratchAcrossGraphs() {
+        Graph<String, Double> small = new Graph<>();
+        small.addNode("x");
+        small.addNode("y");
+        small.addEdge(new Graph.Edge<>("x", "y", 4.0));
+        // Alternate between graphs of different sizes on the same thread.
+        assertEquals(3.0, ShortestPath.dijkstra(CompactGraph.of(diamond()), "a", "d").getCost(), 0);
+        assertEquals(4.0, ShortestPath.dijkstra(CompactGraph.of(small), "x", "y").getCost(), 0);
+        assertEquals(3.0, ShortestPath.dijkstra(CompactGraph.of(diamond()), "a", "d").getCost(), 0);
+    }
+
+    // A size x size grid of unit-spaced points, with each edge costing twice its length.
+    private static CompactGraph<Point> grid(int size) {
+        Graph<Point, Double> graph = new Graph<>();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                graph.addNode(new Point(x, y));
+            }
+        }
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (x + 1 < size) {
+                    graph.addEdge(new Graph.Edge<>(new Point(x, y), new Point(x + 1, y), 2.0));
+                    graph.addEdge(new Graph.Edge<>(new Point(x + 1, y), new Point(x, y), 2.0));
+                }
+                if (y + 1 < size) {
+                    graph.addEdge(new Graph.Edge<>(new Point(x, y), new Point(x, y + 1), 2.0));
+                    graph.addEdge(new Graph.Edge<>(new Point(x, y + 1), new Point(x, y), 2.0));
+                }
+            }
+        }
+        return CompactGraph.of(graph);
+    }
+
+    @Test
+    public void testEuclideanHeuristicScale() {
+        assertEquals(2.0, EuclideanHeuristic.forGraph(grid(3)).getScale(), 0);
+    }
+
+    @Test
+    public void testAStarSettlesFewerNodes() {
+        CompactGraph<Point> graph = grid(10);
+        EuclideanHeuristic heuristic = EuclideanHeuristic.forGraph(graph);
+        Point start = new Point(0, 0);
+        Point end = new Point(9, 0);
+
+        Path<Point> dijkstra = ShortestPath.dijkstra(graph, start, end);
+        int dijkstraSettled = DijkstraEngine.forCurrentThread().settledCount();
+        Path<Point> aStar = ShortestPath.aStar(graph, start, end, heuristic);
+        int aStarSettled = DijkstraEngine.forCurrentThread().settledCount();
+
+        assertEquals(18.0, dijkstra.getCost(), 0);
+        assertEquals(dijkstra.getCost(), aStar.getCost(), 0);
+        assertTrue(aStarSettled < dijkstraSettled);
+    }
+
+    @Test
+    public void testBidirectionalMatchesDijkstra() {
+        Graph<String, Double> graph = diamond();
+        CompactGraph<String> compact = CompactGraph.of(graph);
+        for (String start : graph.getNodes()) {
+            for (String end : graph.getNodes()) {
+                Path<String> expected = ShortestPath.dijkstra(graph, start, end);
+                Path<String> generic = ShortestPath.bidirectionalDijkstra(graph, start, end);
+                Path<String> engine = ShortestPath.bidirectionalDijkstra(compact, start, end);
+                if (expected == null) {
+                    assertNull(generic);
+                    assertNull(engine);
+                } else {
+                    assertEquals(start + " -> " + end, expected.getCost(), generic.getCost(), 0);
+                    assertEquals(start + " -> " + end, expected.getCost(), engine.getCost(), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBidirectionalOnGrid() {
+        CompactGraph<Point> graph = grid(10);
+        Path<Point> path = ShortestPath.bidirectionalDijkstra(graph, new Point(0, 0), new Point(9, 9));
+        assertEquals(36.0, path.getCost(), 0);
+        assertEquals(new Point(0, 0), path.getStart());
+        assertEquals(new Point(9, 9), path.getEnd());
+    }
+
+    @Test
+    public void testReachableMatchesDijkstra() {
+        Graph<String, Double> graph = diamond();
+        CompactGraph<String> compact = CompactGraph.of(graph);
+        for (double maxCost : new double[] {0, 1, 2.5, 3, 100}) {
+            Map<String, Double> generic = ShortestPath.reachable(graph, "a", maxCost);
+            Map<String, Double> engine = ShortestPath.reachable(compact, "a", maxCost);
+            assertEquals(generic, engine);
+            for (String node : graph.getNodes()) {
+                Path<String> path = ShortestPath.dijkstra(graph, "a", node);
+                if (path != null && path.getCost() <= maxCost) {
+                    assertEquals(node + " within " + maxCost, path.getCost(), generic.get(node), 0);
+                } else {
+                    assertFalse(node + " within " + maxCost, generic.containsKey(node));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReachableOnlySearchesRegion() {
+        CompactGraph<Point> graph = grid(20);
+        Map<Point, Double> reached = ShortestPath.reachable(graph, new Point(0, 0), 4.0);
+        // (0, 0), (1, 0), (0, 1), (2, 0), (1, 1) and (0, 2), closest first.
+        assertEquals(6, reached.size());
+        assertEquals(new Point(0, 0), reached.keySet().iterator().next());
+        assertEquals(6, DijkstraEngine.forCurrentThread().settledCount());
+    }
+
+    @Test
+    public void testInfiniteWeightClosesEdge() {
+        CompactGraph<String> graph = CompactGraph.of(diamond());
+        double[] weights = new double[graph.edgeCount()];
+        for (int e = 0; e < weights.length; e++) {
+            boolean fromB = graph.source(e) == graph.id("b");
+            weights[e] = fromB ? Double.POSITIVE_INFINITY : graph.weight(e);
+        }
+        CompactGraph<String> closed = graph.withWeights(weights);
+        // With b -> d closed, a -> c -> d is the shortest, and d cannot be reached from b.
+        assertEquals(3.5, ShortestPath.dijkstra(closed, "a", "d").getCost(), 0);
+        assertEquals(3.5, ShortestPath.bidirectionalDijkstra(closed, "a", "d").getCost(), 0);
+        assertNull(ShortestPath.dijkstra(closed, "b", "d"));
+        assertFalse(ShortestPath.reachable(closed, "b", Double.POSITIVE_INFINITY).containsKey("d"));
+        assertEquals(3.0, ShortestPath.dijkstra(graph, "a", "d").getCost(), 0);
+    }
+}
@@ -0,0 +1,118 @@
+package projects.campuspaths;
+
+import org.junit.Test;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Point;
+import projects.campuspaths.parser.CampusPathsParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MapFileTest {
+
+    private static MapFile parse(String directory) {
+        String prefix = directory.isEmpty() ? "" : directory + "/";
+        return MapFile.parse(CampusPathsParser.parseCampusBuildings(prefix + "campus_buildings.csv"),
+                prefix + "campus_paths.csv");
+    }
+
+    private static byte[] write(MapFile map) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        map.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // The first length bytes of a saved map's body, followed by their own checksum, so that
+    // only the body is wrong.
+    private static byte[] withChecksum(byte[] saved, int length) {
+        byte[] result = Arrays.copyOf(saved, length + Long.BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(result, 0, length);
+        ByteBuffer.wrap(result).putLong(length, crc.getValue());
+        return result;
+    }
+
+    private static void assertSameMap(MapFile expected, MapFile actual) {
+        assertEquals(expected.buildings(), actual.buildings());
+        CompactGraph<Point> graph = expected.graph();
+        CompactGraph<Point> read = actual.graph();
+        assertEquals(graph.nodeCount(), read.nodeCount());
+        assertEquals(graph.edgeCount(), read.edgeCount());
+        assertEquals(expected.locations().points(), actual.locations().points());
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            assertEquals(graph.node(node), read.node(node));
+            assertEquals(graph.firstEdge(node), read.firstEdge(node));
+            assertEquals(graph.endEdge(node), read.endEdge(node));
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            assertEquals(graph.target(e), read.target(e));
+            assertEquals(Double.doubleToLongBits(graph.weight(e)), Double.doubleToLongBits(read.weight(e)));
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        for (String directory : new String[] {TestMaps.SQUARE, ""}) {
+            MapFile map = parse(directory);
+            byte[] saved = write(map);
+            assertSameMap(map, MapFile.read(ByteBuffer.wrap(saved)));
+
+            // The map is read from the buffer's position to its limit.
+            byte[] padded = new byte[saved.length + 20];
+            System.arraycopy(saved, 0, padded, 7, saved.length);
+            ByteBuffer buffer = ByteBuffer.wrap(padded);
+            buffer.position(7).limit(7 + saved.length);
+            assertSameMap(map, MapFile.read(buffer));
+        }
+    }
+
+    @Test
+    public void testFlippedByteFailsChecksum() throws IOException {
+        byte[] saved = write(parse(TestMaps.SQUARE));
+        for (int i = 0; i < saved.length - Long.BYTES; i += 13) {
+            byte[] corrupt = saved.clone();
+            corrupt[i] ^= 0x10;
+            IOException e = assertThrows(IOException.class, () -> MapFile.read(ByteBuffer.wrap(corrupt)));
+            assertTrue(e.getMessage(), e.getMessage().contains("checksum mismatch"));
+        }
+    }
+
+    @Test
+    public void testOtherFormatIsNotRead() throws IOException {
+        byte[] saved = write(parse(TestMaps.SQUARE));
+        int body = saved.length - Long.BYTES;
+        // The format version, then the magic number.
+        for (int offset : new int[] {4, 0}) {
+            byte[] other = saved.clone();
+            ByteBuffer.wrap(other).putInt(offset, ByteBuffer.wrap(saved).getInt(offset) + 1);
+            assertNull(MapFile.read(ByteBuffer.wrap(withChecksum(other, body))));
+        }
+        assertEquals(MapFile.FORMAT_VERSION, ByteBuffer.wrap(saved).getInt(4));
+    }
+
+    @Test
+    public void testTruncatedMapIsRejected() throws IOException {
+        byte[] saved = write(parse(TestMaps.SQUARE));
+        int body = saved.length - Long.BYTES;
+        for (int length = 0; length < body; length++) {
+            // With a valid checksum, so that the reader has to notice the missing bytes itself.
+            byte[] truncated = withChecksum(saved, length);
+            assertThrows("truncated to " + length, IOException.class,
+                    () -> MapFile.read(ByteBuffer.wrap(truncated)));
+            // And cut off as it is, checksum and all.
+            byte[] cut = Arrays.copyOf(saved, length);
+            assertThrows("cut to " + length, IOException.class, () -> MapFile.read(ByteBuffer.wrap(cut)));
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package projects.campuspaths;
+
+import org.junit.Test;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Graph;
+import projects.campuspaths.datastructures.Path;
+import projects.campuspaths.datastructures.Point;
+import projects.campuspaths.parser.CampusPathsParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class RouteTableTest {
+
+    private static final int BUILDINGS = 12;
+
+    // A random graph of points, with every edge doubled by one going the other way at the same
+    // cost if twins is set. Random costs make every shortest path unique.
+    private static CompactGraph<Point> randomGraph(int nodes, int edges, boolean twins, long seed) {
+        Random random = new Random(seed);
+        Graph<Point, Double> graph = new Graph<>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(point(i));
+        }
+        for (int i = 0; i < edges; i++) {
+            Point a = point(random.nextInt(nodes));
+            Point b = point(random.nextInt(nodes));
+            double weight = 1 + 100 * random.nextDouble();
+            graph.addEdge(new Graph.Edge<>(a, b, weight));
+            if (twins) {
+                graph.addEdge(new Graph.Edge<>(b, a, weight));
+            }
+        }
+        return CompactGraph.of(graph);
+    }
+
+    private static Point point(int i) {
+        return new Point(i, i % 7);
+    }
+
+    private static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < BUILDINGS; i++) {
+            names.add("B" + i);
+        }
+        return names;
+    }
+
+    private static int[] nodes(CompactGraph<Point> graph) {
+        int[] nodes = new int[BUILDINGS];
+        for (int i = 0; i < BUILDINGS; i++) {
+            nodes[i] = graph.id(point(3 * i));
+        }
+        return nodes;
+    }
+
+    private static void assertMatchesDijkstra(CompactGraph<Point> graph, RouteTable table) {
+        List<String> names = names();
+        int[] nodes = nodes(graph);
+        for (int i = 0; i < BUILDINGS; i++) {
+            for (int j = 0; j < BUILDINGS; j++) {
+                Path<Point> expected = ShortestPath.dijkstra(graph, graph.node(nodes[i]), graph.node(nodes[j]));
+                assertEquals(names.get(i) + " -> " + names.get(j), expected, table.get(names.get(i), names.get(j)));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesDijkstra() {
+        for (long seed = 0; seed < 5; seed++) {
+            CompactGraph<Point> graph = randomGraph(40, 70, false, seed);
+            assertMatchesDijkstra(graph, RouteTable.compute(graph, names(), nodes(graph)));
+        }
+    }
+
+    @Test
+    public void testMatchesDijkstraWithTwinEdges() {
+        for (long seed = 0; seed < 5; seed++) {
+            // Sparse enough that some pairs are not connected at all.
+            CompactGraph<Point> graph = randomGraph(40, 35, true, seed);
+            assertMatchesDijkstra(graph, RouteTable.compute(graph, names(), nodes(graph)));
+        }
+    }
+
+    // The routes of table that take each edge of graph, found from the paths of the routes.
+    private static List<List<Integer>> usersFromPaths(CompactGraph<Point> graph, RouteTable table) {
+        List<List<Integer>> users = new ArrayList<>();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            users.add(new ArrayList<>());
+        }
+        for (String start : names()) {
+            for (String end : names()) {
+                Path<Point> path = table.get(start, end);
+                if (path == null) {
+                    continue;
+                }
+                int route = table.route(start, end);
+                for (Path<Point>.Segment segment : path) {
+                    int source = graph.id(segment.getStart());
+                    int edge = -1;
+                    for (int e = graph.firstEdge(source); e < graph.endEdge(source) && edge < 0; e++) {
+                        if (graph.node(graph.target(e)).equals(segment.getEnd()) && graph.weight(e) == segment.getCost()) {
+                            edge = e;
+                        }
+                    }
+                    assertTrue(edge >= 0);
+                    users.get(edge).add(route);
+                }
+            }
+        }
+        for (List<Integer> routes : users) {
+            routes.sort(null);
+        }
+        return users;
+    }
+
+    @Test
+    public void testRoutesUsing() {
+        for (boolean twins : new boolean[] {false, true}) {
+            CompactGraph<Point> graph = randomGraph(40, 60, twins, 7);
+            RouteTable table = RouteTable.compute(graph, names(), nodes(graph));
+            List<List<Integer>> expected = usersFromPaths(graph, table);
+            int used = 0;
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                List<Integer> actual = new ArrayList<>();
+                for (int route : table.routesUsing(e)) {
+                    actual.add(route);
+                }
+                assertEquals("edge " + e, expected.get(e), actual);
+                used += actual.isEmpty() ? 0 : 1;
+            }
+            assertTrue(used > 0);
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        CompactGraph<Point> graph = randomGraph(40, 50, true, 42);
+        byte[] digest = "inputs".getBytes(StandardCharsets.UTF_8);
+        File file = File.createTempFile("routes", ".bin");
+        try {
+            RouteTable.compute(graph, names(), nodes(graph)).write(file, digest);
+            RouteTable read = RouteTable.read(file, digest, graph, names(), nodes(graph));
+            assertMatchesDijkstra(graph, read);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testOtherInputsAreNotRead() throws IOException {
+        CompactGraph<Point> graph = randomGraph(40, 50, true, 42);
+        byte[] digest = "inputs".getBytes(StandardCharsets.UTF_8);
+        File file = File.createTempFile("routes", ".bin");
+        try {
+            RouteTable.compute(graph, names(), nodes(graph)).write(file, digest);
+            assertNull(RouteTable.read(file, "others".getBytes(StandardCharsets.UTF_8), graph, names(), nodes(graph)));
+            List<String> renamed = names();
+            renamed.set(0, "Other");
+            assertNull(RouteTable.read(file, digest, graph, renamed, nodes(graph)));
+            CompactGraph<Point> other = randomGraph(40, 51, true, 42);
+            assertNull(RouteTable.read(file, digest, other, names(), nodes(other)));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    // The offset of the first route in a file of the routes between names(): the digest, the
+    // header and the names come before the routes.
+    private static long routesOffset(byte[] digest) {
+        long offset = 4 + digest.length + 5 * 4;
+        for (String name : names()) {
+            offset += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return offset;
+    }
+
+    @Test
+    public void testCorruptLengthIsRejected() throws IOException {
+        CompactGraph<Point> graph = randomGraph(40, 50, true, 42);
+        byte[] digest = "inputs".getBytes(StandardCharsets.UTF_8);
+        File file = File.createTempFile("routes", ".bin");
+        try {
+            RouteTable table = RouteTable.compute(graph, names(), nodes(graph));
+            // Too long to be allocated, too long to be a shortest route, and not -1.
+            for (int length : new int[] {Integer.MAX_VALUE, graph.nodeCount() + 1, -2, Integer.MIN_VALUE}) {
+                table.write(file, digest);
+                try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                    raw.seek(routesOffset(digest));
+                    raw.writeInt(length);
+                }
+                IOException e = assertThrows(IOException.class,
+                        () -> RouteTable.read(file, digest, graph, names(), nodes(graph)));
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt route table"));
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testCorruptFileIsRejected() throws IOException {
+        CompactGraph<Point> graph = randomGraph(40, 50, true, 42);
+        byte[] digest = "inputs".getBytes(StandardCharsets.UTF_8);
+        File file = File.createTempFile("routes", ".bin");
+        try {
+            RouteTable table = RouteTable.compute(graph, names(), nodes(graph));
+            table.write(file, digest);
+            // Point the first edge of the first route that has one at an edge that does not
+            // exist.
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.seek(routesOffset(digest));
+                int length = raw.readInt();
+                while (length <= 0) {
+                    length = raw.readInt();
+                }
+                raw.writeInt(graph.edgeCount());
+            }
+            assertThrows(IOException.class, () -> RouteTable.read(file, digest, graph, names(), nodes(graph)));
+
+            table.write(file, digest);
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.setLength(raw.length() - 1);
+            }
+            assertThrows(IOException.class, () -> RouteTable.read(file, digest, graph, names(), nodes(graph)));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testCampusMapRecomputesCorruptRoutes() throws IOException {
+        java.nio.file.Path directory = TestMaps.useNewCacheDirectory();
+        try {
+            CampusMap map = new CampusMap(TestMaps.SQUARE);
+            byte[] digest = CampusPathsParser.digest(TestMaps.SQUARE + "/campus_buildings.csv",
+                    TestMaps.SQUARE + "/campus_paths.csv");
+            File file = CacheDirectory.file("routes", RouteTable.FORMAT_VERSION, digest);
+            long length = file.length();
+            assertTrue(length > 0);
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.setLength(length / 2);
+            }
+
+            CampusMap reloaded = new CampusMap(TestMaps.SQUARE);
+            assertEquals(length, file.length());
+            for (String start : map.buildingNames().keySet()) {
+                for (String end : map.buildingNames().keySet()) {
+                    assertEquals(map.findShortestPath(start, end, Algorithm.DIJKSTRA),
+                            reloaded.findShortestPath(start, end));
+                }
+            }
+        } finally {
+            TestMaps.deleteCacheDirectory(directory);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package projects.campuspaths;
+
+import org.junit.Test;
+import projects.campuspaths.datastructures.CompactGraph;
+import projects.campuspaths.datastructures.Graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShortestPathTreeCacheTest {
+
+    private static CompactGraph<Integer> randomGraph(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        Graph<Integer, Double> graph = new Graph<>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge(new Graph.Edge<>(random.nextInt(nodes), random.nextInt(nodes), 1 + 100 * random.nextDouble()));
+        }
+        return CompactGraph.of(graph);
+    }
+
+    private static void assertSameTree(CompactGraph<?> graph, ShortestPathTree expected, ShortestPathTree actual) {
+        assertEquals(expected.source(), actual.source());
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            assertEquals(expected.dist(node), actual.dist(node), 0);
+            assertEquals(expected.parentEdge(node), actual.parentEdge(node));
+        }
+    }
+
+    /**
+     * A cache over one graph that records which sources it had to search from.
+     */
+    private static final class Recording {
+        private final CompactGraph<Integer> graph;
+        private final ShortestPathTreeCache cache;
+        private final List<Integer> computed = new ArrayList<>();
+
+        private Recording(CompactGraph<Integer> graph, int trees) {
+            this.graph = graph;
+            long treeBytes = DijkstraEngine.forCurrentThread().tree(graph, 0).bytes();
+            this.cache = new ShortestPathTreeCache(trees * treeBytes);
+        }
+
+        private ShortestPathTree get(int source) {
+            return cache.get(source, 0, s -> {
+                computed.add(s);
+                return DijkstraEngine.forCurrentThread().tree(graph, s);
+            });
+        }
+
+        private void assertCounters(long hits, long misses, long evictions) {
+            assertEquals("hits", hits, cache.hits());
+            assertEquals("misses", misses, cache.misses());
+            assertEquals("evictions", evictions, cache.evictions());
+            assertEquals(0, cache.invalidations());
+        }
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        Recording recording = new Recording(randomGraph(20, 60, 1), 3);
+        ShortestPathTreeCache cache = recording.cache;
+        ShortestPathTree first = recording.get(0);
+        recording.get(1);
+        recording.get(2);
+        recording.assertCounters(0, 3, 0);
+        assertEquals(3, cache.size());
+
+        // Using 0 again makes 1 the least recently used, so it goes first.
+        assertSame(first, recording.get(0));
+        recording.get(3);
+        recording.assertCounters(1, 4, 1);
+        assertEquals(List.of(0, 1, 2, 3), recording.computed);
+        assertEquals(3, cache.size());
+
+        recording.get(2);
+        recording.get(0);
+        recording.get(3);
+        recording.assertCounters(4, 4, 1);
+        // Now 2 is the least recently used.
+        recording.get(1);
+        recording.get(3);
+        recording.get(2);
+        recording.assertCounters(5, 6, 3);
+        assertEquals(List.of(0, 1, 2, 3, 1, 2), recording.computed);
+        assertTrue(cache.bytes() <= 3 * first.bytes());
+        assertEquals(3 * first.bytes(), cache.bytes());
+    }
+
+    @Test
+    public void testStaysWithinBudget() {
+        Random random = new Random(5);
+        Recording recording = new Recording(randomGraph(50, 150, 2), 4);
+        long budget = 4 * recording.get(0).bytes();
+        for (int i = 0; i < 1000; i++) {
+            recording.get(random.nextInt(50));
+            assertTrue(recording.cache.bytes() <= budget);
+            assertTrue(recording.cache.size() <= 4);
+        }
+        ShortestPathTreeCache cache = recording.cache;
+        assertEquals(1001, cache.hits() + cache.misses());
+        assertEquals(recording.computed.size(), cache.misses());
+        // Every miss adds a tree, and the cache ends full.
+        assertEquals(cache.misses() - 4, cache.evictions());
+    }
+
+    @Test
+    public void testTreeLargerThanBudgetIsNotKept() {
+        CompactGraph<Integer> graph = randomGraph(20, 60, 3);
+        ShortestPathTreeCache cache = new ShortestPathTreeCache(1);
+        for (int i = 0; i < 2; i++) {
+            cache.get(0, 0, s -> DijkstraEngine.forCurrentThread().tree(graph, s));
+        }
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+        assertEquals(2, cache.misses());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    public void testAdvanceDropsOnlyInvalidTrees() {
+        Recording recording = new Recording(randomGraph(20, 60, 6), 4);
+        ShortestPathTreeCache cache = recording.cache;
+        for (int source = 0; source < 3; source++) {
+            recording.get(source);
+        }
+        cache.advance(1, tree -> tree.source() != 1);
+        assertEquals(1, cache.invalidations());
+        assertEquals(2, cache.size());
+        assertEquals(2 * DijkstraEngine.forCurrentThread().tree(recording.graph, 0).bytes(), cache.bytes());
+
+        // The trees kept are hits at the new version, and the one dropped is searched again.
+        for (int source = 0; source < 3; source++) {
+            cache.get(source, 1, s -> DijkstraEngine.forCurrentThread().tree(recording.graph, s));
+        }
+        assertEquals(2, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testOldVersionIsNeverStored() {
+        CompactGraph<Integer> graph = randomGraph(20, 60, 7);
+        ShortestPathTreeCache cache = new ShortestPathTreeCache(1 << 20);
+        // The map changes while the tree is being computed.
+        ShortestPathTree computed = cache.get(0, 0, s -> {
+            cache.advance(1, tree -> true);
+            return DijkstraEngine.forCurrentThread().tree(graph, s);
+        });
+        assertEquals(0, computed.source());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+
+        // A lookup at the new version is stored, and one at the old version bypasses it.
+        ShortestPathTree current = cache.get(0, 1, s -> DijkstraEngine.forCurrentThread().tree(graph, s));
+        assertEquals(1, cache.size());
+        ShortestPathTree old = cache.get(0, 0, s -> DijkstraEngine.forCurrentThread().tree(graph, s));
+        assertTrue(old != current);
+        assertSame(current, cache.get(0, 1, s -> DijkstraEngine.forCurrentThread().tree(graph, s)));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.hits());
+        assertEquals(3, cache.misses());
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        CompactGraph<Integer> graph = randomGraph(300, 900, 4);
+        long treeBytes = DijkstraEngine.forCurrentThread().tree(graph, 0).bytes();
+        ShortestPathTreeCache cache = new ShortestPathTreeCache(5 * treeBytes);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                long seed = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 200; i++) {
+                        // Mostly a few hot sources, so that threads hit and race on them.
+                        int source = random.nextInt(4) > 0 ? random.nextInt(8) : random.nextInt(300);
+                        ShortestPathTree tree = cache.get(source, 0,
+                                s -> DijkstraEngine.forCurrentThread().tree(graph, s));
+                        assertSameTree(graph, DijkstraEngine.forCurrentThread().tree(graph, source), tree);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(8 * 200, cache.hits() + cache.misses());
+        assertTrue(cache.hits() > 0);
+        assertTrue(cache.bytes() <= 5 * treeBytes);
+        assertTrue(cache.size() <= 5);
+    }
+}
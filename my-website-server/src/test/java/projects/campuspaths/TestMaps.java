@@ -0,0 +1,63 @@
+package projects.campuspaths;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * The campus maps in the test resources, and a cache directory of their own for the tests that
+ * load them, so that they neither read nor leave behind the files derived by other runs.
+ */
+public final class TestMaps {
+
+    /**
+     * The id of a map whose buildings A, B, C and D are the corners of a 100 x 100 square,
+     * with a shortcut from A to C through its middle, E is 100 to the right of B, and X is on
+     * an island of its own. Every segment can be walked both ways.
+     */
+    public static final String SQUARE = "square";
+
+    /**
+     * The id of a map of two buildings, P and Q, 10 apart.
+     */
+    public static final String LINE = "line";
+
+    /**
+     * The id of a map of three buildings, T1, T2 and T3, at the corners of a 30-40-50 triangle.
+     */
+    public static final String TRIANGLE = "triangle";
+
+    /**
+     * The id of a map whose buildings file cannot be parsed.
+     */
+    public static final String BROKEN = "broken";
+
+    private TestMaps() {
+    }
+
+    /**
+     * Points the cache directory at a new, empty, temporary directory.
+     * @return the directory, to be deleted with {@link #deleteCacheDirectory(Path)}
+     * @throws IOException if the directory cannot be made
+     */
+    public static Path useNewCacheDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("campuspaths");
+        System.setProperty("campuspaths.cacheDir", directory.toString());
+        return directory;
+    }
+
+    /**
+     * Deletes a directory made by {@link #useNewCacheDirectory()} and everything in it.
+     * @throws IOException if it cannot be deleted
+     */
+    public static void deleteCacheDirectory(Path directory) throws IOException {
+        System.clearProperty("campuspaths.cacheDir");
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheTest {
+
+    // Long and repetitive enough that gzip makes it smaller.
+    private static List<String> names(String prefix) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            names.add(prefix + " building " + i);
+        }
+        return names;
+    }
+
+    private static byte[] json(Object value) {
+        return Json.GSON.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            in.transferTo(out);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(ResponseCache.Reply reply) {
+        return reply.headers.get("ETag");
+    }
+
+    @Test
+    public void testPlainReply() throws Exception {
+        ResponseCache cache = new ResponseCache();
+        ResponseCache.Reply reply = cache.reply(null, null, "/names", 1, () -> names("a"));
+        assertEquals(200, reply.status);
+        assertArrayEquals(json(names("a")), reply.body);
+        assertEquals("no-cache", reply.headers.get("Cache-Control"));
+        assertEquals("Accept-Encoding", reply.headers.get("Vary"));
+        assertTrue(etag(reply), etag(reply).matches("\"[0-9a-f]{32}\""));
+        assertFalse(reply.headers.containsKey("Content-Encoding"));
+    }
+
+    @Test
+    public void testEtagStableAcrossRebuild() throws Exception {
+        ResponseCache cache = new ResponseCache();
+        String etag = etag(cache.reply(null, null, "/names", 1, () -> names("a")));
+        // Made again for another version, from the same data.
+        assertEquals(etag, etag(cache.reply(null, null, "/names", 2, () -> names("a"))));
+        // And by another cache, as after a restart.
+        assertEquals(etag, etag(new ResponseCache().reply(null, null, "/other", "v", () -> names("a"))));
+        assertNotEquals(etag, etag(cache.reply(null, null, "/names", 3, () -> names("b"))));
+        assertEquals(3L, (long) cache.stats().get("misses"));
+    }
+
+    @Test
+    public void testRebuildOnlyOnVersionChange() throws Exception {
+        ResponseCache cache = new ResponseCache();
+        AtomicInteger made = new AtomicInteger();
+        ResponseCache.Source source = () -> names("v" + made.incrementAndGet());
+        ResponseCache.Reply first = cache.reply(null, null, "/names", "1", source);
+        ResponseCache.Reply again = cache.reply(null, null, "/names", "1", source);
+        assertEquals(1, made.get());
+        assertArrayEquals(first.body, again.body);
+        assertEquals(etag(first), etag(again));
+
+        ResponseCache.Reply changed = cache.reply(null, null, "/names", "2", source);
+        assertEquals(2, made.get());
+        assertArrayEquals(json(names("v2")), changed.body);
+        assertNotEquals(etag(first), etag(changed));
+        // Another key is another body.
+        cache.reply(null, null, "/other", "2", source);
+        assertEquals(3, made.get());
+
+        assertEquals(1L, (long) cache.stats().get("hits"));
+        assertEquals(3L, (long) cache.stats().get("misses"));
+        assertEquals(2L, (long) cache.stats().get("bodies"));
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        ResponseCache cache = new ResponseCache();
+        String etag = etag(cache.reply(null, null, "/names", 1, () -> names("a")));
+        for (String ifNoneMatch : new String[] {etag, "W/" + etag, "\"other\", " + etag, " W/" + etag + " ", "*"}) {
+            ResponseCache.Reply reply = cache.reply(null, ifNoneMatch, "/names", 1, () -> names("a"));
+            assertEquals(ifNoneMatch, 304, reply.status);
+            assertNull(reply.body);
+            assertEquals(etag, etag(reply));
+        }
+        assertEquals(5L, (long) cache.stats().get("notModified"));
+
+        for (String ifNoneMatch : new String[] {"\"other\"", etag.substring(1), ""}) {
+            ResponseCache.Reply reply = cache.reply(null, ifNoneMatch, "/names", 1, () -> names("a"));
+            assertEquals(ifNoneMatch, 200, reply.status);
+            assertArrayEquals(json(names("a")), reply.body);
+        }
+        // A tag of the body before it changed.
+        assertEquals(200, cache.reply(null, etag, "/names", 2, () -> names("b")).status);
+        assertEquals(5L, (long) cache.stats().get("notModified"));
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        ResponseCache cache = new ResponseCache();
+        ResponseCache.Reply plain = cache.reply(null, null, "/names", 1, () -> names("a"));
+        for (String acceptEncoding : new String[] {"gzip", "deflate, gzip;q=0.5", "*", "GZIP"}) {
+            ResponseCache.Reply reply = cache.reply(acceptEncoding, null, "/names", 1, () -> names("a"));
+            assertEquals(acceptEncoding, "gzip", reply.headers.get("Content-Encoding"));
+            assertTrue(reply.body.length < plain.body.length);
+            assertArrayEquals(plain.body, gunzip(reply.body));
+            assertEquals(etag(plain).replace("\"", "") + "-gzip", etag(reply).replace("\"", ""));
+        }
+        for (String acceptEncoding : new String[] {"gzip;q=0", "deflate", "x-gzip-like", "*, gzip;q=0", ""}) {
+            ResponseCache.Reply reply = cache.reply(acceptEncoding, null, "/names", 1, () -> names("a"));
+            assertFalse(acceptEncoding, reply.headers.containsKey("Content-Encoding"));
+            assertArrayEquals(plain.body, reply.body);
+            assertEquals(etag(plain), etag(reply));
+        }
+
+        // Either tag of the body makes a 304, whatever the encoding asked for.
+        String gzipEtag = etag(cache.reply("gzip", null, "/names", 1, () -> names("a")));
+        assertEquals(304, cache.reply(null, gzipEtag, "/names", 1, () -> names("a")).status);
+        assertEquals(304, cache.reply("gzip", etag(plain), "/names", 1, () -> names("a")).status);
+    }
+
+    @Test
+    public void testSmallBodyIsNotGzipped() throws Exception {
+        ResponseCache cache = new ResponseCache();
+        ResponseCache.Reply reply = cache.reply("gzip", null, "/small", 1, () -> List.of("a"));
+        assertFalse(reply.headers.containsKey("Content-Encoding"));
+        assertArrayEquals(json(List.of("a")), reply.body);
+    }
+}